@@ -0,0 +1,55 @@
+package de.amr.games.birdy.benchmarks;
+
+import static de.amr.games.birdy.sprites.SpritesheetReader.extractSpriteSheet;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.games.birdy.BirdyGameApp;
+
+/**
+ * Application with the game settings but without scenes. Entities like the bird or the city read
+ * the application settings and clock in their constructors, so benchmarks using them must start
+ * this application first. Note that this opens a window, use e.g. {@code xvfb-run} on machines
+ * without display.
+ * 
+ * @author Armin Reichert
+ */
+public class BenchmarkApp extends BirdyGameApp {
+
+	private static final CountDownLatch initialized = new CountDownLatch(1);
+	private static boolean launched;
+
+	public static synchronized void ensureRunning() {
+		if (!launched) {
+			launched = true;
+			launch(BenchmarkApp.class, new String[0]);
+		}
+		try {
+			if (!initialized.await(30, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Benchmark application could not be started");
+			}
+		} catch (InterruptedException x) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(x);
+		}
+	}
+
+	@Override
+	public void init() {
+		extractSpriteSheet();
+		createCollisionHandler();
+		setController(new Lifecycle() {
+
+			@Override
+			public void init() {
+			}
+
+			@Override
+			public void update() {
+			}
+		});
+		initialized.countDown();
+	}
+}
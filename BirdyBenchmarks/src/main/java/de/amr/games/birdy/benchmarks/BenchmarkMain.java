@@ -0,0 +1,37 @@
+package de.amr.games.birdy.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the command line in throughput mode with the GC profiler enabled,
+ * so that the allocation rate is reported for each benchmark. If the command line selects no
+ * benchmark, all benchmarks of this package are run.
+ * <p>
+ * Usage: {@code java -jar target/benchmarks.jar [JMH options]}
+ * 
+ * @author Armin Reichert
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder builder = new OptionsBuilder()
+		/*@formatter:off*/
+			.parent(commandLine)
+			.addProfiler(GCProfiler.class)
+			.shouldFailOnError(true);
+		/*@formatter:on*/
+		if (commandLine.getIncludes().isEmpty()) {
+			builder.include(BenchmarkMain.class.getPackageName() + ".*");
+		}
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,66 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.games.birdy.entities.Bird;
+
+/**
+ * Bird physics and collision box.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BirdBenchmark {
+
+	private Bird bird;
+
+	@Setup
+	public void setup() {
+		BenchmarkApp.ensureRunning();
+		bird = new Bird();
+		bird.init();
+	}
+
+	private void resetPosition() {
+		if (bird.tf.y > 400 || bird.tf.y < 0) {
+			bird.tf.setPosition(80, 200);
+			bird.tf.setVelocity(0, 0);
+		}
+	}
+
+	@Benchmark
+	public float fly() {
+		resetPosition();
+		bird.fly();
+		return bird.tf.y;
+	}
+
+	@Benchmark
+	public float flap() {
+		resetPosition();
+		bird.flap();
+		return bird.tf.y;
+	}
+
+	@Benchmark
+	public Rectangle2D collisionBox() {
+		return bird.getCollisionBox();
+	}
+}
@@ -0,0 +1,77 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.amr.games.birdy.entities.Bird;
+import de.amr.games.birdy.entities.Obstacle;
+import de.amr.games.birdy.entities.ObstacleBroadphase;
+import de.amr.games.birdy.entities.ObstacleBroadphase.CollisionListener;
+
+/**
+ * Bird-vs-obstacle collision detection: the broadphase compared to testing the colliders of all
+ * obstacles.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadphaseBenchmark {
+
+	@Param({ "4", "100", "1000" })
+	public int numObstacles;
+
+	private Bird bird;
+	private List<Obstacle> obstacles;
+	private ObstacleBroadphase broadphase;
+	private CollisionListener events;
+
+	@Setup
+	public void setup(Blackhole bh) {
+		BenchmarkApp.ensureRunning();
+		bird = new Bird();
+		bird.tf.setPosition(80, 150);
+		obstacles = new ArrayList<>();
+		for (int i = 0; i < numObstacles; ++i) {
+			Obstacle obstacle = new Obstacle(50, 150 + i % 50);
+			obstacle.tf.x = 60 + i * 100 - numObstacles / 2 * 100;
+			obstacles.add(obstacle);
+		}
+		broadphase = new ObstacleBroadphase();
+		events = (event, obstacle) -> bh.consume(event);
+	}
+
+	@Benchmark
+	public void broadphase() {
+		broadphase.detectCollisions(bird, obstacles, events);
+	}
+
+	@Benchmark
+	public void allColliders(Blackhole bh) {
+		Rectangle2D box = bird.getCollisionBox();
+		for (Obstacle obstacle : obstacles) {
+			bh.consume(box.intersects(obstacle.getUpperPart().getCollisionBox()));
+			bh.consume(box.intersects(obstacle.getLowerPart().getCollisionBox()));
+			bh.consume(box.intersects(obstacle.getPassage().getCollisionBox()));
+		}
+	}
+}
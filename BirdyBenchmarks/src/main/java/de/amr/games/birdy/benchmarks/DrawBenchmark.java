@@ -0,0 +1,88 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.games.birdy.entities.City;
+import de.amr.games.birdy.entities.City.DayTime;
+import de.amr.games.birdy.entities.Ground;
+import de.amr.games.birdy.entities.Score;
+
+/**
+ * Drawing the score, the city and the scrolling ground into an offscreen image of the window size.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DrawBenchmark {
+
+	@Param({ "DAY", "NIGHT" })
+	public DayTime dayTime;
+
+	private int points = 12345;
+	private Score score;
+	private City city;
+	private Ground ground;
+	private BufferedImage canvas;
+	private Graphics2D g;
+
+	@Setup
+	public void setup() {
+		BenchmarkApp.ensureRunning();
+		score = new Score(() -> points, 1.5f);
+		score.tf.setPosition(300, 100);
+		city = new City(dayTime);
+		city.init();
+		city.setWidth(640);
+		ground = new Ground();
+		ground.setWidth(640);
+		ground.tf.setPosition(0, 480 - ground.tf.height);
+		ground.tf.setVelocity(-2.5f, 0);
+		canvas = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+		g = canvas.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage drawScore() {
+		score.draw(g);
+		return canvas;
+	}
+
+	@Benchmark
+	public BufferedImage drawCity() {
+		city.draw(g);
+		return canvas;
+	}
+
+	@Benchmark
+	public BufferedImage scrollGround() {
+		ground.savePreviousState();
+		ground.update();
+		ground.draw(g, 0.5f);
+		return canvas;
+	}
+}
@@ -0,0 +1,95 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.entity.Entity;
+import de.amr.easy.game.entity.EntityMap;
+import de.amr.games.birdy.entities.Area;
+import de.amr.games.birdy.entities.EntityRegistry;
+import de.amr.games.birdy.entities.EntityRegistry.Handle;
+
+/**
+ * Per-tick entity access as done by the scenes: looking up the named entities and updating all
+ * entities, using the entity map of the framework and the entity registry of the game.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntitiesBenchmark {
+
+	static class Counter extends Entity implements Lifecycle {
+
+		int ticks;
+
+		@Override
+		public void init() {
+		}
+
+		@Override
+		public void update() {
+			++ticks;
+		}
+	}
+
+	@Param({ "10", "100" })
+	public int count;
+
+	private EntityMap entityMap;
+	private EntityRegistry registry;
+	private Handle<Counter> birdHandle, cityHandle, groundHandle;
+
+	@Setup
+	public void setup() {
+		entityMap = new EntityMap();
+		registry = new EntityRegistry();
+		for (String name : new String[] { "bird", "city", "ground" }) {
+			entityMap.store(name, new Counter());
+			registry.store(name, new Counter());
+		}
+		entityMap.store("world", new Area(0, -480, 640, 960));
+		registry.store("world", new Area(0, -480, 640, 960));
+		for (int i = 0; i < count; ++i) {
+			entityMap.store(new Counter());
+			registry.store(new Counter());
+		}
+		birdHandle = registry.handle("bird", Counter.class);
+		cityHandle = registry.handle("city", Counter.class);
+		groundHandle = registry.handle("ground", Counter.class);
+	}
+
+	@Benchmark
+	public int entityMap() {
+		Counter bird = entityMap.named("bird");
+		Counter city = entityMap.named("city");
+		Counter ground = entityMap.named("ground");
+		entityMap.implementing(Lifecycle.class).forEach(Lifecycle::update);
+		return bird.ticks + city.ticks + ground.ticks;
+	}
+
+	@Benchmark
+	public int entityRegistry() {
+		Counter bird = registry.get(birdHandle);
+		Counter city = registry.get(cityHandle);
+		Counter ground = registry.get(groundHandle);
+		registry.update();
+		return bird.ticks + city.ticks + ground.ticks;
+	}
+}
@@ -0,0 +1,90 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.amr.games.birdy.entities.BirdEvent;
+import de.amr.games.birdy.fsm.EventRing;
+
+/**
+ * The collision events of a tick passed through the event ring of the play scene, compared to a
+ * queue of event objects. Each operation adds the events of one tick and drains them. With the GC
+ * profiler, the event ring must report no allocation.
+ *
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventRingBenchmark {
+
+	/** Event record as queued before the event ring. */
+	private static class QueuedEvent {
+
+		final long tick;
+		final BirdEvent event;
+		final int source;
+
+		QueuedEvent(long tick, BirdEvent event, int source) {
+			this.tick = tick;
+			this.event = event;
+			this.source = source;
+		}
+	}
+
+	private static final BirdEvent[] EVENTS = BirdEvent.values();
+
+	@Param({ "1", "4", "32" })
+	public int eventsPerTick;
+
+	private EventRing<BirdEvent> ring;
+	private EventRing.Handler<BirdEvent> handler;
+	private ArrayDeque<QueuedEvent> queue;
+	private long tick;
+
+	@Setup
+	public void setup(Blackhole bh) {
+		// smaller than the number of events per tick such that growing is included
+		ring = new EventRing<>(BirdEvent.class, 16);
+		handler = bh::consume;
+		queue = new ArrayDeque<>(16);
+	}
+
+	@Benchmark
+	public void eventRing() {
+		for (int i = 0; i < eventsPerTick; ++i) {
+			ring.add(tick, EVENTS[i % EVENTS.length], -1 - i);
+		}
+		ring.drain(handler);
+		++tick;
+	}
+
+	@Benchmark
+	public void eventQueue(Blackhole bh) {
+		for (int i = 0; i < eventsPerTick; ++i) {
+			queue.add(new QueuedEvent(tick, EVENTS[i % EVENTS.length], -1 - i));
+		}
+		for (QueuedEvent e = queue.poll(); e != null; e = queue.poll()) {
+			bh.consume(e.event);
+			bh.consume(e.tick);
+			bh.consume(e.source);
+		}
+		++tick;
+	}
+}
@@ -0,0 +1,99 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.amr.easy.game.entity.collision.Collider;
+import de.amr.games.birdy.entities.Obstacle;
+
+/**
+ * Obstacle construction (including the lookup of the scaled pipe images), reuse of pooled
+ * obstacles and the obstacle colliders.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObstacleBenchmark {
+
+	private Obstacle obstacle;
+	private Collider upperPart, lowerPart, passage;
+	private BufferedImage canvas;
+	private Graphics2D g;
+	private int passageCenterY;
+
+	@Setup
+	public void setup() {
+		BenchmarkApp.ensureRunning();
+		obstacle = new Obstacle(50, 200);
+		upperPart = obstacle.getUpperPart();
+		lowerPart = obstacle.getLowerPart();
+		passage = obstacle.getPassage();
+		canvas = new BufferedImage(640, 480, BufferedImage.TYPE_INT_ARGB);
+		g = canvas.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+	}
+
+	private int nextPassageCenterY() {
+		passageCenterY = passageCenterY == 200 ? 150 : passageCenterY + 1;
+		return passageCenterY;
+	}
+
+	@Benchmark
+	public Obstacle create() {
+		return new Obstacle(50, nextPassageCenterY());
+	}
+
+	@Benchmark
+	public Obstacle createAndDraw() {
+		Obstacle newObstacle = new Obstacle(50, nextPassageCenterY());
+		newObstacle.draw(g);
+		return newObstacle;
+	}
+
+	@Benchmark
+	public Obstacle rearm() {
+		obstacle.rearm(50, nextPassageCenterY());
+		return obstacle;
+	}
+
+	@Benchmark
+	public void colliders(Blackhole bh) {
+		bh.consume(obstacle.getUpperPart().getCollisionBox());
+		bh.consume(obstacle.getLowerPart().getCollisionBox());
+		bh.consume(obstacle.getPassage().getCollisionBox());
+	}
+
+	@Benchmark
+	public void collisionBoxes(Blackhole bh) {
+		Rectangle2D upper = upperPart.getCollisionBox();
+		Rectangle2D lower = lowerPart.getCollisionBox();
+		Rectangle2D middle = passage.getCollisionBox();
+		bh.consume(upper);
+		bh.consume(lower);
+		bh.consume(middle);
+	}
+}
@@ -0,0 +1,67 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.games.birdy.entities.Area;
+import de.amr.games.birdy.entities.Bird;
+import de.amr.games.birdy.entities.City;
+import de.amr.games.birdy.entities.City.DayTime;
+import de.amr.games.birdy.entities.EntityRegistry;
+import de.amr.games.birdy.entities.Ground;
+import de.amr.games.birdy.entities.ObstacleController;
+
+/**
+ * Spawning and recycling obstacles as done by the obstacle controller when it is giving birth.
+ * Before each call the existing obstacle is moved out of the screen, so each call recycles one
+ * obstacle and spawns one.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObstacleControllerBenchmark {
+
+	private EntityRegistry ent;
+	private ObstacleController controller;
+	private MethodHandle updateObstacleList;
+
+	@Setup
+	public void setup() throws ReflectiveOperationException {
+		BenchmarkApp.ensureRunning();
+		ent = new EntityRegistry();
+		ent.store("world", new Area(0, -480, 640, 960));
+		ent.store("city", new City(DayTime.NIGHT));
+		Ground ground = ent.store("ground", new Ground());
+		ground.tf.y = 480 - ground.tf.height;
+		ent.store("bird", new Bird());
+		controller = new ObstacleController(ent, (event, obstacle) -> {
+		});
+		controller.init();
+		updateObstacleList = MethodHandles.privateLookupIn(ObstacleController.class, MethodHandles.lookup())
+				.findVirtual(ObstacleController.class, "updateObstacleList", MethodType.methodType(void.class));
+	}
+
+	@Benchmark
+	public void updateObstacleList() throws Throwable {
+		controller.obstacles().forEach(obstacle -> obstacle.tf.x = -1000);
+		updateObstacleList.invokeExact(controller);
+	}
+}
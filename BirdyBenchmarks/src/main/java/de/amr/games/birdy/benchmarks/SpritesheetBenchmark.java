@@ -0,0 +1,65 @@
+package de.amr.games.birdy.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.easy.game.assets.Assets;
+import de.amr.games.birdy.sprites.AtlasIndexCompiler;
+import de.amr.games.birdy.sprites.SpriteAtlas;
+import de.amr.games.birdy.sprites.SpritesheetReader;
+import de.amr.games.birdy.sprites.SpritesheetReader.SpriteInfo;
+
+/**
+ * Extracting the sprites from the sprite sheet as atlas views or compatible images, compared with
+ * parsing the text index and with opening the binary index and creating a single sprite. Needs no
+ * running application.
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpritesheetBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean compile;
+
+	private String textIndex;
+
+	@Setup
+	public void setup() {
+		textIndex = Assets.readTextFile(SpriteAtlas.TEXT_INDEX_PATH);
+	}
+
+	@Benchmark
+	public List<SpriteInfo> extractSpriteSheet() {
+		return SpritesheetReader.extractSpriteSheet(compile);
+	}
+
+	@Benchmark
+	public byte[] compileTextIndex() {
+		return AtlasIndexCompiler.compile(textIndex);
+	}
+
+	@Benchmark
+	public BufferedImage openAtlasAndFindSprite() {
+		SpriteAtlas atlas = SpriteAtlas.open(compile);
+		return atlas.image("bird0_0");
+	}
+}
@@ -0,0 +1,157 @@
+package de.amr.games.birdy.benchmarks;
+
+import static de.amr.games.birdy.entities.BirdEvent.PASSED_OBSTACLE;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_GROUND;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
+import static de.amr.games.birdy.entities.HealthState.DEAD;
+import static de.amr.games.birdy.entities.HealthState.INJURED;
+import static de.amr.games.birdy.entities.HealthState.SANE;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.games.birdy.entities.BirdEvent;
+import de.amr.games.birdy.entities.HealthState;
+import de.amr.games.birdy.fsm.CompiledStateMachine;
+import de.amr.games.birdy.fsm.TransitionTable;
+import de.amr.statemachine.api.TransitionMatchStrategy;
+import de.amr.statemachine.core.StateMachine;
+import de.amr.statemachine.core.StateMachine.MissingTransitionBehavior;
+
+/**
+ * Enqueue and update of a state machine of the state machine library versus the same machine
+ * running from a compiled transition table.
+ * <p>
+ * The machine is the health control of a bird. Each tick, every bird of a population gets the next
+ * event of a script (or none) and is updated, dead birds are reset.
+ *
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateMachineBenchmark {
+
+	//@formatter:off
+	private static final BirdEvent[] SCRIPT = {
+		null, PASSED_OBSTACLE, null, TOUCHED_PIPE, null, null, TOUCHED_PIPE, null, null, null, null, null,
+		PASSED_OBSTACLE, null, TOUCHED_PIPE, null, TOUCHED_GROUND, null
+	};
+	//@formatter:on
+
+	private static final int INJURED_TICKS = 4;
+
+	@Param({ "1", "1000" })
+	public int birds;
+
+	private StateMachine<HealthState, BirdEvent>[] libraryMachines;
+	private CompiledStateMachine<HealthState, BirdEvent>[] compiledMachines;
+	private int tick;
+	private int points;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		libraryMachines = new StateMachine[birds];
+		compiledMachines = new CompiledStateMachine[birds];
+		for (int i = 0; i < birds; ++i) {
+			libraryMachines[i] = createLibraryMachine();
+			libraryMachines[i].init();
+			compiledMachines[i] = createCompiledMachine();
+			compiledMachines[i].init();
+		}
+	}
+
+	private StateMachine<HealthState, BirdEvent> createLibraryMachine() {
+		StateMachine<HealthState, BirdEvent> fsm = new StateMachine<>(HealthState.class,
+				TransitionMatchStrategy.BY_VALUE);
+		fsm.setMissingTransitionBehavior(MissingTransitionBehavior.IGNORE);
+		//@formatter:off
+		fsm.beginStateMachine()
+			.description("[Health]")
+			.initialState(SANE)
+
+		.states()
+
+			.state(INJURED)
+				.timeoutAfter(INJURED_TICKS)
+
+		.transitions()
+
+			.stay(SANE).on(PASSED_OBSTACLE).act(() -> points++)
+			.when(SANE).then(INJURED).on(TOUCHED_PIPE)
+			.when(SANE).then(DEAD).on(TOUCHED_GROUND)
+			.stay(INJURED).on(PASSED_OBSTACLE).act(() -> points++)
+			.when(INJURED).then(INJURED).on(TOUCHED_PIPE)
+			.when(INJURED).then(SANE).onTimeout()
+			.when(INJURED).then(DEAD).on(TOUCHED_GROUND)
+
+		.endStateMachine();
+		//@formatter:on
+		return fsm;
+	}
+
+	private CompiledStateMachine<HealthState, BirdEvent> createCompiledMachine() {
+		//@formatter:off
+		TransitionTable<HealthState, BirdEvent> table = TransitionTable.define(HealthState.class, BirdEvent.class)
+
+			.state(INJURED)
+				.timeoutAfter(INJURED_TICKS)
+
+			.stay(SANE).on(PASSED_OBSTACLE).act(() -> points++)
+			.when(SANE).then(INJURED).on(TOUCHED_PIPE)
+			.when(SANE).then(DEAD).on(TOUCHED_GROUND)
+			.stay(INJURED).on(PASSED_OBSTACLE).act(() -> points++)
+			.when(INJURED).then(INJURED).on(TOUCHED_PIPE)
+			.when(INJURED).then(SANE).onTimeout()
+			.when(INJURED).then(DEAD).on(TOUCHED_GROUND)
+
+		.build();
+		//@formatter:on
+		return new CompiledStateMachine<>(table, SANE, "[Health]");
+	}
+
+	@Benchmark
+	public int library() {
+		BirdEvent event = SCRIPT[tick++ % SCRIPT.length];
+		for (StateMachine<HealthState, BirdEvent> fsm : libraryMachines) {
+			if (event != null) {
+				fsm.enqueue(event);
+			}
+			fsm.update();
+			if (fsm.getState() == DEAD) {
+				fsm.init();
+			}
+		}
+		return points;
+	}
+
+	@Benchmark
+	public int compiled() {
+		BirdEvent event = SCRIPT[tick++ % SCRIPT.length];
+		for (CompiledStateMachine<HealthState, BirdEvent> fsm : compiledMachines) {
+			if (event != null) {
+				fsm.enqueue(event);
+			}
+			fsm.update();
+			if (fsm.getState() == DEAD) {
+				fsm.init();
+			}
+		}
+		return points;
+	}
+}
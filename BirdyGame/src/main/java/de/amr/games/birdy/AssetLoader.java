@@ -0,0 +1,132 @@
+package de.amr.games.birdy;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.awt.Font;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import de.amr.easy.game.assets.Assets;
+import de.amr.games.birdy.audio.PcmCache;
+import de.amr.games.birdy.audio.Sound;
+import de.amr.games.birdy.audio.SoundMixer;
+import de.amr.games.birdy.sprites.SpriteAtlas;
+import de.amr.games.birdy.sprites.SpritesheetReader;
+import de.amr.games.birdy.sprites.SpritesheetReader.SpriteInfo;
+
+/**
+ * Loads the assets of the game concurrently on a pool of worker threads.
+ * <p>
+ * The sprites and the font are needed before any scene can be created, the sounds are only needed
+ * later. Each sprite image and each sound is created by a separate task. The asset maps of the
+ * framework are not thread-safe, so the sprites and the font are stored by a single task each. The
+ * sounds are taken from the {@link PcmCache} or decoded and handed to the {@link SoundMixer}, the
+ * music first.
+ *
+ * @author Armin Reichert
+ */
+public class AssetLoader {
+
+	private final ExecutorService workers;
+	private final AtomicInteger loaded = new AtomicInteger();
+	private final int total = 2 + Sound.values().length;
+	private final CompletableFuture<List<SpriteInfo>> sprites;
+	private final CompletableFuture<Void> font;
+	private final List<CompletableFuture<Void>> sounds = new ArrayList<>();
+	private final CompletableFuture<Void> minimal;
+	private final CompletableFuture<Void> completion;
+
+	/**
+	 * Starts loading the assets.
+	 *
+	 * @param threads        number of worker threads
+	 * @param compileSprites if sprites are copied into compatible images
+	 * @param mixer          mixer playing the sounds
+	 * @param pcmCache       cache of the decoded sounds
+	 */
+	public AssetLoader(int threads, boolean compileSprites, SoundMixer mixer, PcmCache pcmCache) {
+		AtomicInteger threadCount = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "AssetLoader-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		sprites = CompletableFuture.supplyAsync(() -> SpriteAtlas.open(compileSprites), workers)
+				.thenCompose(atlas -> SpritesheetReader.loadSprites(atlas, workers)).thenApply(loadedSprites -> {
+					SpritesheetReader.storeSprites(loadedSprites);
+					loaded.incrementAndGet();
+					return loadedSprites;
+				});
+		font = CompletableFuture.runAsync(() -> {
+			Assets.storeTrueTypeFont("Pacifico-Regular", "fonts/Pacifico-Regular.ttf", Font.BOLD, 40);
+			loaded.incrementAndGet();
+		}, workers);
+		for (Sound sound : Sound.values()) {
+			sounds.add(CompletableFuture.runAsync(() -> {
+				long start = System.nanoTime();
+				try {
+					mixer.setClip(sound.ordinal(), pcmCache.load(sound.path));
+				} catch (IOException x) {
+					throw new UncheckedIOException(x);
+				} catch (UnsupportedAudioFileException x) {
+					throw new IllegalStateException("Cannot decode " + sound.path, x);
+				}
+				loginfo("Loaded %s in %.1f ms", sound.path, (System.nanoTime() - start) / 1e6);
+				loaded.incrementAndGet();
+			}, workers));
+		}
+		minimal = CompletableFuture.allOf(sprites, font);
+		List<CompletableFuture<?>> all = new ArrayList<>(sounds);
+		all.add(minimal);
+		completion = CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).whenComplete((done, x) -> {
+			workers.shutdown();
+			if (x != null) {
+				loginfo("Loading assets failed: %s", x);
+			}
+		});
+	}
+
+	/**
+	 * @return the sprites, completed when they have been stored as image assets
+	 */
+	public CompletableFuture<List<SpriteInfo>> sprites() {
+		return sprites;
+	}
+
+	/**
+	 * @return completed when the assets needed for creating the scenes (sprites and font) are loaded
+	 */
+	public CompletableFuture<Void> minimal() {
+		return minimal;
+	}
+
+	/**
+	 * @return completed when all assets are loaded
+	 */
+	public CompletableFuture<Void> completion() {
+		return completion;
+	}
+
+	/**
+	 * @param sound sound
+	 * @return completed when the sound has been handed to the mixer
+	 */
+	public CompletableFuture<Void> sound(Sound sound) {
+		return sounds.get(sound.ordinal());
+	}
+
+	/**
+	 * @return fraction of the assets loaded so far
+	 */
+	public float progress() {
+		return (float) loaded.get() / total;
+	}
+}
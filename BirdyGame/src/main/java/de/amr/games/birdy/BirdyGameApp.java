@@ -1,28 +1,35 @@
 package de.amr.games.birdy;
 
-import static de.amr.easy.game.assets.Assets.sound;
-import static de.amr.easy.game.assets.Assets.storeTrueTypeFont;
-import static de.amr.games.birdy.sprites.SpritesheetReader.extractSpriteSheet;
-
 import java.awt.DisplayMode;
-import java.awt.Font;
 import java.awt.event.KeyEvent;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.EnumMap;
-import java.util.Random;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
 
 import de.amr.easy.game.Application;
 import de.amr.easy.game.config.AppSettings;
 import de.amr.easy.game.controller.Lifecycle;
-import de.amr.easy.game.entity.EntityMap;
+import de.amr.games.birdy.RandomStreams.Stream;
+import de.amr.games.birdy.audio.PcmCache;
+import de.amr.games.birdy.audio.Sound;
+import de.amr.games.birdy.audio.SoundMixer;
 import de.amr.games.birdy.entities.Area;
 import de.amr.games.birdy.entities.Bird;
 import de.amr.games.birdy.entities.City;
 import de.amr.games.birdy.entities.City.DayTime;
+import de.amr.games.birdy.entities.EntityRegistry;
 import de.amr.games.birdy.entities.Ground;
+import de.amr.games.birdy.perf.PhaseTimes;
+import de.amr.games.birdy.perf.SceneChangeEvent;
+import de.amr.games.birdy.replay.Recording;
+import de.amr.games.birdy.replay.RecordingFiles;
 import de.amr.games.birdy.scenes.IntroScene;
 import de.amr.games.birdy.scenes.PlayScene;
 import de.amr.games.birdy.scenes.StartScene;
+import de.amr.games.birdy.sprites.SpritesheetReader.SpriteInfo;
 
 /**
  * "Flappy Bird"-like game.
@@ -41,21 +48,145 @@ public class BirdyGameApp extends Application {
 
 	private static EnumMap<Scene, Lifecycle> scenes = new EnumMap<>(Scene.class);
 
+	private static final RandomStreams rng = new RandomStreams(System.nanoTime());
+	private static SplittableRandom gameSeeds = new SplittableRandom();
+	private static Recording replay;
+	private static AssetLoader assets;
+	private static final SoundMixer mixer = new SoundMixer(Sound.values().length, 4);
+	private static final PhaseTimes phaseTimes = new PhaseTimes();
+	private static volatile BirdySettings config;
+	private static Scene currentScene;
+
 	public static void setScene(Scene scene) {
+		SceneChangeEvent record = new SceneChangeEvent();
+		record.begin();
+		Scene previous = currentScene;
+		currentScene = scene;
 		app().setController(scenes.get(scene));
+		if (record.shouldCommit()) {
+			record.from = previous != null ? previous.name() : "";
+			record.to = scene.name();
+			record.commit();
+		}
 	}
 
+	/**
+	 * @param amount seconds
+	 * @return number of simulation ticks for the given seconds
+	 */
 	public static long sec(float amount) {
-		return app().clock().sec(amount);
+		return config.sec(amount);
+	}
+
+	/**
+	 * @return the current settings of the game
+	 */
+	public static BirdySettings config() {
+		return config;
+	}
+
+	/**
+	 * Changes an application setting and publishes a new settings snapshot.
+	 * 
+	 * @param key   setting key
+	 * @param value new value
+	 */
+	public static synchronized void changeSetting(String key, Object value) {
+		app().settings().set(key, value);
+		config = BirdySettings.of(app().settings());
+	}
+
+	/**
+	 * @return the random number generator of the game, seeded with the "seed" setting
+	 */
+	public static RandomStreams rng() {
+		return rng;
+	}
+
+	/**
+	 * @return random seed for the next game, derived from the "seed" setting
+	 */
+	public static long nextGameSeed() {
+		return gameSeeds.nextLong();
+	}
+
+	/**
+	 * Plays a sound. Only puts a command into the queue of the audio thread.
+	 * 
+	 * @param sound sound
+	 */
+	public static void playSound(Sound sound) {
+		mixer.play(sound.ordinal());
+	}
+
+	/**
+	 * Loops a sound if it is not already looping.
+	 * 
+	 * @param sound sound
+	 */
+	public static void loopSound(Sound sound) {
+		mixer.loop(sound.ordinal());
+	}
+
+	/**
+	 * @param sound sound
+	 */
+	public static void stopSound(Sound sound) {
+		mixer.stop(sound.ordinal());
+	}
+
+	/**
+	 * @return the mixer playing the sounds
+	 */
+	public static SoundMixer mixer() {
+		return mixer;
 	}
 
 	/**
-	 * @param min lower bound (inclusive)
-	 * @param max upper bound (inclusive)
+	 * @return the durations of the phases of ticks and drawing
+	 */
+	public static PhaseTimes phaseTimes() {
+		return phaseTimes;
+	}
+
+	/**
+	 * Writes the phase durations measured since the last dump to a file in the "timings-dir" directory
+	 * and starts measuring anew.
+	 */
+	public static void dumpPhaseTimes() {
+		Path path = Path.of(config.timingsDir, "birdy-timings-" + System.currentTimeMillis() + ".txt");
+		phaseTimes.writeAsync(path).whenComplete((file, error) -> {
+			if (error != null) {
+				loginfo("Could not write timings %s: %s", path, error);
+			} else {
+				loginfo("Wrote timings %s", file);
+			}
+		});
+		phaseTimes.reset();
+	}
+
+	/**
+	 * @return the loader of the game assets, started at application start
+	 */
+	public static AssetLoader assets() {
+		return assets;
+	}
+
+	/**
+	 * @return the recording given by the "replay-file" setting, replayed instead of playing
+	 */
+	public static Optional<Recording> getReplay() {
+		return Optional.ofNullable(replay);
+	}
+
+	/**
+	 * @param stream random stream of the subsystem
+	 * @param min    lower bound (inclusive)
+	 * @param max    upper bound (inclusive)
 	 * @return random integer from given closed interval
 	 */
-	public static int random(int min, int max) {
-		return min + new Random().nextInt(max - min + 1);
+	public static int random(Stream stream, int min, int max) {
+		return rng.nextInt(stream, min, max);
 	}
 
 	public static DayTime getDayTime() {
@@ -73,6 +204,8 @@ public class BirdyGameApp extends Application {
 		settings.fullScreen = false;
 
 		// specific settings
+		settings.set("ticks-per-second", 60);
+		settings.set("frames-per-second", Integer.getInteger("birdy.fps", 60));
 		settings.set("jump-key", KeyEvent.VK_UP);
 		settings.set("world-gravity", 0.4f);
 		settings.set("world-speed", -2.5f);
@@ -87,20 +220,47 @@ public class BirdyGameApp extends Application {
 		settings.set("min-obstacle-height", 100);
 		settings.set("passage-height", 100);
 		settings.set("show-state", false);
+		settings.set("compile-sprites", !"false".equals(System.getProperty("birdy.compile-sprites")));
+		settings.set("sprite-report", Boolean.getBoolean("birdy.sprite-report"));
+		settings.set("pcm-cache-dir", System.getProperty("birdy.pcm-cache-dir",
+				Path.of(System.getProperty("user.home"), ".birdy", "pcm-cache").toString()));
+		settings.set("asset-loader-threads",
+				Integer.getInteger("birdy.asset-loader-threads", Runtime.getRuntime().availableProcessors()));
+		settings.set("simulation-thread", Boolean.getBoolean("birdy.simulation-thread"));
+		settings.set("timings-dir", System.getProperty("birdy.timings-dir", "."));
+		settings.set("seed", Long.getLong("birdy.seed", System.nanoTime()));
+		if (System.getProperty("birdy.record-dir") != null) {
+			settings.set("record-dir", System.getProperty("birdy.record-dir"));
+		}
+		if (System.getProperty("birdy.replay-file") != null) {
+			settings.set("replay-file", System.getProperty("birdy.replay-file"));
+		}
+		config = BirdySettings.of(settings);
 	}
 
 	@Override
 	public void init() {
-		extractSpriteSheet();
-		sound("music/bgmusic.mp3").setVolume(0.5f);
-		storeTrueTypeFont("Pacifico-Regular", "fonts/Pacifico-Regular.ttf", Font.BOLD, 40);
-		EntityMap entities = new EntityMap();
+		long start = System.nanoTime();
+		mixer.start();
+		assets = new AssetLoader(config.assetLoaderThreads, config.compileSprites, mixer,
+				new PcmCache(config.pcmCacheDir.isEmpty() ? null : Path.of(config.pcmCacheDir)));
+		rng.reseed(config.seed);
+		loginfo("Random seed is %d", rng.getSeed());
+		gameSeeds = new SplittableRandom(rng.getSeed());
+		clock().setTargetFrameRate(config.framesPerSecond);
+		if (config.replayFile != null) {
+			replay = RecordingFiles.read(Path.of(config.replayFile));
+			loginfo("Replaying %s", config.replayFile);
+		}
+		logSprites(assets.sprites().join(), start);
+		assets.minimal().join();
+		EntityRegistry entities = new EntityRegistry();
 		DayTime dayTime = getDayTime();
 		loginfo("Its %s now", dayTime);
 		createCollisionHandler();
 		int w = app().settings().width, h = app().settings().height;
 		entities.store("world", new Area(0, -h, w, 2 * h));
-		entities.store("city", new City(entities, dayTime));
+		entities.store("city", new City(dayTime));
 		entities.store("ground", new Ground());
 		entities.store("bird", new Bird());
 		scenes.put(Scene.INTRO_SCENE, new IntroScene(entities));
@@ -108,4 +268,14 @@ public class BirdyGameApp extends Application {
 		scenes.put(Scene.PLAY_SCENE, new PlayScene(entities));
 		setScene(Scene.INTRO_SCENE);
 	}
+
+	private void logSprites(List<SpriteInfo> sprites, long start) {
+		boolean compile = config.compileSprites;
+		long bytes = sprites.stream().mapToLong(sprite -> sprite.bytes).sum();
+		loginfo("Extracted %d sprites (%s) in %.1f ms, %d KB", sprites.size(),
+				compile ? "compatible images" : "atlas views", (System.nanoTime() - start) / 1e6, bytes / 1024);
+		if (config.spriteReport) {
+			sprites.forEach(sprite -> loginfo("%s", sprite));
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package de.amr.games.birdy;
+
+import de.amr.easy.game.config.AppSettings;
+
+/**
+ * Immutable snapshot of the game settings configured in {@link BirdyGameApp}. The string-keyed
+ * application settings are read once when the snapshot is created, so reading a setting in the game
+ * loop is a field access without hashing and unboxing.
+ * <p>
+ * The current snapshot is available from {@link BirdyGameApp#config()}. Settings changed at runtime
+ * by {@link BirdyGameApp#changeSetting(String, Object)} are published as a new snapshot.
+ *
+ * @author Armin Reichert
+ */
+public final class BirdySettings {
+
+	/** Simulation ticks per second ("ticks-per-second"). */
+	public final int ticksPerSecond;
+
+	/** Target frame rate ("frames-per-second"). */
+	public final int framesPerSecond;
+
+	/** Key code of the key which lets the bird flap ("jump-key"). */
+	public final int jumpKey;
+
+	/** Gravity pulling the bird down ("world-gravity"). */
+	public final float worldGravity;
+
+	/** Horizontal speed of the ground and the obstacles, negative ("world-speed"). */
+	public final float worldSpeed;
+
+	/** Duration of the "ready" message ("ready-time-sec"). */
+	public final float readyTimeSec;
+
+	/** Maximum number of stars at night ("max-stars"). */
+	public final int maxStars;
+
+	/** Duration of a frame of the wing animation ("bird-flap-millis"). */
+	public final int birdFlapMillis;
+
+	/** Time until an injured bird is sane again ("bird-injured-seconds"). */
+	public final float birdInjuredSeconds;
+
+	/** Minimum time between obstacles ("min-pipe-creation-sec"). */
+	public final float minPipeCreationSec;
+
+	/** Maximum time between obstacles ("max-pipe-creation-sec"). */
+	public final float maxPipeCreationSec;
+
+	/** Height of an obstacle including the passage ("obstacle-height"). */
+	public final int obstacleHeight;
+
+	/** Width of an obstacle ("obstacle-width"). */
+	public final int obstacleWidth;
+
+	/** Minimum height of the upper and the lower pipe ("min-obstacle-height"). */
+	public final int minObstacleHeight;
+
+	/** Height of the passage between the pipes ("passage-height"). */
+	public final int passageHeight;
+
+	/** If the scene state is displayed ("show-state"). */
+	public final boolean showState;
+
+	/** If sprites are copied into compatible images ("compile-sprites"). */
+	public final boolean compileSprites;
+
+	/** If the size and load time of each sprite is logged ("sprite-report"). */
+	public final boolean spriteReport;
+
+	/** Number of threads loading the assets ("asset-loader-threads"). */
+	public final int assetLoaderThreads;
+
+	/** Directory of the decoded sounds, empty if not cached ("pcm-cache-dir"). */
+	public final String pcmCacheDir;
+
+	/** If the play scene is simulated on its own thread ("simulation-thread"). */
+	public final boolean simulationThread;
+
+	/** Directory of the phase timing dumps ("timings-dir"). */
+	public final String timingsDir;
+
+	/** Random seed ("seed"). */
+	public final long seed;
+
+	/** Directory where games are recorded or {@code null} ("record-dir"). */
+	public final String recordDir;
+
+	/** Recording replayed instead of playing or {@code null} ("replay-file"). */
+	public final String replayFile;
+
+	/**
+	 * @param settings application settings
+	 * @return snapshot of the current application settings
+	 */
+	public static BirdySettings of(AppSettings settings) {
+		return new BirdySettings(settings);
+	}
+
+	private BirdySettings(AppSettings settings) {
+		ticksPerSecond = settings.getAsInt("ticks-per-second");
+		framesPerSecond = settings.getAsInt("frames-per-second");
+		jumpKey = settings.getAsInt("jump-key");
+		worldGravity = settings.getAsFloat("world-gravity");
+		worldSpeed = settings.getAsFloat("world-speed");
+		readyTimeSec = settings.getAsFloat("ready-time-sec");
+		maxStars = settings.getAsInt("max-stars");
+		birdFlapMillis = settings.getAsInt("bird-flap-millis");
+		birdInjuredSeconds = settings.getAsFloat("bird-injured-seconds");
+		minPipeCreationSec = settings.getAsFloat("min-pipe-creation-sec");
+		maxPipeCreationSec = settings.getAsFloat("max-pipe-creation-sec");
+		obstacleHeight = settings.getAsInt("obstacle-height");
+		obstacleWidth = settings.getAsInt("obstacle-width");
+		minObstacleHeight = settings.getAsInt("min-obstacle-height");
+		passageHeight = settings.getAsInt("passage-height");
+		showState = settings.getAsBoolean("show-state");
+		compileSprites = settings.getAsBoolean("compile-sprites");
+		spriteReport = settings.getAsBoolean("sprite-report");
+		assetLoaderThreads = settings.getAsInt("asset-loader-threads");
+		pcmCacheDir = settings.get("pcm-cache-dir");
+		simulationThread = settings.getAsBoolean("simulation-thread");
+		timingsDir = settings.get("timings-dir");
+		seed = ((Number) settings.get("seed")).longValue();
+		recordDir = settings.get("record-dir");
+		replayFile = settings.get("replay-file");
+	}
+
+	/**
+	 * @param amount seconds
+	 * @return number of simulation ticks for the given seconds
+	 */
+	public long sec(float amount) {
+		return Math.round(amount * ticksPerSecond);
+	}
+}
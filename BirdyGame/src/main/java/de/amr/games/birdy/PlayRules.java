@@ -0,0 +1,162 @@
+package de.amr.games.birdy;
+
+import static java.lang.Math.PI;
+
+/**
+ * The rules of play: how the bird moves, when it is hurt, where passages are placed and how pipe
+ * collisions are scored.
+ * <p>
+ * The game ({@code Bird}, {@code ObstacleController}, {@code Obstacle}, {@code PlayScene}) and the
+ * headless simulations ({@code HeadlessGame}, {@code PopulationSimulation}) apply the rules through
+ * these constants and formulas, so a change of the rules changes all of them. The formulas only
+ * compute new values, each caller keeps its state in its own representation.
+ *
+ * @author Armin Reichert
+ */
+public final class PlayRules {
+
+	/** Force of a flap, in units of the gravity. */
+	public static final float FLAP_FORCE = 2.5f;
+
+	/** Factor by which the gravity is reduced while the bird is crashing. */
+	public static final float CRASH_SLOWDOWN = 3;
+
+	/** Points lost by touching a pipe. With no more points than this, touching a pipe ends the game. */
+	public static final int PIPE_PENALTY = 3;
+
+	/** Rotation of a bird flying up as fast as possible. */
+	public static final double MIN_ROTATION = -PI / 4;
+
+	/** Rotation of a falling bird. */
+	public static final double MAX_ROTATION = PI / 2;
+
+	/** Rotation of a bird that crashed or died. */
+	public static final double TURNED_DOWN_ROTATION = PI / 2;
+
+	private PlayRules() {
+	}
+
+	/**
+	 * @param vy      vertical velocity
+	 * @param gravity world gravity
+	 * @param force   flap force in units of the gravity
+	 * @return vertical velocity after a flap, before the bird flies on
+	 */
+	public static float flapVelocity(float vy, float gravity, float force) {
+		return vy - force * gravity;
+	}
+
+	/**
+	 * @param y      vertical position of the bird
+	 * @param height height of the bird
+	 * @return if the bird has left the world at the top and stops
+	 */
+	public static boolean aboveWorld(float y, int height) {
+		return y < -height;
+	}
+
+	/**
+	 * @param vy      vertical velocity
+	 * @param gravity world gravity
+	 * @return vertical velocity of a flying bird after a tick
+	 */
+	public static float flyVelocity(float vy, float gravity) {
+		return vy + gravity;
+	}
+
+	/**
+	 * @param vy vertical velocity of a flying bird
+	 * @return rotation of the bird, the faster it falls the more it looks down
+	 */
+	public static double flightRotation(float vy) {
+		double damp = vy < 0 ? 0.05 : 0.2;
+		double rotation = -PI / 8 + damp * vy;
+		if (rotation < MIN_ROTATION)
+			rotation = MIN_ROTATION;
+		if (rotation > MAX_ROTATION)
+			rotation = MAX_ROTATION;
+		return rotation;
+	}
+
+	/**
+	 * @param vy       vertical velocity
+	 * @param gravity  world gravity
+	 * @param slowdown factor by which the gravity is reduced
+	 * @return vertical velocity of a crashing bird after a tick
+	 */
+	public static float fallVelocity(float vy, float gravity, float slowdown) {
+		return vy + gravity / slowdown;
+	}
+
+	/**
+	 * @param width  bird width
+	 * @param height bird height
+	 * @return margin between the bird bounds and its collision box
+	 */
+	public static int collisionMargin(int width, int height) {
+		return Math.min(width / 4, height / 4);
+	}
+
+	/**
+	 * @param points points before touching a pipe
+	 * @return if the bird survives touching a pipe by paying {@link #PIPE_PENALTY} points
+	 */
+	public static boolean survivesPipe(int points) {
+		return points > PIPE_PENALTY;
+	}
+
+	/**
+	 * @param obstacleWidth obstacle width
+	 * @param birdWidth     bird width
+	 * @return distance by which a bird surviving a pipe is pushed through the obstacle
+	 */
+	public static int knockback(int obstacleWidth, int birdWidth) {
+		return obstacleWidth + birdWidth;
+	}
+
+	/**
+	 * @param passageHeight height of the passage between the pipes
+	 * @return half of the passage height
+	 */
+	public static int passageRadius(int passageHeight) {
+		return passageHeight / 2;
+	}
+
+	/**
+	 * @param minObstacleHeight minimum pipe height
+	 * @param passageRadius     half of the passage height
+	 * @return smallest vertical position of a passage center
+	 */
+	public static int minPassageCenterY(int minObstacleHeight, int passageRadius) {
+		return minObstacleHeight + passageRadius;
+	}
+
+	/**
+	 * @param groundY           vertical position of the ground
+	 * @param minObstacleHeight minimum pipe height
+	 * @param passageRadius     half of the passage height
+	 * @return largest vertical position of a passage center
+	 */
+	public static int maxPassageCenterY(int groundY, int minObstacleHeight, int passageRadius) {
+		return groundY - minObstacleHeight - passageRadius;
+	}
+
+	/**
+	 * @param passageCenterY vertical position of the passage center
+	 * @param passageRadius  half of the passage height
+	 * @return height of the upper pipe
+	 */
+	public static int hangingHeight(int passageCenterY, int passageRadius) {
+		return passageCenterY - passageRadius;
+	}
+
+	/**
+	 * @param obstacleHeight height of the obstacle including the passage
+	 * @param passageCenterY vertical position of the passage center
+	 * @param passageRadius  half of the passage height
+	 * @return height of the lower pipe
+	 */
+	public static int standingHeight(int obstacleHeight, int passageCenterY, int passageRadius) {
+		return obstacleHeight - passageRadius - passageCenterY;
+	}
+}
@@ -0,0 +1,70 @@
+package de.amr.games.birdy;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded random number generator with an independent stream for each subsystem.
+ * <p>
+ * The streams are split from one generator seeded with the given seed, so the same seed always
+ * produces the same numbers in each stream, independent of how many numbers the other streams
+ * produce. For example, the pipe sequence does not change if stars are created at night.
+ * 
+ * @author Armin Reichert
+ */
+public class RandomStreams {
+
+	public enum Stream {
+		/** Positions of the obstacle passages. */
+		OBSTACLES,
+		/** Time between the creation of obstacles. */
+		BREEDING,
+		/** Number, position and animation of the stars. */
+		STARS,
+		/** Visual effects like flickering illumination. */
+		EFFECTS
+	}
+
+	private final Map<Stream, SplittableRandom> streams = new EnumMap<>(Stream.class);
+	private long seed;
+
+	public RandomStreams(long seed) {
+		reseed(seed);
+	}
+
+	/**
+	 * Restarts all streams from the given seed.
+	 * 
+	 * @param seed the new seed
+	 */
+	public void reseed(long seed) {
+		this.seed = seed;
+		SplittableRandom root = new SplittableRandom(seed);
+		for (Stream stream : Stream.values()) {
+			streams.put(stream, root.split());
+		}
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param stream the stream
+	 * @return the random generator of the stream
+	 */
+	public SplittableRandom stream(Stream stream) {
+		return streams.get(stream);
+	}
+
+	/**
+	 * @param stream the stream
+	 * @param min    lower bound (inclusive)
+	 * @param max    upper bound (inclusive)
+	 * @return next random integer from given closed interval
+	 */
+	public int nextInt(Stream stream, int min, int max) {
+		return streams.get(stream).nextInt(min, max + 1);
+	}
+}
@@ -0,0 +1,76 @@
+package de.amr.games.birdy.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of int commands with any number of producers and a single consumer. Each
+ * slot carries a sequence number telling if it may be written or read, no objects are allocated.
+ *
+ * @author Armin Reichert
+ */
+class CommandQueue {
+
+	static final int EMPTY = -1;
+
+	private final int[] commands;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private final int mask;
+	private long head; // accessed by the consumer only
+
+	/**
+	 * @param capacity capacity, a power of 2
+	 */
+	CommandQueue(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+		}
+		commands = new int[capacity];
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; ++i) {
+			sequences.set(i, i);
+		}
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @param command non-negative command
+	 * @return {@code false} if the queue is full
+	 */
+	boolean offer(int command) {
+		long position = tail.get();
+		while (true) {
+			int slot = (int) (position & mask);
+			long diff = sequences.get(slot) - position;
+			if (diff == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					commands[slot] = command;
+					sequences.set(slot, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (diff < 0) {
+				return false;
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Called by the consumer thread only.
+	 *
+	 * @return next command or {@link #EMPTY}
+	 */
+	int poll() {
+		int slot = (int) (head & mask);
+		if (sequences.get(slot) != head + 1) {
+			return EMPTY;
+		}
+		int command = commands[slot];
+		sequences.set(slot, head + commands.length);
+		++head;
+		return command;
+	}
+}
@@ -0,0 +1,101 @@
+package de.amr.games.birdy.audio;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Directory of decoded sounds. A sound is decoded on first use and stored as raw PCM data in a file
+ * named by the SHA-256 hash of the encoded sound and the mixer format. Later, the file is
+ * memory-mapped and played without decoding. If the directory cannot be written, sounds are decoded
+ * every time.
+ *
+ * @author Armin Reichert
+ */
+public class PcmCache {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final Path directory;
+
+	/**
+	 * @param directory cache directory, created if missing, or {@code null} to decode every time
+	 */
+	public PcmCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @param path class path of the sound file
+	 * @return the decoded sound, mapped from the cache if present
+	 * @throws IOException                   if the sound file cannot be read
+	 * @throws UnsupportedAudioFileException if the sound cannot be decoded
+	 */
+	public PcmClip load(String path) throws IOException, UnsupportedAudioFileException {
+		byte[] encoded;
+		try (InputStream in = PcmCache.class.getResourceAsStream("/" + path)) {
+			if (in == null) {
+				throw new IOException("Sound not found: " + path);
+			}
+			encoded = in.readAllBytes();
+		}
+		if (directory == null) {
+			return PcmClip.decode(new ByteArrayInputStream(encoded));
+		}
+		Path file = directory.resolve(key(encoded) + ".pcm");
+		if (Files.isRegularFile(file) && Files.size(file) % 4 == 0) {
+			try (FileChannel channel = FileChannel.open(file)) {
+				return new PcmClip(channel.map(MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN)
+						.asShortBuffer());
+			}
+		}
+		PcmClip clip = PcmClip.decode(new ByteArrayInputStream(encoded));
+		try {
+			store(clip, file);
+		} catch (IOException x) {
+			loginfo("Could not cache decoded %s in %s: %s", path, directory, x);
+		}
+		return clip;
+	}
+
+	private void store(PcmClip clip, Path file) throws IOException {
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, "decoding", ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				clip.write(channel);
+			}
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static String key(byte[] encoded) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((FORMAT_VERSION + ":" + SoundMixer.FORMAT).getBytes());
+			byte[] hash = digest.digest(encoded);
+			StringBuilder key = new StringBuilder(2 * hash.length);
+			for (byte b : hash) {
+				key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException x) {
+			throw new IllegalStateException(x);
+		}
+	}
+}
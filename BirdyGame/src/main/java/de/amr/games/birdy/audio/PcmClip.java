@@ -0,0 +1,122 @@
+package de.amr.games.birdy.audio;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A sound decoded into the format of the {@link SoundMixer}: 16-bit signed stereo samples at
+ * {@link SoundMixer#SAMPLE_RATE}, left and right sample interleaved.
+ *
+ * @author Armin Reichert
+ */
+public class PcmClip {
+
+	/**
+	 * Decodes a sound file. MP3 files need the MP3 service provider of the game framework on the class
+	 * path.
+	 *
+	 * @param in stream of the sound file
+	 * @return the decoded clip
+	 * @throws IOException                   if the stream cannot be read
+	 * @throws UnsupportedAudioFileException if the file format is not supported
+	 */
+	public static PcmClip decode(InputStream in) throws IOException, UnsupportedAudioFileException {
+		try (AudioInputStream encoded = AudioSystem.getAudioInputStream(new BufferedInputStream(in))) {
+			AudioFormat source = encoded.getFormat();
+			int channels = source.getChannels();
+			AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, source.getSampleRate(), 16, channels,
+					2 * channels, source.getSampleRate(), false);
+			try (AudioInputStream decoded = AudioSystem.getAudioInputStream(pcm, encoded)) {
+				return new PcmClip(ShortBuffer.wrap(toMixerFormat(decoded.readAllBytes(), channels, source.getSampleRate())));
+			}
+		}
+	}
+
+	/**
+	 * @param bytes      16-bit signed little endian samples
+	 * @param channels   number of channels, only the first two are used
+	 * @param sampleRate sample rate, resampled linearly if different from the mixer sample rate
+	 * @return interleaved stereo samples
+	 */
+	static short[] toMixerFormat(byte[] bytes, int channels, float sampleRate) {
+		int sourceFrames = bytes.length / (2 * channels);
+		if (sourceFrames == 0) {
+			return new short[0];
+		}
+		double step = sampleRate / SoundMixer.SAMPLE_RATE;
+		int frames = (int) ((sourceFrames - 1) / step) + 1;
+		short[] samples = new short[2 * frames];
+		for (int frame = 0; frame < frames; ++frame) {
+			double position = frame * step;
+			int i = (int) position;
+			int next = Math.min(i + 1, sourceFrames - 1);
+			double t = position - i;
+			for (int channel = 0; channel < 2; ++channel) {
+				int c = Math.min(channel, channels - 1);
+				int a = sample(bytes, i * channels + c), b = sample(bytes, next * channels + c);
+				samples[2 * frame + channel] = (short) Math.round(a + t * (b - a));
+			}
+		}
+		return samples;
+	}
+
+	private static int sample(byte[] bytes, int index) {
+		return (short) ((bytes[2 * index] & 0xFF) | (bytes[2 * index + 1] << 8));
+	}
+
+	private final ShortBuffer samples;
+
+	/**
+	 * @param samples interleaved stereo samples
+	 */
+	public PcmClip(ShortBuffer samples) {
+		this.samples = samples;
+	}
+
+	/**
+	 * @return number of stereo frames
+	 */
+	public int frames() {
+		return samples.limit() / 2;
+	}
+
+	/**
+	 * Writes the samples as 16-bit signed little endian values.
+	 *
+	 * @param channel channel to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(2 * samples.limit()).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.asShortBuffer().put(samples.duplicate().clear());
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	/**
+	 * @param frame frame index
+	 * @return sample of the left channel
+	 */
+	public short left(int frame) {
+		return samples.get(2 * frame);
+	}
+
+	/**
+	 * @param frame frame index
+	 * @return sample of the right channel
+	 */
+	public short right(int frame) {
+		return samples.get(2 * frame + 1);
+	}
+}
@@ -0,0 +1,18 @@
+package de.amr.games.birdy.audio;
+
+/**
+ * The sounds of the game, played by the {@link SoundMixer}. The ordinal is the clip number.
+ *
+ * @author Armin Reichert
+ */
+public enum Sound {
+
+	MUSIC("music/bgmusic.mp3"), DIE("sfx/die.mp3"), HIT("sfx/hit.mp3"), POINT("sfx/point.mp3"),
+	SWOOSHING("sfx/swooshing.mp3"), WING("sfx/wing.mp3");
+
+	public final String path;
+
+	private Sound(String path) {
+		this.path = path;
+	}
+}
@@ -0,0 +1,243 @@
+package de.amr.games.birdy.audio;
+
+import static de.amr.easy.game.Application.loginfo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Plays decoded sound clips on a single audio line.
+ * <p>
+ * Each clip has a fixed number of voices, so a clip can be played several times at once. If all
+ * voices of a clip are playing, the voice playing the longest is restarted. A clip is looped by one
+ * voice only, looping a clip which is already looping has no effect. Playing, looping and
+ * stopping a clip only puts a command into a lock-free queue and never blocks, the commands are
+ * executed and the voices are mixed by the audio thread. Commands are dropped if the queue is full,
+ * for example if the audio line is not available.
+ *
+ * @author Armin Reichert
+ */
+public class SoundMixer {
+
+	public static final float SAMPLE_RATE = 44100;
+	public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+
+	private static final int FRAMES_PER_BUFFER = 512; // 11.6 ms
+	private static final int LINE_BUFFERS = 4;
+	private static final int PLAY = 1, LOOP = 2, STOP = 3, STOP_ALL = 4, VOLUME = 5;
+
+	private final CommandQueue commands = new CommandQueue(256);
+	private final AtomicReferenceArray<PcmClip> clips;
+	private final int voicesPerClip;
+
+	// accessed by the audio thread only
+	private final int[] voicePositions;
+	private final boolean[] voiceLooping;
+	private final float[] volumes;
+	private final int[] mixBuffer = new int[2 * FRAMES_PER_BUFFER];
+	private final byte[] lineBuffer = new byte[4 * FRAMES_PER_BUFFER];
+
+	private volatile boolean running;
+	private Thread thread;
+
+	/**
+	 * @param clipCount     number of clips, clips are numbered from 0
+	 * @param voicesPerClip maximum number of voices playing the same clip at once
+	 */
+	public SoundMixer(int clipCount, int voicesPerClip) {
+		if (clipCount > 0xFF) {
+			throw new IllegalArgumentException("Too many clips: " + clipCount);
+		}
+		clips = new AtomicReferenceArray<>(clipCount);
+		this.voicesPerClip = voicesPerClip;
+		voicePositions = new int[clipCount * voicesPerClip];
+		voiceLooping = new boolean[clipCount * voicesPerClip];
+		volumes = new float[clipCount];
+		Arrays.fill(voicePositions, -1);
+		Arrays.fill(volumes, 1);
+	}
+
+	/**
+	 * Sets the clip with the given number. Clips can be set while the mixer is running, commands for
+	 * clips not yet set are ignored.
+	 *
+	 * @param clip number of the clip
+	 * @param pcm  decoded clip
+	 */
+	public void setClip(int clip, PcmClip pcm) {
+		clips.set(clip, pcm);
+	}
+
+	/**
+	 * Starts the audio thread.
+	 */
+	public synchronized void start() {
+		if (thread == null) {
+			running = true;
+			thread = new Thread(this::run, "SoundMixer");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MAX_PRIORITY);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Stops the audio thread.
+	 */
+	public synchronized void close() {
+		running = false;
+		thread = null;
+	}
+
+	/**
+	 * @param clip number of the clip
+	 * @return {@code false} if the command queue is full
+	 */
+	public boolean play(int clip) {
+		return commands.offer(command(PLAY, clip, 0));
+	}
+
+	/**
+	 * @param clip number of the clip
+	 * @return {@code false} if the command queue is full
+	 */
+	public boolean loop(int clip) {
+		return commands.offer(command(LOOP, clip, 0));
+	}
+
+	/**
+	 * @param clip number of the clip
+	 * @return {@code false} if the command queue is full
+	 */
+	public boolean stop(int clip) {
+		return commands.offer(command(STOP, clip, 0));
+	}
+
+	/**
+	 * @return {@code false} if the command queue is full
+	 */
+	public boolean stopAll() {
+		return commands.offer(command(STOP_ALL, 0, 0));
+	}
+
+	/**
+	 * @param clip   number of the clip
+	 * @param volume volume (0..1)
+	 * @return {@code false} if the command queue is full
+	 */
+	public boolean setVolume(int clip, float volume) {
+		return commands.offer(command(VOLUME, clip, Math.round(Math.max(0, Math.min(1, volume)) * 0xFFFF)));
+	}
+
+	private static int command(int op, int clip, int arg) {
+		return op << 24 | clip << 16 | arg;
+	}
+
+	private void run() {
+		try (SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT)) {
+			line.open(FORMAT, LINE_BUFFERS * lineBuffer.length);
+			line.start();
+			loginfo("Sound mixer started, %d voices per clip, %.1f ms latency", voicesPerClip,
+					LINE_BUFFERS * FRAMES_PER_BUFFER * 1000 / SAMPLE_RATE);
+			while (running) {
+				executeCommands();
+				mix();
+				line.write(lineBuffer, 0, lineBuffer.length);
+			}
+			line.stop();
+		} catch (LineUnavailableException | IllegalArgumentException x) {
+			loginfo("Sound mixer not available: %s", x.getMessage());
+		}
+	}
+
+	private void executeCommands() {
+		for (int command = commands.poll(); command != CommandQueue.EMPTY; command = commands.poll()) {
+			int op = command >>> 24, clip = (command >>> 16) & 0xFF, arg = command & 0xFFFF;
+			if (clip >= volumes.length) {
+				continue;
+			}
+			switch (op) {
+			case PLAY:
+			case LOOP:
+				if (clips.get(clip) != null && !(op == LOOP && isLooping(clip))) {
+					int voice = freeVoice(clip);
+					voicePositions[voice] = 0;
+					voiceLooping[voice] = op == LOOP;
+				}
+				break;
+			case STOP:
+				Arrays.fill(voicePositions, clip * voicesPerClip, (clip + 1) * voicesPerClip, -1);
+				break;
+			case STOP_ALL:
+				Arrays.fill(voicePositions, -1);
+				break;
+			case VOLUME:
+				volumes[clip] = arg / (float) 0xFFFF;
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	private boolean isLooping(int clip) {
+		for (int voice = clip * voicesPerClip; voice < (clip + 1) * voicesPerClip; ++voice) {
+			if (voicePositions[voice] != -1 && voiceLooping[voice]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int freeVoice(int clip) {
+		int oldest = clip * voicesPerClip;
+		for (int voice = oldest; voice < (clip + 1) * voicesPerClip; ++voice) {
+			if (voicePositions[voice] == -1) {
+				return voice;
+			}
+			if (voicePositions[voice] > voicePositions[oldest]) {
+				oldest = voice;
+			}
+		}
+		return oldest;
+	}
+
+	private void mix() {
+		Arrays.fill(mixBuffer, 0);
+		for (int voice = 0; voice < voicePositions.length; ++voice) {
+			if (voicePositions[voice] != -1) {
+				int clip = voice / voicesPerClip;
+				voicePositions[voice] = mixVoice(clips.get(clip), voicePositions[voice], voiceLooping[voice], volumes[clip]);
+			}
+		}
+		for (int i = 0; i < mixBuffer.length; ++i) {
+			int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixBuffer[i]));
+			lineBuffer[2 * i] = (byte) sample;
+			lineBuffer[2 * i + 1] = (byte) (sample >> 8);
+		}
+	}
+
+	/**
+	 * @return new position of the voice or -1 if it has finished
+	 */
+	private int mixVoice(PcmClip pcm, int position, boolean looping, float volume) {
+		int frames = pcm.frames();
+		for (int frame = 0; frame < FRAMES_PER_BUFFER; ++frame) {
+			if (position == frames) {
+				if (!looping || frames == 0) {
+					return -1;
+				}
+				position = 0;
+			}
+			mixBuffer[2 * frame] += (int) (pcm.left(position) * volume);
+			mixBuffer[2 * frame + 1] += (int) (pcm.right(position) * volume);
+			++position;
+		}
+		return position;
+	}
+}
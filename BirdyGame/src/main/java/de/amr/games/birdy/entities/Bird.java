@@ -1,152 +1,154 @@
 package de.amr.games.birdy.entities;
 
-import static de.amr.easy.game.Application.app;
+import static de.amr.games.birdy.BirdyGameApp.config;
+import static de.amr.games.birdy.BirdyGameApp.playSound;
 import static de.amr.games.birdy.BirdyGameApp.sec;
-import static de.amr.games.birdy.entities.BirdEvent.CRASHED;
-import static de.amr.games.birdy.entities.BirdEvent.LEFT_WORLD;
-import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_GROUND;
-import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
-import static de.amr.games.birdy.entities.FlightState.CRASHING;
-import static de.amr.games.birdy.entities.FlightState.DOWN;
-import static de.amr.games.birdy.entities.FlightState.FLYING;
-import static de.amr.games.birdy.entities.HealthState.DEAD;
+import static de.amr.games.birdy.PlayRules.FLAP_FORCE;
+import static de.amr.games.birdy.PlayRules.MAX_ROTATION;
+import static de.amr.games.birdy.PlayRules.MIN_ROTATION;
+import static de.amr.games.birdy.PlayRules.TURNED_DOWN_ROTATION;
+import static de.amr.games.birdy.audio.Sound.DIE;
+import static de.amr.games.birdy.audio.Sound.WING;
 import static de.amr.games.birdy.entities.HealthState.INJURED;
 import static de.amr.games.birdy.entities.HealthState.SANE;
-import static java.lang.Math.PI;
 
 import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.function.BooleanSupplier;
 
 import de.amr.easy.game.assets.Assets;
 import de.amr.easy.game.entity.GameObject;
-import de.amr.easy.game.input.Keyboard;
-import de.amr.easy.game.math.Vector2f;
 import de.amr.easy.game.ui.sprites.AnimationType;
 import de.amr.easy.game.ui.sprites.Sprite;
 import de.amr.easy.game.ui.sprites.SpriteMap;
-import de.amr.statemachine.api.TransitionMatchStrategy;
-import de.amr.statemachine.core.StateMachine;
+import de.amr.games.birdy.PlayRules;
+import de.amr.games.birdy.fsm.CompiledStateMachine;
+import de.amr.games.birdy.sprites.RotatedImageCache;
 
 /**
  * The little bird.
  * <p>
  * The bird is controlled by two separate state machines, one controls the flight state and the
- * other the bird's health.
+ * other the bird's health. The machines are defined by {@link BirdControl}.
  * 
  * @author Armin Reichert
  */
-public class Bird extends GameObject {
+public class Bird extends GameObject implements Interpolated {
 
-	private final FlightControl flightControl;
-	private final HealthControl healthControl;
+	/** Bird images for the rotations between flying up and falling down, in steps of about 2 degrees. */
+	private static final RotatedImageCache ROTATED_FRAMES = new RotatedImageCache(MIN_ROTATION, MAX_ROTATION, 68);
+
+	/* Reused by drawing which happens on one thread only */
+	private static final AffineTransform DRAW_TRANSFORM = new AffineTransform();
+
+	private final CompiledStateMachine<FlightState, BirdEvent> flightControl;
+	private final CompiledStateMachine<HealthState, BirdEvent> healthControl;
 	private final SpriteMap sprites = new SpriteMap();
+	private Sprite sprite;
+	private final Rectangle2D.Double collisionBox = new Rectangle2D.Double();
+	private static final BooleanSupplier NO_JUMP = () -> false;
+
+	private BooleanSupplier jumpKey = NO_JUMP;
 	private float gravity;
+	private float prevX, prevY;
+	private double prevRotation;
 
 	/**
-	 * State machine controlling the health state of the bird.
+	 * Creates the rotated images of all bird images such that drawing a bird never rotates an image.
 	 */
-	private class HealthControl extends StateMachine<HealthState, BirdEvent> {
+	public static void prewarmRotatedFrames() {
+		for (int bird = 0; bird <= 2; ++bird) {
+			for (int frame = 0; frame <= 2; ++frame) {
+				prewarmRotatedFrames(Assets.image("bird" + bird + "_" + frame));
+			}
+		}
+	}
 
-		/*
-		 * Using the state machine builder results in prettier code, but I wanted to check that the API is
-		 * working too.
-		 */
-		public HealthControl() {
-			super(HealthState.class, TransitionMatchStrategy.BY_VALUE);
+	/**
+	 * Creates the rotated images of the given bird images for all angles.
+	 * 
+	 * @param frames bird images
+	 */
+	public static void prewarmRotatedFrames(BufferedImage... frames) {
+		for (BufferedImage frame : frames) {
+			ROTATED_FRAMES.prewarm(frame);
+		}
+	}
 
-			setMissingTransitionBehavior(MissingTransitionBehavior.LOG);
-			setDescription("[Health]");
-			setInitialState(SANE);
+	/*
+	 * What the state machines do with this bird.
+	 */
+	private class Body implements BirdControl.Body {
 
-			state(SANE).entryAction = () -> sprites.select("s_yellow");
+		@Override
+		public boolean jumpKeyDown() {
+			return jumpKey.getAsBoolean();
+		}
 
-			addTransitionOnEventValue(SANE, INJURED, null, null, TOUCHED_PIPE, () -> "");
-			addTransitionOnEventValue(SANE, DEAD, null, null, TOUCHED_GROUND, () -> "");
-			addTransitionOnEventValue(SANE, DEAD, null, null, LEFT_WORLD, () -> "");
+		@Override
+		public void flap() {
+			Bird.this.flap();
+		}
 
-			state(INJURED).setTimer(() -> sec(app().settings().get("bird-injured-seconds")));
-			state(INJURED).entryAction = () -> sprites.select("s_red");
+		@Override
+		public void fly() {
+			Bird.this.fly();
+		}
 
-			addTransitionOnEventValue(INJURED, INJURED, null, e -> resetTimer(INJURED), TOUCHED_PIPE, () -> "");
-			addTransitionOnTimeout(INJURED, SANE, null, null, () -> "");
-			addTransitionOnEventValue(INJURED, DEAD, null, null, TOUCHED_GROUND, () -> "");
-			addTransitionOnEventValue(INJURED, DEAD, null, null, LEFT_WORLD, () -> "");
+		@Override
+		public void fall(float slowdown) {
+			Bird.this.fall(slowdown);
+		}
 
-			state(DEAD).entryAction = () -> {
-				sprites.select("s_blue");
-				turnDown();
-			};
+		@Override
+		public void turnDown() {
+			Bird.this.turnDown();
 		}
-	}
 
-	/**
-	 * State machine controlling the flight state of the bird.
-	 */
-	private class FlightControl extends StateMachine<FlightState, BirdEvent> {
-
-		public FlightControl() {
-			super(FlightState.class, TransitionMatchStrategy.BY_VALUE);
-			setMissingTransitionBehavior(MissingTransitionBehavior.LOG);
-			//@formatter:off
-			beginStateMachine()
-				.description("[Flight]")
-				.initialState(FLYING)
-
-			.states()
-				
-				.state(FLYING).onTick(() -> {
-					if (Keyboard.keyDown(app().settings().get("jump-key"))) {
-						flap();
-					} else {
-						fly();
-					}
-				})
-
-				.state(CRASHING)
-					.onEntry(() -> turnDown())
-					.onTick(() -> fall(3))
-					
-				.state(DOWN)
-					.onEntry(() -> {
-						Assets.sound("sfx/die.mp3").play();
-						turnDown();
-					})
-
-			.transitions()
-
-					.when(FLYING).then(CRASHING).on(TOUCHED_PIPE)
-					.when(FLYING).then(CRASHING).on(CRASHED)
-					.when(FLYING).then(CRASHING).on(LEFT_WORLD)
-					.when(FLYING).then(DOWN).on(TOUCHED_GROUND)
-
-					.when(CRASHING).then(DOWN).on(TOUCHED_GROUND)
-
-			.endStateMachine();
-			//@formatter:off
+		@Override
+		public void showHealth(HealthState state) {
+			select(state == SANE ? "s_yellow" : state == INJURED ? "s_red" : "s_blue");
+		}
+
+		@Override
+		public void down() {
+			playSound(DIE);
 		}
 	}
 
 	public Bird() {
-		flightControl = new FlightControl();
-		healthControl = new HealthControl();
+		Body body = new Body();
+		flightControl = BirdControl.flightControl(body);
+		healthControl = BirdControl.healthControl(body, () -> sec(config().birdInjuredSeconds));
 
 		sprites.set("s_yellow", createFeatherSprite("bird0"));
 		sprites.set("s_blue", createFeatherSprite("bird1"));
 		sprites.set("s_red", createFeatherSprite("bird2"));
-		sprites.select("s_yellow");
+		select("s_yellow");
 
-		tf.width = sprites.current().get().getWidth();
-		tf.height = sprites.current().get().getHeight();
+		tf.width = sprite.getWidth();
+		tf.height = sprite.getHeight();
 
-		gravity = app().settings().getAsFloat("world-gravity");
+		gravity = config().worldGravity;
 	}
 
 	private Sprite createFeatherSprite(String birdName) {
 		Sprite sprite = Sprite.ofAssets(birdName + "_0", birdName + "_1", birdName + "_2");
-		sprite.animate(AnimationType.FORWARD_BACKWARDS, app().settings().get("bird-flap-millis"));
+		sprite.animate(AnimationType.FORWARD_BACKWARDS, config().birdFlapMillis);
 		return sprite;
 	}
 
+	/*
+	 * The selected sprite is kept such that accessing it in each frame does not allocate.
+	 */
+	private void select(String key) {
+		sprites.select(key);
+		sprite = sprites.current().orElse(null);
+	}
+
 	@Override
 	public void init() {
 		healthControl.init();
@@ -157,7 +159,18 @@ public class Bird extends GameObject {
 	public void update() {
 		flightControl.update();
 		healthControl.update();
-		sprites.current().get().enableAnimation(tf.vy < 0);
+		sprite.enableAnimation(tf.vy < 0);
+	}
+
+	/**
+	 * Sets the source of the jump key state, e.g. the keyboard input latched by the scene, an input
+	 * recorder or a replay. The bird does not read the keyboard itself because it may be updated on
+	 * the simulation thread.
+	 * 
+	 * @param jumpKey jump key state source or {@code null} if the bird never jumps
+	 */
+	public void setJumpKey(BooleanSupplier jumpKey) {
+		this.jumpKey = jumpKey != null ? jumpKey : NO_JUMP;
 	}
 
 	public void dispatch(BirdEvent event) {
@@ -173,57 +186,125 @@ public class Bird extends GameObject {
 		return healthControl.getState();
 	}
 
+	/**
+	 * @return distance of the collision box from the bounds of the bird
+	 */
+	public int getCollisionMargin() {
+		return PlayRules.collisionMargin(tf.width, tf.height);
+	}
+
+	/**
+	 * @return the collision box. The same rectangle is returned by each call, with the current
+	 *         bounds.
+	 */
 	@Override
 	public Rectangle2D getCollisionBox() {
-		int margin = Math.min(tf.width / 4, tf.height / 4);
-		return new Rectangle2D.Double(tf.x + margin, tf.y + margin, tf.width - 2 * margin, tf.height - 2 * margin);
+		int margin = getCollisionMargin();
+		collisionBox.setRect(tf.x + margin, tf.y + margin, tf.width - 2 * margin, tf.height - 2 * margin);
+		return collisionBox;
 	}
 
 	public void flap() {
-		flap(2.5f);
+		flap(FLAP_FORCE);
 	}
 
 	public void flap(float force) {
-		Assets.sound("sfx/wing.mp3").play();
-		tf.vy = tf.vy - force * gravity;
+		playSound(WING);
+		tf.vy = PlayRules.flapVelocity(tf.vy, gravity, force);
 		fly();
 	}
 
 	public void fly() {
-		if (tf.y < -tf.height) {
+		if (PlayRules.aboveWorld(tf.y, tf.height)) {
 			tf.setVelocity(0, 0);
 		}
-		tf.vy += gravity;
-		double damp = tf.vy < 0 ? 0.05 : 0.2;
-		tf.rotation = -PI / 8 + damp * tf.vy;
-		if (tf.rotation < -PI / 4)
-			tf.rotation = -PI / 4;
-		if (tf.rotation > PI / 2)
-			tf.rotation = PI / 2;
+		tf.vy = PlayRules.flyVelocity(tf.vy, gravity);
+		tf.rotation = PlayRules.flightRotation(tf.vy);
 		tf.move();
 	}
 
 	public void fall(float slowdown) {
-		tf.vy = tf.vy + gravity / slowdown;
+		tf.vy = PlayRules.fallVelocity(tf.vy, gravity, slowdown);
 		tf.move();
 	}
 
 	private void turnDown() {
-		tf.rotation = PI / 2;
+		tf.rotation = TURNED_DOWN_ROTATION;
 		tf.setVelocity(0, 0);
 	}
 
 	@Override
-	public void draw(Graphics2D g2) {
-		Graphics2D g = (Graphics2D) g2.create();
-		sprites.current().ifPresent(sprite -> {
-			Vector2f center = tf.getCenter();
-			float dx = center.x - sprite.getWidth() / 2;
-			float dy = center.y - sprite.getHeight() / 2;
-			g.translate(dx, dy);
-			g.rotate(tf.rotation);
-			sprite.draw(g);
-		});
-		g.dispose();
+	public void savePreviousState() {
+		prevX = tf.x;
+		prevY = tf.y;
+		prevRotation = tf.rotation;
+	}
+
+	public float getPrevX() {
+		return prevX;
+	}
+
+	public float getPrevY() {
+		return prevY;
+	}
+
+	public double getPrevRotation() {
+		return prevRotation;
+	}
+
+	/**
+	 * @return current frame of the wing animation or {@code null}
+	 */
+	public Image currentFrame() {
+		return sprite != null ? sprite.currentAnimationFrame().orElse(null) : null;
+	}
+
+	@Override
+	public void draw(Graphics2D g) {
+		draw(g, 1);
+	}
+
+	@Override
+	public void draw(Graphics2D g, float alpha) {
+		float x = Interpolated.lerp(prevX, tf.x, alpha), y = Interpolated.lerp(prevY, tf.y, alpha);
+		double rotation = prevRotation + alpha * (tf.rotation - prevRotation);
+		draw(g, currentFrame(), x, y, tf.width, tf.height, rotation);
+	}
+
+	/**
+	 * Draws a bird image centered in the bird bounds and rotated around its upper left corner. Used for
+	 * drawing the bird itself and for drawing a snapshot of it.
+	 * <p>
+	 * The rotation angle is rounded to the angles of the rotated images in {@link #ROTATED_FRAMES}, so
+	 * drawing does not allocate once the rotated images are created, see
+	 * {@link #prewarmRotatedFrames()}.
+	 * 
+	 * @param g2       graphics
+	 * @param frame    bird image, nothing is drawn if {@code null}
+	 * @param x        x-position of the bird
+	 * @param y        y-position of the bird
+	 * @param width    width of the bird
+	 * @param height   height of the bird
+	 * @param rotation rotation angle
+	 */
+	public static void draw(Graphics2D g2, Image frame, float x, float y, int width, int height, double rotation) {
+		if (frame == null) {
+			return;
+		}
+		float left = x + width / 2 - frame.getWidth(null) / 2, top = y + height / 2 - frame.getHeight(null) / 2;
+		if (!(frame instanceof BufferedImage)) {
+			DRAW_TRANSFORM.setToTranslation(left, top);
+			DRAW_TRANSFORM.rotate(rotation);
+			g2.drawImage(frame, DRAW_TRANSFORM, null);
+			return;
+		}
+		int step = ROTATED_FRAMES.step(rotation);
+		double angle = ROTATED_FRAMES.angle(step), cos = Math.cos(angle), sin = Math.sin(angle);
+		BufferedImage rotated = ROTATED_FRAMES.get((BufferedImage) frame, step);
+		// center of the frame rotated around the upper left corner
+		double cx = frame.getWidth(null) / 2.0, cy = frame.getHeight(null) / 2.0;
+		double centerX = left + cx * cos - cy * sin, centerY = top + cx * sin + cy * cos;
+		g2.drawImage(rotated, (int) Math.round(centerX - rotated.getWidth() / 2.0),
+				(int) Math.round(centerY - rotated.getHeight() / 2.0), null);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package de.amr.games.birdy.entities;
+
+import static de.amr.games.birdy.PlayRules.CRASH_SLOWDOWN;
+import static de.amr.games.birdy.entities.BirdEvent.CRASHED;
+import static de.amr.games.birdy.entities.BirdEvent.LEFT_WORLD;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_GROUND;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
+import static de.amr.games.birdy.entities.FlightState.CRASHING;
+import static de.amr.games.birdy.entities.FlightState.DOWN;
+import static de.amr.games.birdy.entities.FlightState.FLYING;
+import static de.amr.games.birdy.entities.HealthState.DEAD;
+import static de.amr.games.birdy.entities.HealthState.INJURED;
+import static de.amr.games.birdy.entities.HealthState.SANE;
+
+import java.util.function.LongSupplier;
+
+import de.amr.games.birdy.fsm.CompiledStateMachine;
+import de.amr.games.birdy.fsm.TransitionTable;
+
+/**
+ * The flight control and the health control of the bird.
+ * <p>
+ * The state machines are defined once, here. The bird of the game and the birds of the headless
+ * simulations ({@code HeadlessGame}, {@code PopulationSimulation}) each run their own machines
+ * created from these definitions, they only differ in the {@link Body} the machines act on. The
+ * machines are updated in every tick, for each bird of a population. They run from compiled
+ * transition tables, so an update does not allocate.
+ *
+ * @author Armin Reichert
+ */
+public final class BirdControl {
+
+	/**
+	 * What the state machines do with the bird they control.
+	 */
+	public interface Body {
+
+		/**
+		 * @return if the jump key is down in the current tick
+		 */
+		boolean jumpKeyDown();
+
+		void flap();
+
+		void fly();
+
+		/**
+		 * @param slowdown factor by which the gravity is reduced
+		 */
+		void fall(float slowdown);
+
+		/**
+		 * Turns the bird down and stops it.
+		 */
+		void turnDown();
+
+		/**
+		 * Shows the health state, e.g. by the feather color. Does nothing by default.
+		 *
+		 * @param state the entered health state
+		 */
+		default void showHealth(HealthState state) {
+		}
+
+		/**
+		 * Called when the bird is down on the ground. Does nothing by default.
+		 */
+		default void down() {
+		}
+	}
+
+	private BirdControl() {
+	}
+
+	/**
+	 * @param body the controlled bird
+	 * @return new flight control of the bird
+	 */
+	public static CompiledStateMachine<FlightState, BirdEvent> flightControl(Body body) {
+		//@formatter:off
+		TransitionTable<FlightState, BirdEvent> table = TransitionTable.define(FlightState.class, BirdEvent.class)
+
+			.state(FLYING)
+				.onTick(() -> {
+					if (body.jumpKeyDown()) {
+						body.flap();
+					} else {
+						body.fly();
+					}
+				})
+
+			.state(CRASHING)
+				.onEntry(() -> body.turnDown())
+				.onTick(() -> body.fall(CRASH_SLOWDOWN))
+
+			.state(DOWN)
+				.onEntry(() -> {
+					body.down();
+					body.turnDown();
+				})
+
+			.when(FLYING).then(CRASHING).on(TOUCHED_PIPE)
+			.when(FLYING).then(CRASHING).on(CRASHED)
+			.when(FLYING).then(CRASHING).on(LEFT_WORLD)
+			.when(FLYING).then(DOWN).on(TOUCHED_GROUND)
+
+			.when(CRASHING).then(DOWN).on(TOUCHED_GROUND)
+
+		.build();
+		//@formatter:on
+		return new CompiledStateMachine<>(table, FLYING, "[Flight]");
+	}
+
+	/**
+	 * @param body         the controlled bird
+	 * @param injuredTicks supplies the number of ticks the bird stays injured
+	 * @return new health control of the bird
+	 */
+	public static CompiledStateMachine<HealthState, BirdEvent> healthControl(Body body, LongSupplier injuredTicks) {
+		//@formatter:off
+		TransitionTable<HealthState, BirdEvent> table = TransitionTable.define(HealthState.class, BirdEvent.class)
+
+			.state(SANE)
+				.onEntry(() -> body.showHealth(SANE))
+
+			.state(INJURED)
+				.timeoutAfter(injuredTicks)
+				.onEntry(() -> body.showHealth(INJURED))
+
+			.state(DEAD)
+				.onEntry(() -> {
+					body.showHealth(DEAD);
+					body.turnDown();
+				})
+
+			.when(SANE).then(INJURED).on(TOUCHED_PIPE)
+			.when(SANE).then(DEAD).on(TOUCHED_GROUND)
+			.when(SANE).then(DEAD).on(LEFT_WORLD)
+
+			// entering the state again restarts the timer
+			.when(INJURED).then(INJURED).on(TOUCHED_PIPE)
+			.when(INJURED).then(SANE).onTimeout()
+			.when(INJURED).then(DEAD).on(TOUCHED_GROUND)
+			.when(INJURED).then(DEAD).on(LEFT_WORLD)
+
+		.build();
+		//@formatter:on
+		return new CompiledStateMachine<>(table, SANE, "[Health]");
+	}
+}
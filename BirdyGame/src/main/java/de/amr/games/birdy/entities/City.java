@@ -1,28 +1,40 @@
 package de.amr.games.birdy.entities;
 
-import static de.amr.easy.game.Application.app;
 import static de.amr.easy.game.Application.loginfo;
+import static de.amr.games.birdy.BirdyGameApp.config;
 import static de.amr.games.birdy.entities.City.DayEvent.SUNRISE;
 import static de.amr.games.birdy.entities.City.DayEvent.SUNSET;
 import static de.amr.games.birdy.entities.City.DayTime.DAY;
 import static de.amr.games.birdy.entities.City.DayTime.NIGHT;
 
 import java.awt.Graphics2D;
-import java.awt.event.KeyEvent;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.stream.IntStream;
 
-import de.amr.easy.game.entity.EntityMap;
 import de.amr.easy.game.entity.GameObject;
-import de.amr.easy.game.input.Keyboard;
 import de.amr.easy.game.ui.sprites.Sprite;
 import de.amr.easy.game.ui.sprites.SpriteMap;
 import de.amr.games.birdy.BirdyGameApp;
+import de.amr.games.birdy.RandomStreams.Stream;
+import de.amr.games.birdy.perf.TracedStateMachine;
+import de.amr.games.birdy.sprites.ScaledImageCache;
 import de.amr.statemachine.api.TransitionMatchStrategy;
 import de.amr.statemachine.core.StateMachine;
 import de.amr.statemachine.core.StateMachine.MissingTransitionBehavior;
 
 /**
  * The city shown in the background.
+ * <p>
+ * The tiled background image is rendered into a cached layer which is only rebuilt when the day time
+ * or the width changes. Each frame, the layer and the animated stars are drawn.
+ * <p>
+ * The stars belong to the city and are updated with it. They are not stored in the entity registry,
+ * so the registry does not change when the stars are replaced during a game, possibly on the
+ * simulation thread.
  * 
  * @author Armin Reichert
  */
@@ -36,13 +48,14 @@ public class City extends GameObject {
 		SUNSET, SUNRISE
 	}
 
-	private final EntityMap ent;
 	private final SpriteMap sprites = new SpriteMap();
 	private final StateMachine<DayTime, DayEvent> fsm;
+	private final List<Star> stars = new ArrayList<>();
+	private final List<Star> starsView = Collections.unmodifiableList(stars);
+	private BufferedImage background;
+	private boolean backgroundValid;
 
-	public City(EntityMap entities, DayTime dayTime) {
-
-		ent = entities;
+	public City(DayTime dayTime) {
 
 		sprites.set("s_night", Sprite.ofAssets("bg_night"));
 		sprites.set("s_day", Sprite.ofAssets("bg_day"));
@@ -53,26 +66,28 @@ public class City extends GameObject {
 			tf.height = sprite.getHeight();
 		});
 
-		fsm = new StateMachine<>(DayTime.class, TransitionMatchStrategy.BY_VALUE);
+		fsm = new TracedStateMachine<>(DayTime.class, TransitionMatchStrategy.BY_VALUE);
 		fsm.setMissingTransitionBehavior(MissingTransitionBehavior.LOG);
 		fsm.setDescription("City");
 		fsm.setInitialState(DAY);
 
 		fsm.state(DAY).entryAction = () -> {
 			sprites.select("s_day");
+			backgroundValid = false;
 		};
 
 		fsm.addTransitionOnEventValue(DAY, NIGHT, null, null, SUNSET, () -> "");
 
-		fsm.state(NIGHT).setTimer(app().clock().sec(10));
+		fsm.state(NIGHT).setTimer(BirdyGameApp.sec(10));
 
 		fsm.state(NIGHT).entryAction = () -> {
 			sprites.select("s_night");
+			backgroundValid = false;
 			replaceStars();
 		};
 
 		fsm.state(NIGHT).exitAction = () -> {
-			ent.removeAll(Star.class);
+			stars.clear();
 		};
 
 		fsm.addTransitionOnTimeout(NIGHT, NIGHT, null, e -> {
@@ -90,20 +105,29 @@ public class City extends GameObject {
 
 	@Override
 	public void update() {
-		if (Keyboard.keyPressedOnce(KeyEvent.VK_N)) {
-			fsm.enqueue(SUNSET);
-		} else if (Keyboard.keyPressedOnce(KeyEvent.VK_D)) {
-			fsm.enqueue(SUNRISE);
-		}
 		fsm.update();
+		for (int i = 0; i < stars.size(); ++i) {
+			stars.get(i).update();
+		}
+	}
+
+	/**
+	 * Lets the sun set or rise with the next update.
+	 * 
+	 * @param event day event
+	 */
+	public void dispatch(DayEvent event) {
+		fsm.enqueue(event);
 	}
 
 	private void replaceStars() {
-		ent.removeAll(Star.class);
-		int numStars = BirdyGameApp.random(1, app().settings().get("max-stars"));
+		stars.clear();
+		int numStars = BirdyGameApp.random(Stream.STARS, 1, config().maxStars);
 		IntStream.range(1, numStars).forEach(i -> {
-			Star star = ent.store(new Star());
-			star.tf.setPosition(BirdyGameApp.random(50, tf.width - 50), BirdyGameApp.random(100, 180));
+			Star star = new Star();
+			star.tf.setPosition(BirdyGameApp.random(Stream.STARS, 50, tf.width - 50),
+					BirdyGameApp.random(Stream.STARS, 100, 180));
+			stars.add(star);
 		});
 		loginfo("Created " + numStars + " new stars");
 	}
@@ -118,20 +142,50 @@ public class City extends GameObject {
 			sprites.forEach(sprite -> {
 				sprite.scale(width, sprite.getHeight());
 			});
+			backgroundValid = false;
 		}
 	}
 
-	@Override
-	public void draw(Graphics2D g) {
+	public List<Star> getStars() {
+		return starsView;
+	}
+
+	/**
+	 * Returns the background layer, rendering it if the day time or the width has changed. A new layer
+	 * is created each time, so a layer handed to another thread is never drawn over.
+	 * 
+	 * @return the background layer
+	 */
+	public BufferedImage background() {
+		if (!backgroundValid) {
+			renderBackground();
+		}
+		return background;
+	}
+
+	private void renderBackground() {
+		// the background images are opaque
+		BufferedImage layer = ScaledImageCache.createCompatibleImage(tf.width, tf.height, Transparency.OPAQUE);
+		Graphics2D bg = layer.createGraphics();
 		sprites.current().ifPresent(sprite -> {
 			sprite.currentAnimationFrame().ifPresent(image -> {
-				g.translate(tf.x, tf.y);
 				for (int x = 0; x < tf.width; x += image.getWidth(null)) {
-					g.drawImage(image, x, 0, null);
+					bg.drawImage(image, x, 0, null);
 				}
-				ent.ofClass(Star.class).forEach(star -> star.draw(g));
-				g.translate(-tf.x, -tf.y);
 			});
 		});
+		bg.dispose();
+		background = layer;
+		backgroundValid = true;
+	}
+
+	@Override
+	public void draw(Graphics2D g) {
+		g.translate(tf.x, tf.y);
+		g.drawImage(background(), 0, 0, null);
+		for (int i = 0; i < stars.size(); ++i) {
+			stars.get(i).draw(g);
+		}
+		g.translate(-tf.x, -tf.y);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package de.amr.games.birdy.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import de.amr.easy.game.controller.Lifecycle;
+import de.amr.easy.game.entity.Entity;
+
+/**
+ * The entities of the game.
+ * <p>
+ * Named entities are accessed by typed handles which are resolved once, getting the entity of a
+ * handle is an array access. For each type, the entities of this type are kept in a dense array
+ * which is created on first use and dropped when entities are added or removed. The update list
+ * (all {@link Lifecycle} entities) and the list of {@link Interpolated} entities are such arrays.
+ * Iterating over them does not allocate.
+ *
+ * @author Armin Reichert
+ */
+public class EntityRegistry {
+
+	/**
+	 * Typed reference to a named entity.
+	 *
+	 * @param <T> entity type
+	 */
+	public static final class Handle<T extends Entity> {
+
+		private final int slot;
+		private final String name;
+		private final Class<T> type;
+
+		private Handle(int slot, String name, Class<T> type) {
+			this.slot = slot;
+			this.name = name;
+			this.type = type;
+		}
+
+		/**
+		 * @return id of the entity, unique among the named entities of the registry
+		 */
+		public int id() {
+			return slot;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		public Class<T> type() {
+			return type;
+		}
+	}
+
+	private static final Object[] NONE = {};
+
+	private final Map<String, Handle<?>> handles = new HashMap<>();
+	private Entity[] slots = new Entity[8];
+	private final List<Entity> entities = new ArrayList<>();
+	private final Map<Class<?>, Object[]> entitiesByType = new HashMap<>();
+	private Object[] updateList;
+	private Object[] interpolated;
+
+	/**
+	 * Returns the handle for the entity with the given name. The entity may be stored later.
+	 *
+	 * @param name entity name
+	 * @param type entity type
+	 * @return the handle
+	 * @throws IllegalArgumentException if the name is used for another type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Entity> Handle<T> handle(String name, Class<T> type) {
+		Handle<?> handle = handles.get(name);
+		if (handle == null) {
+			if (handles.size() == slots.length) {
+				slots = Arrays.copyOf(slots, 2 * slots.length);
+			}
+			handle = new Handle<>(handles.size(), name, type);
+			handles.put(name, handle);
+		} else if (!type.isAssignableFrom(handle.type)) {
+			throw new IllegalArgumentException(
+					String.format("Entity '%s' has type %s, not %s", name, handle.type.getSimpleName(), type.getSimpleName()));
+		}
+		return (Handle<T>) handle;
+	}
+
+	/**
+	 * @param handle entity handle
+	 * @return the entity or {@code null} if not stored
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Entity> T get(Handle<T> handle) {
+		return (T) slots[handle.slot];
+	}
+
+	/**
+	 * @param name entity name
+	 * @return the entity with this name or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Entity> T named(String name) {
+		Handle<?> handle = handles.get(name);
+		return handle != null ? (T) slots[handle.slot] : null;
+	}
+
+	/**
+	 * Stores an entity under the given name, replacing the entity stored under this name.
+	 *
+	 * @param name   entity name
+	 * @param entity the entity
+	 * @return the entity
+	 */
+	public <T extends Entity> T store(String name, T entity) {
+		Handle<? extends Entity> handle = handles.get(name);
+		if (handle == null) {
+			handle = handle(name, entity.getClass());
+		} else if (!handle.type.isInstance(entity)) {
+			throw new IllegalArgumentException(
+					String.format("Entity '%s' must have type %s", name, handle.type.getSimpleName()));
+		}
+		Entity previous = slots[handle.slot];
+		if (previous != entity) {
+			if (previous != null) {
+				entities.remove(previous);
+			}
+			slots[handle.slot] = entity;
+			entities.add(entity);
+			invalidate();
+		}
+		return entity;
+	}
+
+	/**
+	 * Stores an entity without name.
+	 *
+	 * @param entity the entity
+	 * @return the entity
+	 */
+	public <T extends Entity> T store(T entity) {
+		entities.add(entity);
+		invalidate();
+		return entity;
+	}
+
+	/**
+	 * Removes all entities of the given type, named entities included.
+	 *
+	 * @param type entity type
+	 */
+	public void removeAll(Class<?> type) {
+		if (entities.removeIf(type::isInstance)) {
+			for (int i = 0; i < slots.length; ++i) {
+				if (type.isInstance(slots[i])) {
+					slots[i] = null;
+				}
+			}
+			invalidate();
+		}
+	}
+
+	/**
+	 * @param type entity type or interface
+	 * @return dense array of the entities of this type, in insertion order. Must not be modified.
+	 */
+	public Object[] ofType(Class<?> type) {
+		Object[] dense = entitiesByType.get(type);
+		if (dense == null) {
+			dense = entities.stream().filter(type::isInstance).toArray();
+			entitiesByType.put(type, dense.length > 0 ? dense : NONE);
+		}
+		return dense;
+	}
+
+	/**
+	 * @param type   entity type or interface
+	 * @param action action performed for each entity of this type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> void forEach(Class<T> type, Consumer<? super T> action) {
+		for (Object entity : ofType(type)) {
+			action.accept((T) entity);
+		}
+	}
+
+	/**
+	 * Saves the state of all {@link Interpolated} entities.
+	 */
+	public void savePreviousStates() {
+		if (interpolated == null) {
+			interpolated = ofType(Interpolated.class);
+		}
+		for (Object entity : interpolated) {
+			((Interpolated) entity).savePreviousState();
+		}
+	}
+
+	/**
+	 * Updates all {@link Lifecycle} entities.
+	 */
+	public void update() {
+		if (updateList == null) {
+			updateList = ofType(Lifecycle.class);
+		}
+		for (Object entity : updateList) {
+			((Lifecycle) entity).update();
+		}
+	}
+
+	private void invalidate() {
+		entitiesByType.clear();
+		updateList = null;
+		interpolated = null;
+	}
+}
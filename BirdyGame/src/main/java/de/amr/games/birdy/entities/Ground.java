@@ -1,20 +1,31 @@
 package de.amr.games.birdy.entities;
 
 import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 
 import de.amr.easy.game.entity.GameObject;
 import de.amr.easy.game.ui.sprites.Sprite;
 import de.amr.easy.game.ui.sprites.SpriteMap;
+import de.amr.games.birdy.sprites.ScaledImageCache;
 
 /**
  * The ground.
+ * <p>
+ * The land image is tiled once into a strip which is one tile wider than the ground. Scrolling then
+ * means drawing the visible part of the strip starting at the scroll offset (which is always less
+ * than the tile width), so drawing the ground is a single image copy.
  * 
  * @author Armin Reichert
  */
-public class Ground extends GameObject {
+public class Ground extends GameObject implements Interpolated {
 
 	private final SpriteMap sprites = new SpriteMap();
-	private float startX;
+	private BufferedImage strip;
+	private int tileWidth;
+	private float scrollX;
+	private float prevScrollX;
 
 	public Ground() {
 		Sprite land = Sprite.ofAssets("land");
@@ -22,6 +33,7 @@ public class Ground extends GameObject {
 		sprites.select("s_land");
 		tf.width = land.getWidth();
 		tf.height = land.getHeight();
+		tileWidth = land.getWidth();
 	}
 
 	@Override
@@ -30,29 +42,107 @@ public class Ground extends GameObject {
 
 	@Override
 	public void update() {
-		sprites.current().ifPresent(sprite -> {
-			sprite.currentAnimationFrame().ifPresent(image -> {
-				startX -= tf.vx;
-				if (startX < 0) {
-					startX = image.getWidth(null);
-				}
-			});
-		});
+		scrollX -= tf.vx;
+		if (scrollX >= tileWidth) {
+			scrollX -= tileWidth;
+			prevScrollX -= tileWidth;
+		} else if (scrollX < 0) {
+			scrollX += tileWidth;
+			prevScrollX += tileWidth;
+		}
 	}
 
 	public void setWidth(int width) {
 		tf.width = width;
-		sprites.current().ifPresent(sprite -> sprite.scale(width, sprite.getHeight()));
+		sprites.current().ifPresent(sprite -> {
+			sprite.scale(width, sprite.getHeight());
+			tileWidth = sprite.getWidth();
+		});
+		scrollX %= tileWidth;
+		prevScrollX = scrollX;
+		strip = null;
+	}
+
+	/*
+	 * A new image is created each time, so a strip handed to another thread is never drawn over.
+	 */
+	private void createStrip() {
+		sprites.current().flatMap(Sprite::currentAnimationFrame).ifPresent(tile -> {
+			strip = ScaledImageCache.createCompatibleImage(tf.width + tileWidth, tf.height, Transparency.OPAQUE);
+			Graphics2D g = strip.createGraphics();
+			for (int x = 0; x < strip.getWidth(); x += tileWidth) {
+				g.drawImage(tile, x, 0, null);
+			}
+			g.dispose();
+		});
+	}
+
+	@Override
+	public void savePreviousState() {
+		prevScrollX = scrollX;
+	}
+
+	public float getScrollX() {
+		return scrollX;
+	}
+
+	public float getPrevScrollX() {
+		return prevScrollX;
+	}
+
+	/**
+	 * @return the tiled strip, created if the width has changed, or {@code null} if the land image is
+	 *         missing
+	 */
+	public BufferedImage strip() {
+		if (strip == null) {
+			createStrip();
+		}
+		return strip;
+	}
+
+	public int getTileWidth() {
+		return tileWidth;
 	}
 
 	@Override
 	public void draw(Graphics2D g) {
-		sprites.current().ifPresent(sprite -> {
-			sprite.currentAnimationFrame().ifPresent(image -> {
-				for (float x = -startX; x < tf.width; x += image.getWidth(null)) {
-					g.drawImage(image, (int) x, (int) tf.y, null);
-				}
-			});
-		});
+		draw(g, 1);
+	}
+
+	@Override
+	public void draw(Graphics2D g, float alpha) {
+		drawScrolled(g, Interpolated.lerp(prevScrollX, scrollX, alpha));
+	}
+
+	/**
+	 * Draws the ground scrolled by the given amount.
+	 * 
+	 * @param g       graphics
+	 * @param scrollX scroll offset, e.g. taken from a snapshot
+	 */
+	public void drawScrolled(Graphics2D g, float scrollX) {
+		drawStrip(g, strip(), tileWidth, scrollX, (int) tf.y, tf.width, tf.height);
+	}
+
+	/**
+	 * Draws the visible part of a ground strip. Used for drawing the ground itself and for drawing a
+	 * snapshot of it.
+	 * 
+	 * @param g         graphics
+	 * @param strip     the strip, nothing is drawn if {@code null}
+	 * @param tileWidth width of a tile of the strip
+	 * @param scrollX   scroll offset
+	 * @param y         vertical position of the ground
+	 * @param width     width of the ground
+	 * @param height    height of the ground
+	 */
+	public static void drawStrip(Graphics2D g, Image strip, int tileWidth, float scrollX, int y, int width,
+			int height) {
+		if (strip == null) {
+			return;
+		}
+		int offset = Math.floorMod(Math.round(scrollX), tileWidth);
+		g.drawImage(strip, 0, y, width, y + height, offset, 0, offset + width, height, null);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package de.amr.games.birdy.entities;
+
+import java.awt.Graphics2D;
+
+/**
+ * Entity whose simulation runs with a fixed timestep and which is drawn interpolated between its
+ * state before and after the last simulation tick.
+ * 
+ * @author Armin Reichert
+ */
+public interface Interpolated {
+
+	/**
+	 * Positions which change more than this between two ticks are not interpolated, the entity has
+	 * been placed somewhere else.
+	 */
+	public static final float MAX_INTERPOLATION_DISTANCE = 50;
+
+	/**
+	 * @param previous value before the last tick
+	 * @param current  value after the last tick
+	 * @param alpha    fraction of the time between the last and the next tick
+	 * @return interpolated value or the current value if the entity has been placed somewhere else
+	 */
+	public static float lerp(float previous, float current, float alpha) {
+		return Math.abs(current - previous) > MAX_INTERPOLATION_DISTANCE ? current
+				: previous + alpha * (current - previous);
+	}
+
+	/**
+	 * Stores the current state as the previous state. Called before each simulation tick.
+	 */
+	void savePreviousState();
+
+	/**
+	 * Draws the entity interpolated between its previous and its current state.
+	 * 
+	 * @param g     graphics
+	 * @param alpha fraction of the time between the last and the next tick, from 0 to 1
+	 */
+	void draw(Graphics2D g, float alpha);
+}
@@ -1,42 +1,130 @@
 package de.amr.games.birdy.entities;
 
-import static de.amr.easy.game.Application.app;
+import static de.amr.games.birdy.BirdyGameApp.config;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Rectangle;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import de.amr.easy.game.assets.Assets;
 import de.amr.easy.game.entity.GameObject;
 import de.amr.easy.game.entity.collision.Collider;
+import de.amr.games.birdy.PlayRules;
+import de.amr.games.birdy.sprites.ScaledImageCache;
 
 /**
  * An obstacle consisting of a hanging and a standing pipe with a passage in the middle.
  * 
  * @author Armin Reichert
  */
-public class Obstacle extends GameObject {
+public class Obstacle extends GameObject implements Interpolated {
+
+	/** Scaled pipe images shared by all obstacles. */
+	private static final ScaledImageCache PIPE_IMAGES = new ScaledImageCache(256);
+
+	/**
+	 * Passage light compositions indexed by alpha value. Drawing an opaque image translucent does not
+	 * allocate, unlike filling a rectangle with a translucent color.
+	 */
+	private static final AlphaComposite[] GLOW_ALPHA = new AlphaComposite[256];
+
+	static {
+		for (int alpha = 0; alpha < GLOW_ALPHA.length; ++alpha) {
+			GLOW_ALPHA[alpha] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha / 255f);
+		}
+	}
+
+	/* Used by drawing which happens on one thread only */
+	private static BufferedImage glowImage;
+
+	private static BufferedImage glowImage(int width, int height) {
+		if (glowImage == null || glowImage.getWidth() != width || glowImage.getHeight() != height) {
+			glowImage = ScaledImageCache.createCompatibleImage(width, height, Transparency.OPAQUE);
+			Graphics2D g = glowImage.createGraphics();
+			g.setColor(Color.YELLOW);
+			g.fillRect(0, 0, width, height);
+			g.dispose();
+		}
+		return glowImage;
+	}
+
+	/**
+	 * Creates the scaled pipe images for all pipe heights in the given range such that creating an
+	 * obstacle costs no image scaling.
+	 * 
+	 * @param minPipeHeight minimum pipe height (inclusive)
+	 * @param maxPipeHeight maximum pipe height (inclusive)
+	 */
+	public static void prewarmPipeImages(int minPipeHeight, int maxPipeHeight) {
+		int width = config().obstacleWidth;
+		for (int height = Math.max(1, minPipeHeight); height <= maxPipeHeight; ++height) {
+			PIPE_IMAGES.get(Assets.image("pipe_down"), width, height);
+			PIPE_IMAGES.get(Assets.image("pipe_up"), width, height);
+		}
+	}
 
 	public int width, height;
-	public Rectangle hanging, passage, standing;
+	public final Rectangle hanging = new Rectangle(), passage = new Rectangle(), standing = new Rectangle();
 	public Image hangingImage, standingImage;
 	public boolean illuminated;
 
+	private float prevX;
+	int id;
+
+	/* Collision state used by the broadphase */
+	boolean touchingUpperPart, touchingLowerPart, inPassage;
+
+	private final Collider upperPart = () -> new Rectangle((int) tf.x, (int) tf.y, hanging.width, hanging.height);
+	private final Collider lowerPart = () -> new Rectangle((int) tf.x, (int) tf.y + hanging.height + passage.height,
+			standing.width, standing.height);
+	private final Collider passageArea = () -> new Rectangle((int) tf.x, (int) tf.y + hanging.height, passage.width,
+			passage.height);
+
 	public Obstacle(int passageRadius, int passageCenterY) {
-		width = app().settings().get("obstacle-width");
-		height = app().settings().get("obstacle-height");
+		this(config().obstacleWidth, config().obstacleHeight, passageRadius, passageCenterY);
+		selectImages();
+	}
+
+	/*
+	 * Obstacle without images, can be created without application, e.g. by the tests.
+	 */
+	Obstacle(int width, int height, int passageRadius, int passageCenterY) {
+		this.width = width;
+		this.height = height;
 		tf.width = width;
 		tf.height = height;
-		hanging = new Rectangle(0, 0, width, passageCenterY - passageRadius);
-		passage = new Rectangle(0, passageCenterY - passageRadius, width, 2 * passageRadius);
-		standing = new Rectangle(0, passageCenterY + passageRadius, width, height - passageRadius - passageCenterY);
-		hangingImage = Assets.image("pipe_down").getScaledInstance(width, (int) hanging.getHeight(),
-				BufferedImage.SCALE_SMOOTH);
-		standingImage = Assets.image("pipe_up").getScaledInstance(width, (int) standing.getHeight(),
-				BufferedImage.SCALE_SMOOTH);
+		setPassage(passageRadius, passageCenterY);
+	}
+
+	/**
+	 * Sets a new passage position. Used when a pooled obstacle is reused.
+	 * 
+	 * @param passageRadius  half of the passage height
+	 * @param passageCenterY vertical position of the passage center
+	 */
+	public void rearm(int passageRadius, int passageCenterY) {
+		setPassage(passageRadius, passageCenterY);
+		selectImages();
+		illuminated = false;
+	}
+
+	private void selectImages() {
+		hangingImage = PIPE_IMAGES.get(Assets.image("pipe_down"), width, hanging.height);
+		standingImage = PIPE_IMAGES.get(Assets.image("pipe_up"), width, standing.height);
+	}
+
+	private void setPassage(int passageRadius, int passageCenterY) {
+		hanging.setBounds(0, 0, width, PlayRules.hangingHeight(passageCenterY, passageRadius));
+		passage.setBounds(0, hanging.height, width, 2 * passageRadius);
+		standing.setBounds(0, passageCenterY + passageRadius, width,
+				PlayRules.standingHeight(height, passageCenterY, passageRadius));
+		touchingUpperPart = touchingLowerPart = inPassage = false;
 	}
 
 	@Override
@@ -48,29 +136,69 @@ public class Obstacle extends GameObject {
 		tf.move();
 	}
 
+	@Override
+	public void savePreviousState() {
+		prevX = tf.x;
+	}
+
+	/**
+	 * @return id of the obstacle, unique among the obstacles of its pool
+	 */
+	public int getId() {
+		return id;
+	}
+
+	public float getPrevX() {
+		return prevX;
+	}
+
 	@Override
 	public void draw(Graphics2D g) {
-		g.translate(tf.x, tf.y);
-		g.drawImage(hangingImage, 0, 0, width, hanging.height, null);
-		if (illuminated) {
+		draw(g, 1);
+	}
+
+	@Override
+	public void draw(Graphics2D g, float alpha) {
+		// the passage light flickers per frame without using the random streams of the simulation
+		int glow = illuminated ? ThreadLocalRandom.current().nextInt(170) : -1;
+		draw(g, Interpolated.lerp(prevX, tf.x, alpha), tf.y, hangingImage, standingImage, passage, glow);
+	}
+
+	/**
+	 * Draws an obstacle. Used for drawing the obstacle itself and for drawing a snapshot of it.
+	 * 
+	 * @param g             graphics
+	 * @param x             x-position
+	 * @param y             y-position
+	 * @param hangingImage  image of the hanging pipe
+	 * @param standingImage image of the standing pipe
+	 * @param passage       passage bounds relative to the obstacle
+	 * @param glow          alpha value of the passage light or -1 if the passage is not illuminated
+	 */
+	public static void draw(Graphics2D g, float x, float y, Image hangingImage, Image standingImage,
+			Rectangle passage, int glow) {
+		g.translate(x, y);
+		g.drawImage(hangingImage, 0, 0, null);
+		if (glow >= 0) {
 			int inset = passage.width / 10;
-			g.setColor(new Color(255, 255, 0, new Random().nextInt(170)));
-			g.fillRect(passage.x + inset, passage.y, passage.width - 2 * inset, passage.height);
+			Composite composite = g.getComposite();
+			g.setComposite(GLOW_ALPHA[Math.min(glow, 255)]);
+			g.drawImage(glowImage(passage.width - 2 * inset, passage.height), passage.x + inset, passage.y, null);
+			g.setComposite(composite);
 		}
-		g.drawImage(standingImage, 0, hanging.height + passage.height, null);
-		g.translate(-tf.x, -tf.y);
+		g.drawImage(standingImage, 0, passage.y + passage.height, null);
+		g.translate(-x, -y);
 	}
 
 	public Collider getUpperPart() {
-		return () -> new Rectangle((int) tf.x, (int) tf.y, hanging.width, hanging.height);
+		return upperPart;
 	}
 
 	public Collider getLowerPart() {
-		return () -> new Rectangle((int) tf.x, (int) tf.y + hanging.height + passage.height, standing.width,
-				standing.height);
+		return lowerPart;
 	}
 
 	public Collider getPassage() {
-		return () -> new Rectangle((int) tf.x, (int) tf.y + hanging.height, passage.width, passage.height);
+		return passageArea;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package de.amr.games.birdy.entities;
+
+import static de.amr.games.birdy.entities.BirdEvent.PASSED_OBSTACLE;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
+
+import java.util.List;
+
+/**
+ * Collision detection between the bird and the obstacles.
+ * <p>
+ * Obstacles are created at the right border and move left, so the list of obstacles is ordered by
+ * x-position. Only the obstacles whose horizontal extent overlaps the bird's collision box are
+ * tested. Obstacles that overlapped the bird before are always directly left of these obstacles
+ * and just have to be checked for ended collisions. No rectangles are created.
+ * <p>
+ * The events are the same as with colliders registered at the collision handler: touching the
+ * upper or lower part starts a {@link BirdEvent#TOUCHED_PIPE} collision, leaving the passage ends
+ * a {@link BirdEvent#PASSED_OBSTACLE} collision.
+ * 
+ * @author Armin Reichert
+ */
+public class ObstacleBroadphase {
+
+	/**
+	 * Receives the collision events together with the obstacle.
+	 */
+	@FunctionalInterface
+	public interface CollisionListener {
+
+		void collision(BirdEvent event, Obstacle obstacle);
+	}
+
+	/**
+	 * @param bird      the bird
+	 * @param obstacles the obstacles ordered from left to right
+	 * @param events    receives the collision events
+	 */
+	public void detectCollisions(Bird bird, List<Obstacle> obstacles, CollisionListener events) {
+		int margin = bird.getCollisionMargin();
+		detectCollisions(bird.tf.x + margin, bird.tf.y + margin, bird.tf.width - 2 * margin,
+				bird.tf.height - 2 * margin, obstacles, events);
+	}
+
+	/*
+	 * Collision detection for the given collision box of the bird.
+	 */
+	void detectCollisions(float bx, float by, int bw, int bh, List<Obstacle> obstacles, CollisionListener events) {
+		int first = firstOverlapping(obstacles, bx);
+		while (first > 0 && touching(obstacles.get(first - 1))) {
+			--first;
+		}
+		for (int i = first; i < obstacles.size(); ++i) {
+			Obstacle obstacle = obstacles.get(i);
+			if ((int) obstacle.tf.x >= bx + bw && !touching(obstacle)) {
+				break;
+			}
+			check(obstacle, bx, by, bw, bh, events);
+		}
+	}
+
+	private static boolean touching(Obstacle obstacle) {
+		return obstacle.touchingUpperPart || obstacle.touchingLowerPart || obstacle.inPassage;
+	}
+
+	/*
+	 * Index of the first obstacle whose right border is right of the given position.
+	 */
+	private static int firstOverlapping(List<Obstacle> obstacles, float x) {
+		int lo = 0, hi = obstacles.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			Obstacle obstacle = obstacles.get(mid);
+			if ((int) obstacle.tf.x + obstacle.width <= x) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private static void check(Obstacle obstacle, float bx, float by, int bw, int bh, CollisionListener events) {
+		int x = (int) obstacle.tf.x, y = (int) obstacle.tf.y;
+
+		boolean upper = intersects(bx, by, bw, bh, x, y, obstacle.hanging.width, obstacle.hanging.height);
+		if (upper && !obstacle.touchingUpperPart) {
+			events.collision(TOUCHED_PIPE, obstacle);
+		}
+		obstacle.touchingUpperPart = upper;
+
+		boolean lower = intersects(bx, by, bw, bh, x, y + obstacle.hanging.height + obstacle.passage.height,
+				obstacle.standing.width, obstacle.standing.height);
+		if (lower && !obstacle.touchingLowerPart) {
+			events.collision(TOUCHED_PIPE, obstacle);
+		}
+		obstacle.touchingLowerPart = lower;
+
+		boolean passage = intersects(bx, by, bw, bh, x, y + obstacle.hanging.height, obstacle.passage.width,
+				obstacle.passage.height);
+		if (!passage && obstacle.inPassage) {
+			events.collision(PASSED_OBSTACLE, obstacle);
+		}
+		obstacle.inPassage = passage;
+	}
+
+	/*
+	 * Same as Rectangle2D.intersects() for two rectangles.
+	 */
+	private static boolean intersects(float x1, float y1, float w1, float h1, float x2, float y2, float w2, float h2) {
+		return w1 > 0 && h1 > 0 && w2 > 0 && h2 > 0 && x2 + w2 > x1 && y2 + h2 > y1 && x2 < x1 + w1 && y2 < y1 + h1;
+	}
+}
@@ -1,38 +1,61 @@
 package de.amr.games.birdy.entities;
 
 import static de.amr.easy.game.Application.app;
+import static de.amr.games.birdy.BirdyGameApp.config;
 import static de.amr.games.birdy.BirdyGameApp.sec;
-import static de.amr.games.birdy.entities.BirdEvent.PASSED_OBSTACLE;
-import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
+import static de.amr.games.birdy.entities.ObstacleController.ControlEvent.START;
+import static de.amr.games.birdy.entities.ObstacleController.ControlEvent.STOP;
 import static de.amr.games.birdy.entities.ObstacleController.Phase.BREEDING;
 import static de.amr.games.birdy.entities.ObstacleController.Phase.GIVING_BIRTH;
 import static de.amr.games.birdy.entities.ObstacleController.Phase.STOPPED;
 
-import java.util.Iterator;
+import java.util.List;
 
 import de.amr.easy.game.controller.Lifecycle;
-import de.amr.easy.game.entity.EntityMap;
 import de.amr.games.birdy.BirdyGameApp;
+import de.amr.games.birdy.PlayRules;
+import de.amr.games.birdy.RandomStreams.Stream;
+import de.amr.games.birdy.entities.EntityRegistry.Handle;
+import de.amr.games.birdy.entities.ObstacleBroadphase.CollisionListener;
+import de.amr.games.birdy.entities.ObstacleController.ControlEvent;
 import de.amr.games.birdy.entities.ObstacleController.Phase;
+import de.amr.games.birdy.perf.TracedStateMachine;
 import de.amr.statemachine.api.TransitionMatchStrategy;
-import de.amr.statemachine.core.StateMachine;
 
 /**
- * Manages the creation and deletion of obstacles.
+ * Manages the creation and recycling of obstacles and detects collisions of the bird with them.
  * 
  * @author Armin Reichert
  */
-public class ObstacleController extends StateMachine<Phase, String> implements Lifecycle {
+public class ObstacleController extends TracedStateMachine<Phase, ControlEvent> implements Lifecycle {
 
 	public enum Phase {
 		STOPPED, BREEDING, GIVING_BIRTH
 	}
 
-	private final EntityMap ent;
+	public enum ControlEvent {
+		START, STOP
+	}
 
-	public ObstacleController(EntityMap entities) {
+	private final EntityRegistry ent;
+	private final Handle<Bird> birdHandle;
+	private final Handle<City> cityHandle;
+	private final Handle<Ground> groundHandle;
+	private final ObstaclePool pool = new ObstaclePool();
+	private final ObstacleBroadphase broadphase = new ObstacleBroadphase();
+	private final CollisionListener collisionEvents;
+
+	/**
+	 * @param entities        entities containing bird, city and ground
+	 * @param collisionEvents receives the events from collisions between the bird and the obstacles
+	 */
+	public ObstacleController(EntityRegistry entities, CollisionListener collisionEvents) {
 		super(Phase.class, TransitionMatchStrategy.BY_VALUE);
 		ent = entities;
+		birdHandle = ent.handle("bird", Bird.class);
+		cityHandle = ent.handle("city", City.class);
+		groundHandle = ent.handle("ground", Ground.class);
+		this.collisionEvents = collisionEvents;
 		//@formatter:off
 		beginStateMachine()
 			.description("[ObstacleController]")
@@ -48,11 +71,11 @@ public class ObstacleController extends StateMachine<Phase, String> implements L
 			
 			.transitions()
 			
-				.when(STOPPED).then(BREEDING).on("Start")
-				.when(BREEDING).then(STOPPED).on("Stop")
+				.when(STOPPED).then(BREEDING).on(START)
+				.when(BREEDING).then(STOPPED).on(STOP)
 				.when(BREEDING).then(GIVING_BIRTH).onTimeout()
 				.when(GIVING_BIRTH).then(BREEDING)
-				.when(GIVING_BIRTH).then(STOPPED).on("Stop")
+				.when(GIVING_BIRTH).then(STOPPED).on(STOP)
 				
 		.endStateMachine();
 		//@formatter:on
@@ -60,61 +83,77 @@ public class ObstacleController extends StateMachine<Phase, String> implements L
 
 	@Override
 	public void init() {
-		ent.removeAll(Obstacle.class);
+		pool.releaseAll();
+		prewarmPipeImages();
 		super.init();
 	}
 
+	/*
+	 * The range of passage centers determines the range of pipe heights.
+	 */
+	private void prewarmPipeImages() {
+		Ground ground = ent.get(groundHandle);
+		int groundY = (int) ground.tf.y;
+		int minHeight = config().minObstacleHeight;
+		int passageRadius = PlayRules.passageRadius(config().passageHeight);
+		int obstacleHeight = config().obstacleHeight;
+		int minCenterY = PlayRules.minPassageCenterY(minHeight, passageRadius);
+		int maxCenterY = PlayRules.maxPassageCenterY(groundY, minHeight, passageRadius);
+		int minPipeHeight = Math.min(PlayRules.hangingHeight(minCenterY, passageRadius),
+				PlayRules.standingHeight(obstacleHeight, maxCenterY, passageRadius));
+		int maxPipeHeight = Math.max(PlayRules.hangingHeight(maxCenterY, passageRadius),
+				PlayRules.standingHeight(obstacleHeight, minCenterY, passageRadius));
+		Obstacle.prewarmPipeImages(minPipeHeight, maxPipeHeight);
+	}
+
+	/**
+	 * @return the obstacles on the screen, ordered from left to right
+	 */
+	public List<Obstacle> obstacles() {
+		return pool.active();
+	}
+
+	/**
+	 * Checks the bird for collisions with the obstacles and reports the collision events.
+	 */
+	public void checkCollisions() {
+		Bird bird = ent.get(birdHandle);
+		broadphase.detectCollisions(bird, pool.active(), collisionEvents);
+	}
+
 	@Override
 	public void start() {
-		process("Start");
+		process(START);
 	}
 
 	@Override
 	public void stop() {
-		process("Stop");
+		process(STOP);
 	}
 
 	private long breedingTime() {
-		float min = sec(app().settings().getAsFloat("min-pipe-creation-sec"));
-		float max = sec(app().settings().getAsFloat("max-pipe-creation-sec"));
-		return BirdyGameApp.random((int) min, (int) max);
+		float min = sec(config().minPipeCreationSec);
+		float max = sec(config().maxPipeCreationSec);
+		return BirdyGameApp.random(Stream.BREEDING, (int) min, (int) max);
 	}
 
 	private void updateObstacleList() {
-		Bird bird = ent.named("bird");
-		City city = ent.named("city");
-		Ground ground = ent.named("ground");
+		City city = ent.get(cityHandle);
+		Ground ground = ent.get(groundHandle);
+
+		// Recycle obstacles that ran out of screen
+		pool.releaseOffscreen();
 
 		// Add new obstacle
-		int minHeight = app().settings().get("min-obstacle-height");
-		int passageHeight = app().settings().get("passage-height");
-		int passageCenterY = BirdyGameApp.random(minHeight + passageHeight / 2,
-				(int) ground.tf.y - minHeight - passageHeight / 2);
+		int minHeight = config().minObstacleHeight;
+		int passageRadius = PlayRules.passageRadius(config().passageHeight);
+		int passageCenterY = BirdyGameApp.random(Stream.OBSTACLES,
+				PlayRules.minPassageCenterY(minHeight, passageRadius),
+				PlayRules.maxPassageCenterY((int) ground.tf.y, minHeight, passageRadius));
 
-		Obstacle newObstacle = new Obstacle(passageHeight / 2, passageCenterY);
+		Obstacle newObstacle = pool.acquire(passageRadius, passageCenterY);
 		newObstacle.tf.x = app().settings().width;
-		newObstacle.tf.vx = app().settings().getAsFloat("world-speed");
-		newObstacle.illuminated = city.isNight() && BirdyGameApp.random(0, 100) == 20;
-		ent.store(newObstacle);
-
-		app().collisionHandler().ifPresent(handler -> {
-			handler.registerStart(bird, newObstacle.getUpperPart(), TOUCHED_PIPE);
-			handler.registerStart(bird, newObstacle.getLowerPart(), TOUCHED_PIPE);
-			handler.registerEnd(bird, newObstacle.getPassage(), PASSED_OBSTACLE);
-		});
-
-		// Remove obstacles that ran out of screen
-		Iterator<Obstacle> obstacles = ent.ofClass(Obstacle.class).iterator();
-		while (obstacles.hasNext()) {
-			Obstacle nextObstacle = obstacles.next();
-			if (nextObstacle.tf.x + nextObstacle.tf.width < 0) {
-				app().collisionHandler().ifPresent(handler -> {
-					handler.unregisterStart(bird, nextObstacle.getUpperPart());
-					handler.unregisterStart(bird, nextObstacle.getLowerPart());
-					handler.unregisterEnd(bird, nextObstacle.getPassage());
-				});
-				ent.removeEntity(nextObstacle);
-			}
-		}
+		newObstacle.tf.vx = config().worldSpeed;
+		newObstacle.illuminated = city.isNight() && BirdyGameApp.random(Stream.EFFECTS, 0, 100) == 20;
 	}
 }
\ No newline at end of file
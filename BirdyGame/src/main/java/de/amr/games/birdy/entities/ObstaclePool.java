@@ -0,0 +1,112 @@
+package de.amr.games.birdy.entities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.amr.games.birdy.perf.ObstacleEvent;
+
+/**
+ * Pool of obstacles. Obstacles that left the screen are recycled instead of creating new ones, so
+ * once the pool has grown to the number of simultaneously visible obstacles, no more obstacles are
+ * created.
+ * 
+ * @author Armin Reichert
+ */
+public class ObstaclePool {
+
+	/** Horizontal position of obstacles which are not in use. */
+	public static final float PARKING_X = -10_000;
+
+	private final List<Obstacle> all = new ArrayList<>();
+	private final List<Obstacle> active = new ArrayList<>();
+	private final List<Obstacle> allView = Collections.unmodifiableList(all);
+	private final List<Obstacle> activeView = Collections.unmodifiableList(active);
+	private final ArrayDeque<Obstacle> free = new ArrayDeque<>();
+
+	/**
+	 * @param passageRadius  half of the passage height
+	 * @param passageCenterY vertical position of the passage center
+	 * @return a free obstacle with the given passage or a new one if there is no free obstacle
+	 */
+	public Obstacle acquire(int passageRadius, int passageCenterY) {
+		ObstacleEvent record = new ObstacleEvent();
+		record.begin();
+		Obstacle obstacle = free.poll();
+		boolean created = obstacle == null;
+		if (created) {
+			obstacle = new Obstacle(passageRadius, passageCenterY);
+			obstacle.id = all.size();
+			all.add(obstacle);
+		} else {
+			obstacle.rearm(passageRadius, passageCenterY);
+		}
+		active.add(obstacle);
+		if (record.shouldCommit()) {
+			record.action = ObstacleEvent.SPAWN;
+			record.passageY = passageCenterY;
+			record.active = active.size();
+			record.created = created;
+			record.commit();
+		}
+		return obstacle;
+	}
+
+	/**
+	 * Moves the obstacle to the parking position and makes it available for reuse.
+	 * 
+	 * @param obstacle an active obstacle
+	 */
+	public void release(Obstacle obstacle) {
+		if (active.remove(obstacle)) {
+			park(obstacle);
+		}
+	}
+
+	/**
+	 * Releases the obstacles that ran out of the screen on the left side.
+	 */
+	public void releaseOffscreen() {
+		for (int i = active.size() - 1; i >= 0; --i) {
+			Obstacle obstacle = active.get(i);
+			if (obstacle.tf.x + obstacle.tf.width < 0) {
+				active.remove(i);
+				park(obstacle);
+			}
+		}
+	}
+
+	public void releaseAll() {
+		for (int i = active.size() - 1; i >= 0; --i) {
+			park(active.remove(i));
+		}
+	}
+
+	private void park(Obstacle obstacle) {
+		obstacle.tf.x = PARKING_X;
+		obstacle.tf.vx = 0;
+		free.push(obstacle);
+		ObstacleEvent record = new ObstacleEvent();
+		if (record.shouldCommit()) {
+			record.action = ObstacleEvent.DESPAWN;
+			record.passageY = obstacle.passage.y + obstacle.passage.height / 2;
+			record.active = active.size();
+			record.commit();
+		}
+	}
+
+	/**
+	 * @return the obstacles in use in creation order, which is also their order from left to right
+	 */
+	public List<Obstacle> active() {
+		return activeView;
+	}
+
+	/**
+	 * @return all obstacles created by this pool, including the free ones
+	 */
+	public List<Obstacle> all() {
+		return allView;
+	}
+}
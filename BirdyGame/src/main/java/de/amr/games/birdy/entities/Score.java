@@ -9,6 +9,7 @@ import java.util.function.Supplier;
 
 import de.amr.easy.game.assets.Assets;
 import de.amr.easy.game.entity.GameObject;
+import de.amr.games.birdy.sprites.ScaledImageCache;
 
 /**
  * Displays the game score.
@@ -17,6 +18,38 @@ import de.amr.easy.game.entity.GameObject;
  */
 public class Score extends GameObject {
 
+	/** Scaled digit images shared by all score displays. */
+	private static final ScaledImageCache DIGIT_IMAGES = new ScaledImageCache(40);
+
+	/**
+	 * Creates the scaled digit images for the given scale such that creating a score display costs no
+	 * image scaling.
+	 * 
+	 * @param scale scaling factor of the digits
+	 */
+	public static void prewarmDigitImages(float scale) {
+		for (int d = 0; d <= 9; d++) {
+			digitImage(d, scale);
+		}
+	}
+
+	/**
+	 * @param scale scaling factor of the digits
+	 * @return the scaled images of the digits 0 to 9
+	 */
+	public static Image[] digitImages(float scale) {
+		Image[] digits = new Image[10];
+		for (int d = 0; d <= 9; d++) {
+			digits[d] = digitImage(d, scale);
+		}
+		return digits;
+	}
+
+	private static BufferedImage digitImage(int digit, float scale) {
+		BufferedImage img = Assets.image("number_score_0" + digit);
+		return DIGIT_IMAGES.get(img, round(scale) * img.getWidth(), round(scale) * img.getHeight());
+	}
+
 	private final Supplier<Integer> fnPoints;
 	private final float scale;
 	private final Image[] digits;
@@ -24,21 +57,55 @@ public class Score extends GameObject {
 	public Score(Supplier<Integer> fnPoints, float scale) {
 		this.fnPoints = fnPoints;
 		this.scale = scale;
-		this.digits = new Image[10];
-		for (int d = 0; d <= 9; d++) {
-			BufferedImage img = Assets.image("number_score_0" + d);
-			digits[d] = img.getScaledInstance(-1, round(scale) * img.getHeight(), Image.SCALE_SMOOTH);
-		}
+		this.digits = digitImages(scale);
 	}
 
 	@Override
 	public void draw(Graphics2D g) {
-		String pointsText = String.format("%d", fnPoints.get());
-		tf.width = (pointsText.length() * digits[0].getWidth(null));
+		draw(g, fnPoints.get());
+	}
+
+	/**
+	 * Draws the given points instead of the current points, e.g. the points of a snapshot.
+	 * 
+	 * @param g      graphics
+	 * @param points points to draw
+	 */
+	public void draw(Graphics2D g, int points) {
+		tf.width = (numDigits(points) * digits[0].getWidth(null));
 		tf.height = (digits[0].getHeight(null));
-		for (int i = 0; i < pointsText.length(); i++) {
-			int digit = "0123456789".indexOf(pointsText.charAt(i));
-			g.drawImage(digits[digit], (int) tf.x + i * (digits[0].getWidth(null) - round(3 * scale)), (int) tf.y, null);
+		draw(g, digits, scale, points, tf.x, tf.y);
+	}
+
+	/**
+	 * Draws points without a score display, e.g. when drawing a snapshot.
+	 * 
+	 * @param g      graphics
+	 * @param digits images of the digits 0 to 9, see {@link #digitImages(float)}
+	 * @param scale  scaling factor of the digits
+	 * @param points points to draw
+	 * @param x      x-position
+	 * @param y      y-position
+	 */
+	public static void draw(Graphics2D g, Image[] digits, float scale, int points, float x, float y) {
+		int n = Math.max(points, 0);
+		int numDigits = numDigits(n), power = 1;
+		for (int i = 1; i < numDigits; i++) {
+			power *= 10;
+		}
+		for (int i = 0; i < numDigits; i++) {
+			int digit = n / power % 10;
+			power /= 10;
+			g.drawImage(digits[digit], (int) x + i * (digits[0].getWidth(null) - round(3 * scale)), (int) y, null);
+		}
+	}
+
+	private static int numDigits(int points) {
+		int n = Math.max(points, 0);
+		int numDigits = 1;
+		for (int power = 1; power <= n / 10; power *= 10) {
+			++numDigits;
 		}
+		return numDigits;
 	}
 }
\ No newline at end of file
@@ -4,11 +4,12 @@ import static de.amr.easy.game.ui.sprites.AnimationType.FORWARD_BACKWARDS;
 import static de.amr.easy.game.ui.sprites.AnimationType.CYCLIC;
 
 import java.awt.Graphics2D;
-import java.util.Random;
+import java.awt.Image;
 
 import de.amr.easy.game.entity.GameObject;
 import de.amr.easy.game.ui.sprites.Sprite;
 import de.amr.games.birdy.BirdyGameApp;
+import de.amr.games.birdy.RandomStreams.Stream;
 
 /**
  * A shining and blinking star...
@@ -21,7 +22,15 @@ public class Star extends GameObject {
 
 	public Star() {
 		sprite = Sprite.ofAssets("blink_00", "blink_01", "blink_02")
-				.animate(new Random().nextBoolean() ? FORWARD_BACKWARDS : CYCLIC, BirdyGameApp.random(300, 2000));
+				.animate(BirdyGameApp.random(Stream.STARS, 0, 1) == 0 ? FORWARD_BACKWARDS : CYCLIC,
+						BirdyGameApp.random(Stream.STARS, 300, 2000));
+	}
+
+	/**
+	 * @return current frame of the blink animation or {@code null}
+	 */
+	public Image currentFrame() {
+		return sprite.currentAnimationFrame().orElse(null);
 	}
 
 	@Override
@@ -0,0 +1,171 @@
+package de.amr.games.birdy.fsm;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import de.amr.games.birdy.perf.TransitionEvent;
+
+/**
+ * State machine running a {@link TransitionTable}.
+ * <p>
+ * Works like the state machines of the state machine library: each update processes the next
+ * enqueued event, or if there is none, the transitions without event (on timeout or condition) of
+ * the current state. The first transition whose guard is fulfilled is taken. If no transition is
+ * taken, the tick action of the current state is run and its timer counts down. Events without
+ * transition in the current state are dropped.
+ * <p>
+ * States and events are kept as ordinals and the event queue is an array which only grows, so
+ * updating the machine does not allocate. Transitions are recorded as {@link TransitionEvent flight
+ * recorder events} when these are enabled, one event instance is reused for all updates. Therefore a
+ * machine must only be updated by one thread.
+ *
+ * @param <S> state type
+ * @param <E> event type
+ *
+ * @author Armin Reichert
+ */
+public class CompiledStateMachine<S extends Enum<S>, E extends Enum<E>> {
+
+	private static final int NO_EVENT = -1;
+
+	private final TransitionTable<S, E> table;
+	private final S initialState;
+	private final String description;
+	private final TransitionEvent record = new TransitionEvent();
+	private int[] queue = new int[8];
+	private int head, size;
+	private int state = -1;
+	private long timer = -1;
+
+	/**
+	 * @param table        the transitions
+	 * @param initialState state entered by {@link #init()}
+	 * @param description  description used in traces
+	 */
+	public CompiledStateMachine(TransitionTable<S, E> table, S initialState, String description) {
+		this.table = table;
+		this.initialState = initialState;
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Clears the event queue and enters the initial state.
+	 */
+	public void init() {
+		head = size = 0;
+		enter(initialState.ordinal());
+	}
+
+	/**
+	 * @return the current state or {@code null} before {@link #init()}
+	 */
+	public S getState() {
+		return state != -1 ? table.states[state] : null;
+	}
+
+	/**
+	 * Restarts the timer of the current state.
+	 */
+	public void resetTimer() {
+		LongSupplier duration = table.timers[state];
+		timer = duration != null ? duration.getAsLong() : -1;
+	}
+
+	/**
+	 * @return remaining ticks until timeout of the current state, -1 if the state has no timer
+	 */
+	public long getRemainingTicks() {
+		return timer;
+	}
+
+	public void enqueue(E event) {
+		if (size == queue.length) {
+			int[] larger = new int[2 * queue.length];
+			for (int i = 0; i < size; ++i) {
+				larger[i] = queue[(head + i) & (queue.length - 1)];
+			}
+			queue = larger;
+			head = 0;
+		}
+		queue[(head + size) & (queue.length - 1)] = event.ordinal();
+		++size;
+	}
+
+	public void update() {
+		int event = NO_EVENT;
+		if (size > 0) {
+			event = queue[head];
+			head = (head + 1) & (queue.length - 1);
+			--size;
+		}
+		if (!record.isEnabled()) {
+			step(event);
+			return;
+		}
+		int from = state;
+		record.begin();
+		boolean fired = step(event);
+		record.end();
+		if (fired && record.shouldCommit()) {
+			record.machine = description;
+			record.from = table.states[from].name();
+			record.to = table.states[state].name();
+			record.trigger = event != NO_EVENT ? table.events[event].name() : "";
+			record.commit();
+		}
+	}
+
+	private boolean step(int event) {
+		int cell = table.cell(state, event != NO_EVENT ? event : table.events.length);
+		for (int t = table.cellStart[cell]; t < table.cellStart[cell + 1]; ++t) {
+			if (table.onTimeout[t] && timer != 0) {
+				continue;
+			}
+			BooleanSupplier guard = table.guards[t];
+			if (guard == null || guard.getAsBoolean()) {
+				fire(t, event);
+				return true;
+			}
+		}
+		Runnable tick = table.tickActions[state];
+		if (tick != null) {
+			tick.run();
+		}
+		if (timer > 0) {
+			--timer;
+		}
+		return false;
+	}
+
+	private void fire(int t, int event) {
+		Consumer<E> action = table.actions[t];
+		if (table.internal[t]) {
+			if (action != null) {
+				action.accept(event != NO_EVENT ? table.events[event] : null);
+			}
+			return;
+		}
+		Runnable exit = table.exitActions[state];
+		if (exit != null) {
+			exit.run();
+		}
+		if (action != null) {
+			action.accept(event != NO_EVENT ? table.events[event] : null);
+		}
+		enter(table.target[t]);
+	}
+
+	private void enter(int s) {
+		state = s;
+		resetTimer();
+		Runnable entry = table.entryActions[s];
+		if (entry != null) {
+			entry.run();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package de.amr.games.birdy.fsm;
+
+import de.amr.games.birdy.perf.CollisionEvent;
+
+/**
+ * Queue of the events raised during a simulation tick, e.g. by collision detection, before they are
+ * passed to the state machines.
+ * <p>
+ * Each event is stored as a primitive record of tick, event ordinal and the id of the source entity
+ * in parallel arrays used as ring buffer. The arrays are preallocated and only grow if more events
+ * are pending than fit, so adding and draining events does not allocate. All events pass
+ * {@link #drain(Handler)} in the order they were added, which makes it the place where they are
+ * traced: each drained event is recorded as {@link CollisionEvent flight recorder event} when these
+ * are enabled, one event instance is reused for all of them.
+ * <p>
+ * The ring is used by the simulation only: events are added and drained on the thread running the
+ * ticks. It has no locks and no memory ordering, so it is not thread-safe and must not be shared
+ * between threads.
+ *
+ * @param <E> event type
+ *
+ * @author Armin Reichert
+ */
+public class EventRing<E extends Enum<E>> {
+
+	/**
+	 * Receives the drained events. The tick and the source of an event are only recorded in its
+	 * trace.
+	 *
+	 * @param <E> event type
+	 */
+	@FunctionalInterface
+	public interface Handler<E> {
+
+		/**
+		 * @param event the event
+		 */
+		void handle(E event);
+	}
+
+	private final E[] eventTypes;
+	private final CollisionEvent record = new CollisionEvent();
+	private long[] ticks;
+	private int[] events;
+	private int[] sources;
+	private int head, size;
+
+	/**
+	 * @param eventType event enum
+	 * @param capacity  initial capacity, rounded up to a power of two
+	 */
+	public EventRing(Class<E> eventType, int capacity) {
+		eventTypes = eventType.getEnumConstants();
+		int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		ticks = new long[n];
+		events = new int[n];
+		sources = new int[n];
+	}
+
+	/**
+	 * @param tick   current simulation tick
+	 * @param event  the event
+	 * @param source id of the source entity
+	 */
+	public void add(long tick, E event, int source) {
+		if (size == events.length) {
+			grow();
+		}
+		int i = (head + size) & (events.length - 1);
+		ticks[i] = tick;
+		events[i] = event.ordinal();
+		sources[i] = source;
+		++size;
+	}
+
+	/**
+	 * Passes all pending events to the handler in the order they were added and removes them. Events
+	 * added by the handler are drained in the same pass.
+	 *
+	 * @param handler receives the events
+	 */
+	public void drain(Handler<? super E> handler) {
+		while (size > 0) {
+			int i = head;
+			head = (head + 1) & (events.length - 1);
+			--size;
+			long tick = ticks[i];
+			E event = eventTypes[events[i]];
+			int source = sources[i];
+			record.begin();
+			handler.handle(event);
+			if (record.shouldCommit()) {
+				record.tick = tick;
+				record.event = event.name();
+				record.source = source;
+				record.commit();
+			}
+		}
+	}
+
+	/**
+	 * @return number of pending events
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all pending events.
+	 */
+	public void clear() {
+		head = size = 0;
+	}
+
+	private void grow() {
+		int n = events.length;
+		long[] newTicks = new long[2 * n];
+		int[] newEvents = new int[2 * n];
+		int[] newSources = new int[2 * n];
+		for (int k = 0; k < size; ++k) {
+			int i = (head + k) & (n - 1);
+			newTicks[k] = ticks[i];
+			newEvents[k] = events[i];
+			newSources[k] = sources[i];
+		}
+		ticks = newTicks;
+		events = newEvents;
+		sources = newSources;
+		head = 0;
+	}
+}
@@ -0,0 +1,269 @@
+package de.amr.games.birdy.fsm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * The frozen definition of a state machine with enum states and enum events.
+ * <p>
+ * The transitions are stored in a dense table indexed by state and event ordinal. Each cell holds
+ * the candidate transitions for the state and the event in definition order, the extra column at
+ * index {@code events.length} holds the transitions taken without an event (on timeout or
+ * condition). Guards, actions and state actions are kept in arrays, so finding the transition for
+ * an event is an array access and the evaluation of the guards of this cell.
+ * <p>
+ * Tables are created with the builder returned by {@link #define(Class, Class)}:
+ *
+ * <pre>
+ * TransitionTable.define(HealthState.class, BirdEvent.class)
+ * 	.state(INJURED).onEntry(() -&gt; sprites.select("s_red")).timeoutAfter(60)
+ * 	.when(SANE).then(INJURED).on(TOUCHED_PIPE)
+ * 	.when(INJURED).then(SANE).onTimeout()
+ * 	.build();
+ * </pre>
+ *
+ * @param <S> state type
+ * @param <E> event type
+ *
+ * @author Armin Reichert
+ */
+public final class TransitionTable<S extends Enum<S>, E extends Enum<E>> {
+
+	final S[] states;
+	final E[] events;
+	final int columns;
+
+	final Runnable[] entryActions, exitActions, tickActions;
+	final LongSupplier[] timers;
+
+	/* candidates of cell c are transitions cellStart[c] .. cellStart[c + 1] - 1 */
+	final int[] cellStart;
+	final int[] target;
+	final boolean[] internal;
+	final boolean[] onTimeout;
+	final BooleanSupplier[] guards;
+	final Consumer<E>[] actions;
+
+	private TransitionTable(Builder<S, E> b) {
+		states = b.states;
+		events = b.events;
+		columns = events.length + 1;
+		entryActions = b.entryActions.clone();
+		exitActions = b.exitActions.clone();
+		tickActions = b.tickActions.clone();
+		timers = b.timers.clone();
+
+		List<TransitionDef<E>> defs = b.transitions;
+		int cells = states.length * columns;
+		cellStart = new int[cells + 1];
+		for (TransitionDef<E> def : defs) {
+			cellStart[def.cell + 1]++;
+		}
+		for (int c = 0; c < cells; ++c) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		int n = defs.size();
+		target = new int[n];
+		internal = new boolean[n];
+		onTimeout = new boolean[n];
+		guards = new BooleanSupplier[n];
+		@SuppressWarnings("unchecked")
+		Consumer<E>[] actionArray = new Consumer[n];
+		actions = actionArray;
+		int[] fill = cellStart.clone();
+		for (TransitionDef<E> def : defs) {
+			int t = fill[def.cell]++;
+			target[t] = def.to;
+			internal[t] = def.internal;
+			onTimeout[t] = def.onTimeout;
+			guards[t] = def.guard;
+			actions[t] = def.action;
+		}
+	}
+
+	int cell(int state, int event) {
+		return state * columns + event;
+	}
+
+	/**
+	 * @param stateType state enum
+	 * @param eventType event enum
+	 * @return builder for a table with these states and events
+	 */
+	public static <S extends Enum<S>, E extends Enum<E>> Builder<S, E> define(Class<S> stateType, Class<E> eventType) {
+		return new Builder<>(stateType, eventType);
+	}
+
+	private static class TransitionDef<E> {
+
+		int cell;
+		int to;
+		boolean internal;
+		boolean onTimeout;
+		BooleanSupplier guard;
+		Consumer<E> action;
+	}
+
+	/**
+	 * Collects state actions and transitions. A transition is started with {@link #when(Enum)} or
+	 * {@link #stay(Enum)} and ends when the next transition or state is started.
+	 *
+	 * @param <S> state type
+	 * @param <E> event type
+	 */
+	public static final class Builder<S extends Enum<S>, E extends Enum<E>> {
+
+		private final S[] states;
+		private final E[] events;
+		private final Runnable[] entryActions, exitActions, tickActions;
+		private final LongSupplier[] timers;
+		private final List<TransitionDef<E>> transitions = new ArrayList<>();
+		private int state = -1;
+		private TransitionDef<E> transition;
+		private int from = -1, event = -1;
+
+		private Builder(Class<S> stateType, Class<E> eventType) {
+			states = stateType.getEnumConstants();
+			events = eventType.getEnumConstants();
+			entryActions = new Runnable[states.length];
+			exitActions = new Runnable[states.length];
+			tickActions = new Runnable[states.length];
+			timers = new LongSupplier[states.length];
+		}
+
+		public Builder<S, E> state(S s) {
+			endTransition();
+			state = s.ordinal();
+			return this;
+		}
+
+		public Builder<S, E> onEntry(Runnable action) {
+			entryActions[currentState()] = action;
+			return this;
+		}
+
+		public Builder<S, E> onExit(Runnable action) {
+			exitActions[currentState()] = action;
+			return this;
+		}
+
+		public Builder<S, E> onTick(Runnable action) {
+			tickActions[currentState()] = action;
+			return this;
+		}
+
+		/**
+		 * @param ticks supplies the timer duration in ticks when the state is entered
+		 * @return this builder
+		 */
+		public Builder<S, E> timeoutAfter(LongSupplier ticks) {
+			timers[currentState()] = ticks;
+			return this;
+		}
+
+		public Builder<S, E> timeoutAfter(long ticks) {
+			return timeoutAfter(() -> ticks);
+		}
+
+		/**
+		 * Starts a transition which exits the source state and enters the target state, also if both are
+		 * the same.
+		 *
+		 * @param s source state
+		 * @return this builder
+		 */
+		public Builder<S, E> when(S s) {
+			endTransition();
+			state = -1;
+			transition = new TransitionDef<>();
+			from = s.ordinal();
+			transition.to = -1;
+			return this;
+		}
+
+		public Builder<S, E> then(S s) {
+			currentTransition().to = s.ordinal();
+			return this;
+		}
+
+		/**
+		 * Starts a transition which stays in the given state without exiting and entering it.
+		 *
+		 * @param s the state
+		 * @return this builder
+		 */
+		public Builder<S, E> stay(S s) {
+			when(s);
+			transition.to = s.ordinal();
+			transition.internal = true;
+			return this;
+		}
+
+		public Builder<S, E> on(E e) {
+			currentTransition();
+			event = e.ordinal();
+			return this;
+		}
+
+		public Builder<S, E> onTimeout() {
+			currentTransition().onTimeout = true;
+			return this;
+		}
+
+		public Builder<S, E> condition(BooleanSupplier guard) {
+			currentTransition().guard = guard;
+			return this;
+		}
+
+		public Builder<S, E> act(Consumer<E> action) {
+			currentTransition().action = action;
+			return this;
+		}
+
+		public Builder<S, E> act(Runnable action) {
+			return act(e -> action.run());
+		}
+
+		/**
+		 * @return the frozen table
+		 */
+		public TransitionTable<S, E> build() {
+			endTransition();
+			return new TransitionTable<>(this);
+		}
+
+		private int currentState() {
+			if (state == -1) {
+				throw new IllegalStateException("No state selected");
+			}
+			return state;
+		}
+
+		private TransitionDef<E> currentTransition() {
+			if (transition == null) {
+				throw new IllegalStateException("No transition started");
+			}
+			return transition;
+		}
+
+		private void endTransition() {
+			if (transition == null) {
+				return;
+			}
+			if (transition.to == -1) {
+				throw new IllegalStateException("Transition from " + states[from] + " has no target state");
+			}
+			if (transition.onTimeout && event != -1) {
+				throw new IllegalStateException("Transition from " + states[from] + " has event and timeout");
+			}
+			int column = event != -1 ? event : events.length;
+			transition.cell = from * (events.length + 1) + column;
+			transitions.add(transition);
+			transition = null;
+			from = event = -1;
+		}
+	}
+}
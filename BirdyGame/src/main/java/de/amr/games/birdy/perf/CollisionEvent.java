@@ -0,0 +1,30 @@
+package de.amr.games.birdy.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a collision reported to the game. The duration is the duration of
+ * dispatching the collision event to the state machines.
+ *
+ * @author Armin Reichert
+ */
+@Name("de.amr.games.birdy.Collision")
+@Label("Collision")
+@Category("Birdy")
+@Description("Collision reported by the collision handler or by the obstacles")
+public class CollisionEvent extends Event {
+
+	@Label("Tick")
+	public long tick;
+
+	@Label("Event")
+	public String event;
+
+	@Label("Source")
+	@Description("Entity id of the source, negative for obstacles")
+	public int source;
+}
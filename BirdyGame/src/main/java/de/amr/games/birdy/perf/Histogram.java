@@ -0,0 +1,126 @@
+package de.amr.games.birdy.perf;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative values (e.g. durations in nanoseconds) with logarithmic buckets.
+ * <p>
+ * Each power of two is divided into 8 buckets, so a value is known with a relative error of at most
+ * 12.5%. The bucket array has a fixed size and recording a value is an array increment, there is no
+ * allocation per value. A histogram is filled by one thread, other threads reading it see
+ * approximate values.
+ *
+ * @author Armin Reichert
+ */
+public class Histogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		return ((exponent - SUB_BITS + 1) << SUB_BITS) + (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+	}
+
+	static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+		return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BITS);
+	}
+
+	static long upperBound(int bucket) {
+		return bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+	}
+
+	private final long[] counts;
+	private long count;
+	private long max;
+
+	public Histogram() {
+		counts = new long[BUCKETS];
+	}
+
+	private Histogram(Histogram other) {
+		counts = other.counts.clone();
+		count = other.count;
+		max = other.max;
+	}
+
+	/**
+	 * @param value value, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[bucket(value)]++;
+		count++;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		max = 0;
+	}
+
+	/**
+	 * @return a copy of this histogram
+	 */
+	public Histogram copy() {
+		return new Histogram(this);
+	}
+
+	public long count() {
+		return count;
+	}
+
+	public long max() {
+		return max;
+	}
+
+	/**
+	 * @param fraction fraction from 0 to 1, e.g. 0.99
+	 * @return the upper bound of the bucket containing the given percentile, at most the maximum
+	 *         value, 0 if nothing is recorded
+	 */
+	public long percentile(double fraction) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; ++i) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @param action called for each non-empty bucket with its bounds and count
+	 */
+	public void forEachBucket(BucketAction action) {
+		for (int i = 0; i < counts.length; ++i) {
+			if (counts[i] > 0) {
+				action.accept(lowerBound(i), upperBound(i), counts[i]);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface BucketAction {
+
+		void accept(long lowerBound, long upperBound, long count);
+	}
+}
@@ -0,0 +1,31 @@
+package de.amr.games.birdy.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for an obstacle taken from or returned to the obstacle pool.
+ *
+ * @author Armin Reichert
+ */
+@Name("de.amr.games.birdy.Obstacle")
+@Label("Obstacle")
+@Category("Birdy")
+public class ObstacleEvent extends Event {
+
+	public static final String SPAWN = "spawn", DESPAWN = "despawn";
+
+	@Label("Action")
+	public String action;
+
+	@Label("Passage Y")
+	public int passageY;
+
+	@Label("Active Obstacles")
+	public int active;
+
+	@Label("Created")
+	public boolean created;
+}
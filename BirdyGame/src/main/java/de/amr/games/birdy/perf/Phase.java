@@ -0,0 +1,31 @@
+package de.amr.games.birdy.perf;
+
+/**
+ * The timed phases of a simulation tick and of drawing a frame.
+ *
+ * @author Armin Reichert
+ */
+public enum Phase {
+
+	TICK("tick"),
+	COLLISIONS("collisions"),
+	ENTITIES("entities"),
+	OBSTACLES("obstacles"),
+	STATE_MACHINE("state machine"),
+	DRAW("draw"),
+	DRAW_CITY("draw city"),
+	DRAW_OBSTACLES("draw obstacles"),
+	DRAW_GROUND("draw ground"),
+	DRAW_SCORE("draw score"),
+	DRAW_BIRD("draw bird");
+
+	private final String label;
+
+	private Phase(String label) {
+		this.label = label;
+	}
+
+	public String label() {
+		return label;
+	}
+}
@@ -0,0 +1,167 @@
+package de.amr.games.birdy.perf;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations of the phases of the simulation ticks and of drawing, in nanoseconds.
+ * <p>
+ * A phase is timed by passing the start time to {@link #lap(Phase, long)} which records the time
+ * since then and returns the current time as the start time of the next phase:
+ *
+ * <pre>
+ * long t = System.nanoTime();
+ * city.draw(g);
+ * t = times.lap(Phase.DRAW_CITY, t);
+ * ground.draw(g);
+ * t = times.lap(Phase.DRAW_GROUND, t);
+ * </pre>
+ *
+ * Each phase has its own histogram, so phases may be timed on different threads, e.g. ticks on the
+ * simulation thread and drawing on the application thread. A histogram is only changed by the thread
+ * timing its phase: {@link #reset()} only starts a new generation, the histogram of a phase is
+ * cleared by the next {@link #lap(Phase, long)} of the phase. Until then, the phase counts as not
+ * timed.
+ *
+ * @author Armin Reichert
+ */
+public class PhaseTimes {
+
+	private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+	private static final int LINE_HEIGHT = 11;
+	private static final long TEXT_REFRESH_NANOS = 500_000_000L;
+	private static final Phase[] PHASES = Phase.values();
+
+	private static final Histogram EMPTY = new Histogram();
+
+	private final Histogram[] histograms = new Histogram[PHASES.length];
+	private final AtomicLongArray generations = new AtomicLongArray(PHASES.length);
+	private volatile long generation;
+	private final String[] lines = new String[PHASES.length];
+	private long linesTime;
+	private boolean linesValid;
+
+	public PhaseTimes() {
+		for (int i = 0; i < histograms.length; ++i) {
+			histograms[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * Records the duration of a phase.
+	 *
+	 * @param phase phase
+	 * @param start start time of the phase as given by {@link System#nanoTime()}
+	 * @return the current time
+	 */
+	public long lap(Phase phase, long start) {
+		long now = System.nanoTime();
+		int i = phase.ordinal();
+		if (generations.get(i) != generation) {
+			histograms[i].reset();
+			generations.set(i, generation);
+		}
+		histograms[i].record(now - start);
+		return now;
+	}
+
+	/**
+	 * @param phase phase
+	 * @return the histogram of the phase, empty if the phase has not been timed since the last reset
+	 */
+	public Histogram histogram(Phase phase) {
+		int i = phase.ordinal();
+		return generations.get(i) == generation ? histograms[i] : EMPTY;
+	}
+
+	/**
+	 * Starts measuring anew. The histograms are cleared by the threads timing the phases.
+	 */
+	public void reset() {
+		++generation;
+		linesValid = false;
+	}
+
+	/**
+	 * Draws the median, the 99th percentile and the maximum of each timed phase, one line per phase.
+	 * The text is updated twice a second, in the frames between, drawing does not allocate.
+	 *
+	 * @param g      graphics
+	 * @param x      left x-position
+	 * @param bottom y-position of the last line
+	 */
+	public void draw(Graphics2D g, int x, int bottom) {
+		long now = System.nanoTime();
+		if (!linesValid || now - linesTime >= TEXT_REFRESH_NANOS) {
+			updateLines();
+			linesTime = now;
+			linesValid = true;
+		}
+		g.setFont(FONT);
+		g.setColor(Color.WHITE);
+		int y = bottom;
+		for (int i = lines.length - 1; i >= 0; --i) {
+			if (lines[i] != null) {
+				g.drawString(lines[i], x, y);
+				y -= LINE_HEIGHT;
+			}
+		}
+	}
+
+	private void updateLines() {
+		for (int i = 0; i < PHASES.length; ++i) {
+			Histogram histogram = histogram(PHASES[i]);
+			lines[i] = histogram.count() == 0 ? null
+					: String.format("%-15s p50 %8s  p99 %8s  max %8s", PHASES[i].label(),
+							duration(histogram.percentile(0.5)), duration(histogram.percentile(0.99)), duration(histogram.max()));
+		}
+	}
+
+	/**
+	 * Writes the current histograms to a text file without blocking the caller. The histograms are
+	 * copied before this method returns.
+	 *
+	 * @param path file path
+	 * @return future completed when the file is written
+	 */
+	public CompletableFuture<Path> writeAsync(Path path) {
+		Phase[] phases = Phase.values();
+		Histogram[] copies = new Histogram[phases.length];
+		for (int i = 0; i < phases.length; ++i) {
+			copies[i] = histogram(phases[i]).copy();
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			StringWriter text = new StringWriter();
+			PrintWriter out = new PrintWriter(text);
+			for (int i = 0; i < phases.length; ++i) {
+				Histogram h = copies[i];
+				out.printf("%s: count %d, p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns%n", phases[i].label(),
+						h.count(), h.percentile(0.5), h.percentile(0.9), h.percentile(0.99), h.percentile(0.999), h.max());
+				h.forEachBucket((lower, upper, count) -> out.printf("  %12d .. %12d ns: %d%n", lower, upper, count));
+			}
+			out.flush();
+			try {
+				return Files.writeString(path, text.toString(), StandardCharsets.UTF_8);
+			} catch (IOException x) {
+				throw new UncheckedIOException(x);
+			}
+		});
+	}
+
+	private static String duration(long nanos) {
+		if (nanos < 1_000_000) {
+			return String.format("%.1f us", nanos / 1e3);
+		}
+		return String.format("%.2f ms", nanos / 1e6);
+	}
+}
@@ -0,0 +1,24 @@
+package de.amr.games.birdy.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a scene change. The duration includes the initialization of the new
+ * scene.
+ *
+ * @author Armin Reichert
+ */
+@Name("de.amr.games.birdy.SceneChange")
+@Label("Scene Change")
+@Category("Birdy")
+public class SceneChangeEvent extends Event {
+
+	@Label("From")
+	public String from;
+
+	@Label("To")
+	public String to;
+}
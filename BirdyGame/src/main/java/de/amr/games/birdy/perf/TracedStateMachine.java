@@ -0,0 +1,61 @@
+package de.amr.games.birdy.perf;
+
+import java.util.ArrayDeque;
+
+import de.amr.statemachine.api.TransitionMatchStrategy;
+import de.amr.statemachine.core.StateMachine;
+
+/**
+ * State machine which records its state changes as {@link TransitionEvent flight recorder events}.
+ * <p>
+ * The state before and after each update is compared. The enqueued events are mirrored in a queue of
+ * their own, so the event processed in an update is known. If the transition event is not enabled,
+ * an update costs an additional queue poll only. One event instance is reused for all updates.
+ *
+ * @param <S> state type
+ * @param <E> event type
+ *
+ * @author Armin Reichert
+ */
+public class TracedStateMachine<S, E> extends StateMachine<S, E> {
+
+	private final ArrayDeque<E> triggers = new ArrayDeque<>();
+	private final TransitionEvent record = new TransitionEvent();
+
+	public TracedStateMachine(Class<S> stateType, TransitionMatchStrategy matchStrategy) {
+		super(stateType, matchStrategy);
+	}
+
+	@Override
+	public void init() {
+		triggers.clear();
+		super.init();
+	}
+
+	@Override
+	public void enqueue(E event) {
+		triggers.add(event);
+		super.enqueue(event);
+	}
+
+	@Override
+	public void update() {
+		E trigger = triggers.poll();
+		if (!record.isEnabled()) {
+			super.update();
+			return;
+		}
+		S from = getState();
+		record.begin();
+		super.update();
+		record.end();
+		S to = getState();
+		if (to != from && record.shouldCommit()) {
+			record.machine = getDescription();
+			record.from = String.valueOf(from);
+			record.to = String.valueOf(to);
+			record.trigger = trigger != null ? trigger.toString() : "";
+			record.commit();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package de.amr.games.birdy.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a state change of a state machine. The duration is the duration of the
+ * update which changed the state.
+ *
+ * @author Armin Reichert
+ */
+@Name("de.amr.games.birdy.Transition")
+@Label("State Transition")
+@Category("Birdy")
+@Description("State change of a state machine of the game")
+public class TransitionEvent extends Event {
+
+	@Label("State Machine")
+	public String machine;
+
+	@Label("From")
+	public String from;
+
+	@Label("To")
+	public String to;
+
+	@Label("Trigger")
+	@Description("Event processed in the update, empty for transitions on timeout or condition")
+	public String trigger;
+}
@@ -0,0 +1,48 @@
+package de.amr.games.birdy.replay;
+
+import java.util.Arrays;
+
+/**
+ * Records the jump key state of a game tick by tick. Only changes of the key state are stored.
+ * 
+ * @author Armin Reichert
+ */
+public class InputRecorder {
+
+	private final long seed;
+	private final float birdX, birdY, birdVY;
+	private int[] toggleTicks = new int[64];
+	private int toggleCount;
+	private boolean keyDown;
+
+	public InputRecorder(long seed, float birdX, float birdY, float birdVY) {
+		this.seed = seed;
+		this.birdX = birdX;
+		this.birdY = birdY;
+		this.birdVY = birdVY;
+	}
+
+	/**
+	 * @param tick    current tick, ticks must be recorded in ascending order
+	 * @param keyDown if the jump key is down
+	 * @return the given key state
+	 */
+	public boolean record(long tick, boolean keyDown) {
+		if (keyDown != this.keyDown) {
+			if (toggleCount == toggleTicks.length) {
+				toggleTicks = Arrays.copyOf(toggleTicks, 2 * toggleCount);
+			}
+			toggleTicks[toggleCount++] = (int) tick;
+			this.keyDown = keyDown;
+		}
+		return keyDown;
+	}
+
+	/**
+	 * @param length number of played ticks
+	 * @return the recording
+	 */
+	public Recording finish(long length) {
+		return new Recording(seed, birdX, birdY, birdVY, (int) length, Arrays.copyOf(toggleTicks, toggleCount));
+	}
+}
@@ -0,0 +1,74 @@
+package de.amr.games.birdy.replay;
+
+import java.util.Arrays;
+
+/**
+ * Recorded input of one game.
+ * <p>
+ * Together with the random seed and the start position and speed of the bird, the ticks where the
+ * jump key was pressed or released are sufficient to replay a game exactly.
+ * 
+ * @author Armin Reichert
+ */
+public class Recording {
+
+	private final long seed;
+	private final float birdX, birdY, birdVY;
+	private final int length;
+	private final int[] toggleTicks;
+
+	/**
+	 * @param seed        random seed of the game
+	 * @param birdX       start x-position of the bird
+	 * @param birdY       start y-position of the bird
+	 * @param birdVY      start vertical speed of the bird
+	 * @param length      number of recorded ticks
+	 * @param toggleTicks ascending ticks at which the jump key state changed, the key is up at start
+	 */
+	public Recording(long seed, float birdX, float birdY, float birdVY, int length, int[] toggleTicks) {
+		this.seed = seed;
+		this.birdX = birdX;
+		this.birdY = birdY;
+		this.birdVY = birdVY;
+		this.length = length;
+		this.toggleTicks = toggleTicks;
+	}
+
+	/**
+	 * @param tick a tick
+	 * @return if the jump key was down at the given tick
+	 */
+	public boolean isJumpKeyDown(long tick) {
+		int index = Arrays.binarySearch(toggleTicks, (int) Math.min(tick, Integer.MAX_VALUE));
+		int togglesUpToTick = index >= 0 ? index + 1 : -index - 1;
+		return togglesUpToTick % 2 == 1;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public float getBirdX() {
+		return birdX;
+	}
+
+	public float getBirdY() {
+		return birdY;
+	}
+
+	public float getBirdVY() {
+		return birdVY;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getToggleCount() {
+		return toggleTicks.length;
+	}
+
+	public int getToggleTick(int i) {
+		return toggleTicks[i];
+	}
+}
@@ -0,0 +1,175 @@
+package de.amr.games.birdy.replay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads and writes recordings in a compact binary format:
+ * 
+ * <pre>
+ * int   magic "BRDY"
+ * byte  format version
+ * long  random seed
+ * float bird x, bird y, bird vertical speed
+ * int   number of ticks
+ * int   number of key toggles
+ * then for each toggle the distance to the previous toggle as unsigned variable-length integer
+ * </pre>
+ * 
+ * Writing is asynchronous so the game loop is not blocked.
+ * 
+ * @author Armin Reichert
+ */
+public class RecordingFiles {
+
+	public static final String EXTENSION = ".bdr";
+
+	private static final int MAGIC = 0x42524459;
+	private static final byte VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 1 + 8 + 3 * 4 + 4 + 4;
+
+	/**
+	 * @param recording recording
+	 * @return encoded recording, ready for reading
+	 */
+	public static ByteBuffer encode(Recording recording) {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 5 * recording.getToggleCount());
+		buffer.putInt(MAGIC);
+		buffer.put(VERSION);
+		buffer.putLong(recording.getSeed());
+		buffer.putFloat(recording.getBirdX());
+		buffer.putFloat(recording.getBirdY());
+		buffer.putFloat(recording.getBirdVY());
+		buffer.putInt(recording.getLength());
+		buffer.putInt(recording.getToggleCount());
+		int previous = 0;
+		for (int i = 0; i < recording.getToggleCount(); ++i) {
+			int tick = recording.getToggleTick(i);
+			putVarInt(buffer, tick - previous);
+			previous = tick;
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * @param buffer buffer containing an encoded recording
+	 * @return the decoded recording
+	 */
+	public static Recording decode(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC) {
+			throw new IllegalArgumentException("Not a Birdy recording");
+		}
+		byte version = buffer.get();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported recording version " + version);
+		}
+		long seed = buffer.getLong();
+		float birdX = buffer.getFloat(), birdY = buffer.getFloat(), birdVY = buffer.getFloat();
+		int length = buffer.getInt();
+		int[] toggleTicks = new int[buffer.getInt()];
+		int tick = 0;
+		for (int i = 0; i < toggleTicks.length; ++i) {
+			tick += getVarInt(buffer);
+			toggleTicks[i] = tick;
+		}
+		return new Recording(seed, birdX, birdY, birdVY, length, toggleTicks);
+	}
+
+	/**
+	 * Reads a recording from the given file.
+	 * 
+	 * @param path file path
+	 * @return the recording
+	 */
+	public static Recording read(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					throw new EOFException("Recording file " + path + " ended before its size was read");
+				}
+			}
+			return decode(buffer.flip());
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	/**
+	 * Writes the recording to the given file without blocking the caller.
+	 * 
+	 * @param recording recording
+	 * @param path      file path
+	 * @return future completed when the file is written
+	 */
+	public static CompletableFuture<Path> writeAsync(Recording recording, Path path) {
+		CompletableFuture<Path> result = new CompletableFuture<>();
+		ByteBuffer buffer = encode(recording);
+		AsynchronousFileChannel channel;
+		try {
+			channel = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException x) {
+			result.completeExceptionally(x);
+			return result;
+		}
+		channel.write(buffer, 0, buffer, new CompletionHandler<Integer, ByteBuffer>() {
+
+			private long position;
+
+			@Override
+			public void completed(Integer written, ByteBuffer buf) {
+				position += written;
+				if (buf.hasRemaining()) {
+					channel.write(buf, position, buf, this);
+				} else {
+					close();
+					result.complete(path);
+				}
+			}
+
+			@Override
+			public void failed(Throwable x, ByteBuffer buf) {
+				close();
+				result.completeExceptionally(x);
+			}
+
+			private void close() {
+				try {
+					channel.close();
+				} catch (IOException x) {
+					result.completeExceptionally(x);
+				}
+			}
+		});
+		return result;
+	}
+
+	private static void putVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static int getVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed variable-length integer");
+	}
+}
@@ -0,0 +1,38 @@
+package de.amr.games.birdy.replay;
+
+import de.amr.games.birdy.sim.HeadlessGame;
+import de.amr.games.birdy.sim.InputSource;
+
+/**
+ * Input source for the headless game which records the input of another input source.
+ * 
+ * @author Armin Reichert
+ */
+public class RecordingInputSource implements InputSource {
+
+	private final InputSource input;
+	private InputRecorder recorder;
+
+	public RecordingInputSource(InputSource input) {
+		this.input = input;
+	}
+
+	@Override
+	public boolean jumpKeyDown(HeadlessGame game) {
+		if (recorder == null) {
+			recorder = new InputRecorder(game.getSeed(), game.getBird().x, game.getBird().y, game.getBird().vy);
+		}
+		return recorder.record(game.getTick(), input.jumpKeyDown(game));
+	}
+
+	/**
+	 * @param game the recorded game
+	 * @return the recording of the game so far
+	 */
+	public Recording finish(HeadlessGame game) {
+		if (recorder == null) {
+			recorder = new InputRecorder(game.getSeed(), game.getBird().x, game.getBird().y, game.getBird().vy);
+		}
+		return recorder.finish(game.getTick());
+	}
+}
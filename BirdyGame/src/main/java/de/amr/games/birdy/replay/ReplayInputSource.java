@@ -0,0 +1,23 @@
+package de.amr.games.birdy.replay;
+
+import de.amr.games.birdy.sim.HeadlessGame;
+import de.amr.games.birdy.sim.InputSource;
+
+/**
+ * Input source for the headless game which replays a recording.
+ * 
+ * @author Armin Reichert
+ */
+public class ReplayInputSource implements InputSource {
+
+	private final Recording recording;
+
+	public ReplayInputSource(Recording recording) {
+		this.recording = recording;
+	}
+
+	@Override
+	public boolean jumpKeyDown(HeadlessGame game) {
+		return recording.isJumpKeyDown(game.getTick());
+	}
+}
@@ -0,0 +1,71 @@
+package de.amr.games.birdy.scenes;
+
+/**
+ * Accumulates the real time between frames and tells how many simulation ticks of fixed length
+ * have to be run in the current frame. This keeps the game speed independent from the frame rate:
+ * after a slow frame, several ticks are run to catch up, if frames are faster than ticks, some
+ * frames run no tick at all and are drawn interpolated.
+ * 
+ * @author Armin Reichert
+ */
+public class FixedTimestep {
+
+	private final long tickNanos;
+	private final int maxTicksPerFrame;
+	private long lastTime;
+	private long accumulator;
+	private boolean started;
+
+	/**
+	 * @param ticksPerSecond   simulation ticks per second
+	 * @param maxTicksPerFrame maximum number of ticks run in one frame, time beyond is dropped
+	 */
+	public FixedTimestep(int ticksPerSecond, int maxTicksPerFrame) {
+		this.tickNanos = 1_000_000_000L / ticksPerSecond;
+		this.maxTicksPerFrame = maxTicksPerFrame;
+	}
+
+	/**
+	 * Restarts the time measurement, e.g. when a scene is entered.
+	 */
+	public void reset() {
+		started = false;
+		accumulator = 0;
+	}
+
+	/**
+	 * Adds the time since the last call to the accumulated time.
+	 * 
+	 * @return number of ticks to run in the current frame
+	 */
+	public int advance() {
+		long now = System.nanoTime();
+		if (!started) {
+			started = true;
+			lastTime = now;
+			return 1;
+		}
+		accumulator += now - lastTime;
+		lastTime = now;
+		int ticks = (int) Math.min(accumulator / tickNanos, maxTicksPerFrame);
+		accumulator = Math.min(accumulator - ticks * tickNanos, tickNanos);
+		return ticks;
+	}
+
+	/**
+	 * @return fraction of the time between the last and the next tick, from 0 to 1
+	 */
+	public float alpha() {
+		return Math.min(1f, (float) accumulator / tickNanos);
+	}
+
+	/**
+	 * Used when the ticks run on another thread.
+	 * 
+	 * @param tickTime time of the last tick in nanoseconds
+	 * @return fraction of the time between the last and the next tick, from 0 to 1
+	 */
+	public float alphaSince(long tickTime) {
+		return Math.max(0f, Math.min(1f, (float) (System.nanoTime() - tickTime) / tickNanos));
+	}
+}
@@ -0,0 +1,93 @@
+package de.amr.games.birdy.scenes;
+
+import java.awt.event.KeyEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import de.amr.easy.game.input.Keyboard;
+import de.amr.games.birdy.BirdyGameApp;
+import de.amr.games.birdy.entities.City.DayEvent;
+
+/**
+ * Keyboard input of a scene, polled once per frame and consumed by the next simulation tick.
+ * <p>
+ * A frame can run no tick or several ticks. Polling a key press inside the ticks would lose it in a
+ * frame without ticks and report it again to each tick of a frame with several ticks. Therefore the
+ * keyboard is polled in the update of the scene, the key presses are latched until the next tick
+ * takes them with {@link #beginTick()}. The jump key counts as down in a tick if it is down or has
+ * been down since the previous tick. The latches are atomic, so the ticks can run on another thread
+ * than the update and never read the keyboard themselves.
+ *
+ * @author Armin Reichert
+ */
+class FrameInput {
+
+	private volatile boolean jumpKeyDown;
+	private final AtomicBoolean jumpKeyPressed = new AtomicBoolean();
+	private final AtomicBoolean spacePressed = new AtomicBoolean();
+	private final AtomicReference<DayEvent> dayEvent = new AtomicReference<>();
+	private boolean tickJumpKeyDown;
+	private boolean tickSpacePressed;
+	private DayEvent tickDayEvent;
+
+	/**
+	 * Polls the keyboard. Called once per frame by the application thread.
+	 */
+	void poll() {
+		jumpKeyDown = Keyboard.keyDown(BirdyGameApp.config().jumpKey);
+		if (jumpKeyDown) {
+			jumpKeyPressed.set(true);
+		}
+		if (Keyboard.keyPressedOnce(KeyEvent.VK_SPACE)) {
+			spacePressed.set(true);
+		}
+		if (Keyboard.keyPressedOnce(KeyEvent.VK_N)) {
+			dayEvent.set(DayEvent.SUNSET);
+		} else if (Keyboard.keyPressedOnce(KeyEvent.VK_D)) {
+			dayEvent.set(DayEvent.SUNRISE);
+		}
+	}
+
+	/**
+	 * Takes the key presses latched since the previous tick. Called at the start of each tick.
+	 */
+	void beginTick() {
+		tickJumpKeyDown = jumpKeyPressed.getAndSet(false) || jumpKeyDown;
+		tickSpacePressed = spacePressed.getAndSet(false);
+		tickDayEvent = dayEvent.getAndSet(null);
+	}
+
+	/**
+	 * Drops all latched key presses.
+	 */
+	void clear() {
+		jumpKeyDown = false;
+		jumpKeyPressed.set(false);
+		spacePressed.set(false);
+		dayEvent.set(null);
+		tickJumpKeyDown = false;
+		tickSpacePressed = false;
+		tickDayEvent = null;
+	}
+
+	/**
+	 * @return if the jump key is down in the current tick
+	 */
+	boolean jumpKeyDown() {
+		return tickJumpKeyDown;
+	}
+
+	/**
+	 * @return if the space key was pressed for the current tick
+	 */
+	boolean spacePressed() {
+		return tickSpacePressed;
+	}
+
+	/**
+	 * @return day time change requested for the current tick or {@code null}
+	 */
+	DayEvent dayEvent() {
+		return tickDayEvent;
+	}
+}
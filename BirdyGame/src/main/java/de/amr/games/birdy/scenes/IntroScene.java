@@ -1,9 +1,12 @@
 package de.amr.games.birdy.scenes;
 
 import static de.amr.easy.game.Application.app;
+import static de.amr.games.birdy.BirdyGameApp.config;
 import static de.amr.games.birdy.BirdyGameApp.sec;
+import static de.amr.games.birdy.audio.Sound.MUSIC;
 import static de.amr.games.birdy.scenes.IntroScene.IntroSceneState.COMPLETE;
 import static de.amr.games.birdy.scenes.IntroScene.IntroSceneState.CREDITS;
+import static de.amr.games.birdy.scenes.IntroScene.IntroSceneState.LOADING;
 import static de.amr.games.birdy.scenes.IntroScene.IntroSceneState.LOGO;
 import static de.amr.games.birdy.scenes.IntroScene.IntroSceneState.WAITING;
 
@@ -11,29 +14,33 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 
 import de.amr.easy.game.assets.Assets;
-import de.amr.easy.game.assets.SoundClip;
 import de.amr.easy.game.controller.Lifecycle;
-import de.amr.easy.game.entity.EntityMap;
 import de.amr.easy.game.ui.widgets.PumpingImageWidget;
 import de.amr.easy.game.ui.widgets.TextWidget;
 import de.amr.easy.game.view.View;
+import de.amr.games.birdy.AssetLoader;
 import de.amr.games.birdy.BirdyGameApp;
 import de.amr.games.birdy.BirdyGameApp.Scene;
 import de.amr.games.birdy.entities.City;
 import de.amr.games.birdy.entities.City.DayTime;
+import de.amr.games.birdy.entities.EntityRegistry;
+import de.amr.games.birdy.entities.EntityRegistry.Handle;
+import de.amr.games.birdy.perf.TracedStateMachine;
 import de.amr.games.birdy.scenes.IntroScene.IntroSceneState;
 import de.amr.statemachine.api.TransitionMatchStrategy;
-import de.amr.statemachine.core.StateMachine;
 
 /**
  * Intro scene. Show a scrolling text and a flashing logo before switching to the start scene.
+ * <p>
+ * The sounds are still loading while the text scrolls. The music starts as soon as it has been
+ * loaded, the logo is shown when all assets have been loaded. Until then, a progress bar is shown.
  * 
  * @author Armin Reichert
  */
-public class IntroScene extends StateMachine<IntroSceneState, Void> implements View, Lifecycle {
+public class IntroScene extends TracedStateMachine<IntroSceneState, Void> implements View, Lifecycle {
 
 	public enum IntroSceneState {
-		CREDITS, WAITING, LOGO, COMPLETE
+		CREDITS, WAITING, LOADING, LOGO, COMPLETE
 	}
 
 	static final String CREDITS_TEXT = String.join("\n",
@@ -45,13 +52,20 @@ public class IntroScene extends StateMachine<IntroSceneState, Void> implements V
 	/*@formatter:on*/
 	);
 
-	private EntityMap ent;
+	private EntityRegistry ent;
+	private final Handle<City> cityHandle;
 	private PumpingImageWidget flashingLogo;
 	private TextWidget scrollingText;
+	private final FixedTimestep timestep;
+	private final AssetLoader assets;
+	private boolean musicStarted;
 
-	public IntroScene(EntityMap entities) {
+	public IntroScene(EntityRegistry entities) {
 		super(IntroSceneState.class, TransitionMatchStrategy.BY_VALUE);
 		ent = entities;
+		cityHandle = ent.handle("city", City.class);
+		assets = BirdyGameApp.assets();
+		timestep = new FixedTimestep(config().ticksPerSecond, 5);
 		scrollingText = TextWidget.create().text(CREDITS_TEXT).font(Assets.font("Pacifico-Regular"))
 				.color(BirdyGameApp.getDayTime() == DayTime.NIGHT ? Color.WHITE : new Color(50, 50, 255)).build();
 		flashingLogo = PumpingImageWidget.create().image(Assets.image("title")).scale(3).build();
@@ -68,6 +82,8 @@ public class IntroScene extends StateMachine<IntroSceneState, Void> implements V
 					.state(WAITING)
 						.timeoutAfter(sec(2))
 						.onExit(() -> scrollingText.visible = false)
+
+					.state(LOADING)
 						
 					.state(LOGO)
 						.timeoutAfter(sec(4)) 
@@ -76,7 +92,8 @@ public class IntroScene extends StateMachine<IntroSceneState, Void> implements V
 						
 				.transitions()
 					.when(CREDITS).then(WAITING).condition(scrollingText::isComplete)
-					.when(WAITING).then(LOGO).onTimeout()
+					.when(WAITING).then(LOADING).onTimeout()
+					.when(LOADING).then(LOGO).condition(() -> assets.completion().isDone())
 					.when(LOGO).then(COMPLETE).onTimeout()
 				
 		.endStateMachine();
@@ -87,7 +104,7 @@ public class IntroScene extends StateMachine<IntroSceneState, Void> implements V
 	public void init() {
 		int width = app().settings().width, height = app().settings().height;
 
-		City city = ent.named("city");
+		City city = ent.get(cityHandle);
 		city.setWidth(width);
 
 		scrollingText.tf.centerHorizontally(0, width);
@@ -98,18 +115,42 @@ public class IntroScene extends StateMachine<IntroSceneState, Void> implements V
 		flashingLogo.tf.centerBoth(0, 0, width, height);
 		flashingLogo.visible = false;
 
-		SoundClip music = Assets.sound("music/bgmusic.mp3");
-		music.setVolume(0.9f);
-		music.loop();
-
+		musicStarted = false;
+		timestep.reset();
 		super.init();
 	}
 
+	@Override
+	public void update() {
+		if (!musicStarted) {
+			if (assets.sound(MUSIC).isDone()) {
+				BirdyGameApp.mixer().setVolume(MUSIC.ordinal(), 0.9f);
+				BirdyGameApp.loopSound(MUSIC);
+				musicStarted = true;
+			}
+		}
+		for (int ticks = timestep.advance(); ticks > 0; --ticks) {
+			super.update();
+		}
+	}
+
 	@Override
 	public void draw(Graphics2D g) {
-		City city = ent.named("city");
+		City city = ent.get(cityHandle);
 		city.draw(g);
 		scrollingText.draw(g);
 		flashingLogo.draw(g);
+		if (!assets.completion().isDone()) {
+			drawProgress(g);
+		}
+	}
+
+	private void drawProgress(Graphics2D g) {
+		int width = app().settings().width / 3, height = 6;
+		int x = (app().settings().width - width) / 2, y = app().settings().height - 4 * height;
+		g.setColor(Color.LIGHT_GRAY);
+		g.fillRect(x, y, width, height);
+		g.setColor(Color.WHITE);
+		g.fillRect(x, y, Math.round(assets.progress() * width), height);
 	}
 }
\ No newline at end of file
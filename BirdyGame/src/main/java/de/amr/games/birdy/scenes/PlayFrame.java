@@ -0,0 +1,77 @@
+package de.amr.games.birdy.scenes;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import de.amr.games.birdy.entities.FlightState;
+import de.amr.games.birdy.entities.HealthState;
+import de.amr.games.birdy.scenes.PlayScene.PlaySceneState;
+
+/**
+ * Snapshot of everything the play scene draws, captured after the simulation ticks. The previous
+ * and the current state of moving things are both captured such that the frame can be drawn
+ * interpolated.
+ * <p>
+ * Frames are pooled in a {@link TripleBuffer} and overwritten when reused. Once published, a frame
+ * is only read. The arrays only grow, so capturing a frame does not allocate in the steady state.
+ *
+ * @author Armin Reichert
+ */
+final class PlayFrame {
+
+	/** Time of capture in nanoseconds. */
+	long nanos;
+
+	PlaySceneState state;
+	FlightState flightState;
+	HealthState healthState;
+	int points;
+
+	Image birdImage;
+	float birdPrevX, birdPrevY, birdX, birdY;
+	double birdPrevRotation, birdRotation;
+	int birdWidth, birdHeight;
+
+	Image groundStrip;
+	float groundPrevScrollX, groundScrollX;
+	int groundTileWidth, groundY, groundWidth, groundHeight;
+
+	Image cityBackground;
+	float cityX, cityY;
+	int starCount;
+	float[] starX = new float[0], starY = new float[0];
+	Image[] starImage = new Image[0];
+
+	int obstacleCount;
+	float[] obstaclePrevX = new float[0], obstacleX = new float[0], obstacleY = new float[0];
+	Image[] hangingImage = new Image[0], standingImage = new Image[0];
+	Rectangle[] passage = new Rectangle[0];
+	boolean[] illuminated = new boolean[0];
+
+	void setStarCount(int count) {
+		starCount = count;
+		if (starX.length < count) {
+			starX = Arrays.copyOf(starX, count);
+			starY = Arrays.copyOf(starY, count);
+			starImage = Arrays.copyOf(starImage, count);
+		}
+	}
+
+	void setObstacleCount(int count) {
+		obstacleCount = count;
+		if (obstacleX.length < count) {
+			int oldLength = obstacleX.length;
+			obstaclePrevX = Arrays.copyOf(obstaclePrevX, count);
+			obstacleX = Arrays.copyOf(obstacleX, count);
+			obstacleY = Arrays.copyOf(obstacleY, count);
+			hangingImage = Arrays.copyOf(hangingImage, count);
+			standingImage = Arrays.copyOf(standingImage, count);
+			illuminated = Arrays.copyOf(illuminated, count);
+			passage = Arrays.copyOf(passage, count);
+			for (int i = oldLength; i < count; ++i) {
+				passage[i] = new Rectangle();
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package de.amr.games.birdy.scenes;
+
+import static de.amr.games.birdy.scenes.PlayScene.PlaySceneState.GAME_OVER;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.util.concurrent.ThreadLocalRandom;
+
+import de.amr.games.birdy.entities.Bird;
+import de.amr.games.birdy.entities.Ground;
+import de.amr.games.birdy.entities.Interpolated;
+import de.amr.games.birdy.entities.Obstacle;
+import de.amr.games.birdy.entities.Score;
+import de.amr.games.birdy.perf.Phase;
+import de.amr.games.birdy.perf.PhaseTimes;
+
+/**
+ * Draws a {@link PlayFrame} of the play scene, interpolated between the previous and the current
+ * state of the moving things.
+ * <p>
+ * Drawing only reads the frame and the images given here, it needs no application and no entities.
+ * So the frame path of the play scene can also be drawn into an offscreen image, see
+ * {@code FrameAllocationTest}.
+ *
+ * @author Armin Reichert
+ */
+class PlayFrameRenderer {
+
+	private Image[] digits;
+	private float scoreScale;
+	private float scoreX, scoreY;
+	private Image gameOverImage;
+	private int gameOverX, gameOverY;
+
+	/**
+	 * @param digits images of the digits 0 to 9
+	 * @param scale  scaling factor of the digits
+	 * @param x      x-position of the score
+	 * @param y      y-position of the score
+	 */
+	void setScore(Image[] digits, float scale, float x, float y) {
+		this.digits = digits;
+		this.scoreScale = scale;
+		this.scoreX = x;
+		this.scoreY = y;
+	}
+
+	/**
+	 * @param image image shown when the game is over
+	 * @param x     x-position of the image
+	 * @param y     y-position of the image
+	 */
+	void setGameOverImage(Image image, int x, int y) {
+		this.gameOverImage = image;
+		this.gameOverX = x;
+		this.gameOverY = y;
+	}
+
+	/**
+	 * @param g     graphics
+	 * @param f     the frame
+	 * @param alpha interpolation factor between the previous and the current state
+	 * @param times phase times receiving the drawing times
+	 */
+	void draw(Graphics2D g, PlayFrame f, float alpha, PhaseTimes times) {
+		long start = System.nanoTime(), t = start;
+		g.translate(f.cityX, f.cityY);
+		g.drawImage(f.cityBackground, 0, 0, null);
+		for (int i = 0; i < f.starCount; ++i) {
+			g.drawImage(f.starImage[i], (int) f.starX[i], (int) f.starY[i], null);
+		}
+		g.translate(-f.cityX, -f.cityY);
+		t = times.lap(Phase.DRAW_CITY, t);
+		for (int i = 0; i < f.obstacleCount; ++i) {
+			// the passage light flickers per frame without using the random streams of the simulation
+			int glow = f.illuminated[i] ? ThreadLocalRandom.current().nextInt(170) : -1;
+			Obstacle.draw(g, Interpolated.lerp(f.obstaclePrevX[i], f.obstacleX[i], alpha), f.obstacleY[i],
+					f.hangingImage[i], f.standingImage[i], f.passage[i], glow);
+		}
+		t = times.lap(Phase.DRAW_OBSTACLES, t);
+		float scrollX = Interpolated.lerp(f.groundPrevScrollX, f.groundScrollX, alpha);
+		Ground.drawStrip(g, f.groundStrip, f.groundTileWidth, scrollX, f.groundY, f.groundWidth, f.groundHeight);
+		t = times.lap(Phase.DRAW_GROUND, t);
+		Score.draw(g, digits, scoreScale, f.points, scoreX, scoreY);
+		t = times.lap(Phase.DRAW_SCORE, t);
+		Bird.draw(g, f.birdImage, Interpolated.lerp(f.birdPrevX, f.birdX, alpha),
+				Interpolated.lerp(f.birdPrevY, f.birdY, alpha), f.birdWidth, f.birdHeight,
+				f.birdPrevRotation + alpha * (f.birdRotation - f.birdPrevRotation));
+		times.lap(Phase.DRAW_BIRD, t);
+		if (f.state == GAME_OVER) {
+			g.drawImage(gameOverImage, gameOverX, gameOverY, null);
+		}
+		times.lap(Phase.DRAW, start);
+	}
+}
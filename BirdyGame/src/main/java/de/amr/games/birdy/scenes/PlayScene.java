@@ -1,8 +1,16 @@
 package de.amr.games.birdy.scenes;
 
 import static de.amr.easy.game.Application.app;
-import static de.amr.easy.game.assets.Assets.sound;
+import static de.amr.easy.game.Application.loginfo;
+import static de.amr.games.birdy.BirdyGameApp.changeSetting;
+import static de.amr.games.birdy.BirdyGameApp.config;
+import static de.amr.games.birdy.BirdyGameApp.playSound;
+import static de.amr.games.birdy.BirdyGameApp.stopSound;
 import static de.amr.games.birdy.BirdyGameApp.Scene.START_SCENE;
+import static de.amr.games.birdy.PlayRules.PIPE_PENALTY;
+import static de.amr.games.birdy.audio.Sound.HIT;
+import static de.amr.games.birdy.audio.Sound.MUSIC;
+import static de.amr.games.birdy.audio.Sound.POINT;
 import static de.amr.games.birdy.entities.BirdEvent.CRASHED;
 import static de.amr.games.birdy.entities.BirdEvent.LEFT_WORLD;
 import static de.amr.games.birdy.entities.BirdEvent.PASSED_OBSTACLE;
@@ -11,51 +19,103 @@ import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
 import static de.amr.games.birdy.scenes.PlayScene.PlaySceneState.GAME_OVER;
 import static de.amr.games.birdy.scenes.PlayScene.PlaySceneState.PLAYING;
 
-import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
 
 import de.amr.easy.game.assets.Assets;
 import de.amr.easy.game.controller.Lifecycle;
-import de.amr.easy.game.entity.EntityMap;
 import de.amr.easy.game.entity.collision.Collision;
+import de.amr.easy.game.entity.collision.CollisionHandler;
 import de.amr.easy.game.input.Keyboard;
-import de.amr.easy.game.ui.widgets.ImageWidget;
 import de.amr.easy.game.view.View;
 import de.amr.games.birdy.BirdyGameApp;
+import de.amr.games.birdy.PlayRules;
+import de.amr.games.birdy.entities.Area;
 import de.amr.games.birdy.entities.Bird;
 import de.amr.games.birdy.entities.BirdEvent;
 import de.amr.games.birdy.entities.City;
+import de.amr.games.birdy.entities.EntityRegistry;
+import de.amr.games.birdy.entities.EntityRegistry.Handle;
 import de.amr.games.birdy.entities.Ground;
 import de.amr.games.birdy.entities.Obstacle;
 import de.amr.games.birdy.entities.ObstacleController;
 import de.amr.games.birdy.entities.Score;
+import de.amr.games.birdy.entities.Star;
+import de.amr.games.birdy.fsm.EventRing;
+import de.amr.games.birdy.perf.Phase;
+import de.amr.games.birdy.perf.PhaseTimes;
+import de.amr.games.birdy.perf.TracedStateMachine;
+import de.amr.games.birdy.replay.InputRecorder;
+import de.amr.games.birdy.replay.Recording;
+import de.amr.games.birdy.replay.RecordingFiles;
 import de.amr.games.birdy.scenes.PlayScene.PlaySceneState;
 import de.amr.statemachine.api.TransitionMatchStrategy;
-import de.amr.statemachine.core.StateMachine;
 
 /**
  * Play scene of the game.
+ * <p>
+ * The scene is drawn from {@link PlayFrame} snapshots captured after the simulation ticks. By
+ * default, the ticks run in the update of the application. With setting "simulation-thread", they
+ * run on a separate thread at a fixed rate and publish their snapshots to the application thread
+ * which only polls the keyboard and draws the latest snapshot. The keyboard input is passed to the
+ * ticks through the atomic latches of {@link FrameInput}, the ticks never read the keyboard. The
+ * simulation thread never waits for drawing and drawing never waits for the simulation.
+ * <p>
+ * The collision events of a tick are collected in an {@link EventRing} with the id of the entity
+ * the bird collided with. After collision detection, the ring is drained in one pass which passes
+ * each event to the scene's state machine and to the bird's state machines, in the order the
+ * collisions were detected. Each machine processes at most one event per update, the scene's machine
+ * at the end of the tick.
  * 
  * @author Armin Reichert
  */
-public class PlayScene extends StateMachine<PlaySceneState, BirdEvent> implements Lifecycle, View {
+public class PlayScene extends TracedStateMachine<PlaySceneState, BirdEvent> implements Lifecycle, View {
 
 	public enum PlaySceneState {
 		STARTING, PLAYING, GAME_OVER;
 	}
 
+	private static final float SCORE_SCALE = 1.5f;
+
 	private int points;
 	private ObstacleController obstacleController;
-	private EntityMap ent;
-	private ImageWidget gameOverText;
-	private Score score;
+	private EntityRegistry ent;
+	private final Handle<Area> worldHandle;
+	private final Handle<Bird> birdHandle;
+	private final Handle<City> cityHandle;
+	private final Handle<Ground> groundHandle;
+	private final PlayFrameRenderer renderer = new PlayFrameRenderer();
+	private final StateText stateText = new StateText();
+	private final FixedTimestep timestep;
+	private long tick;
+	private final EventRing<BirdEvent> events = new EventRing<>(BirdEvent.class, 16);
+	private final EventRing.Handler<BirdEvent> dispatcher = this::dispatch;
+	private final Consumer<CollisionHandler> collisionDetection = this::addCollisionEvents;
+	private InputRecorder recorder;
+	private Recording replay;
+	private final TripleBuffer<PlayFrame> frames = new TripleBuffer<>(PlayFrame::new);
+	private SimulationThread simulation;
+	private final FrameInput input = new FrameInput();
+	private volatile boolean leaving;
 
-	public PlayScene(EntityMap entities) {
+	public PlayScene(EntityRegistry entities) {
 		super(PlaySceneState.class, TransitionMatchStrategy.BY_VALUE);
 		ent = entities;
+		worldHandle = ent.handle("world", Area.class);
+		birdHandle = ent.handle("bird", Bird.class);
+		cityHandle = ent.handle("city", City.class);
+		groundHandle = ent.handle("ground", Ground.class);
+		timestep = new FixedTimestep(config().ticksPerSecond, 5);
 		buildStateMachine();
-		obstacleController = new ObstacleController(ent);
+		obstacleController = new ObstacleController(ent,
+				(event, obstacle) -> events.add(tick, event, obstacleSource(obstacle)));
+		Score.prewarmDigitImages(SCORE_SCALE);
+		Bird.prewarmRotatedFrames();
 	}
 
 	private void buildStateMachine() {
@@ -74,18 +134,21 @@ public class PlayScene extends StateMachine<PlaySceneState, BirdEvent> implement
 				})
 				
 			.state(GAME_OVER)
-				.onEntry(() -> stop())
+				.onEntry(() -> {
+					stop();
+					saveRecording();
+				})
 
 		.transitions()
 		
 			.stay(PLAYING)
 				.on(TOUCHED_PIPE)
-				.condition(() -> points > 3)
+				.condition(() -> PlayRules.survivesPipe(points))
 				.act(e -> {
-					points -= 3;
-					sound("sfx/hit.mp3").play();
-					Bird bird = ent.named("bird");
-					bird.tf.x += app().settings().getAsInt("obstacle-width") + bird.tf.width;
+					points -= PIPE_PENALTY;
+					playSound(HIT);
+					Bird bird = ent.get(birdHandle);
+					bird.tf.x += PlayRules.knockback(config().obstacleWidth, bird.tf.width);
 					bird.dispatch(TOUCHED_PIPE);
 				})
 
@@ -93,41 +156,41 @@ public class PlayScene extends StateMachine<PlaySceneState, BirdEvent> implement
 				.on(PASSED_OBSTACLE)
 				.act(e -> {
 					points++;
-					sound("sfx/point.mp3").play();
+					playSound(POINT);
 				})
 			
 			.when(PLAYING).then(GAME_OVER)
 				.on(TOUCHED_PIPE)
-				.condition(() -> points <= 3)
+				.condition(() -> !PlayRules.survivesPipe(points))
 				.act(t -> {
-					sound("sfx/hit.mp3").play();
-					Bird bird = ent.named("bird");
+					playSound(HIT);
+					Bird bird = ent.get(birdHandle);
 					bird.dispatch(CRASHED);
 				})
 
 			.when(PLAYING).then(GAME_OVER)
 				.on(TOUCHED_GROUND)
 				.act(e -> {
-					sound("music/bgmusic.mp3").stop();
-					Bird bird = ent.named("bird");
+					stopSound(MUSIC);
+					Bird bird = ent.get(birdHandle);
 					bird.dispatch(TOUCHED_GROUND);
 				})
 
 			.when(PLAYING).then(GAME_OVER)
 				.on(LEFT_WORLD)
 				.act(e -> {
-					sound("music/bgmusic.mp3").stop();
-					Bird bird = ent.named("bird");
+					stopSound(MUSIC);
+					Bird bird = ent.get(birdHandle);
 					bird.dispatch(LEFT_WORLD);
 				})
 
 			.stay(GAME_OVER)
-				.condition(() -> Keyboard.keyPressedOnce(KeyEvent.VK_SPACE))
-				.act(() -> BirdyGameApp.setScene(START_SCENE))
+				.condition(() -> input.spacePressed())
+				.act(this::leave)
 				
 			.stay(GAME_OVER)
 				.on(TOUCHED_GROUND)
-				.act(() -> sound("music/bgmusic.mp3").stop())
+				.act(() -> stopSound(MUSIC))
 				
 		.endStateMachine();
 		//@formatter:on
@@ -136,85 +199,286 @@ public class PlayScene extends StateMachine<PlaySceneState, BirdEvent> implement
 	@Override
 	public void init() {
 		int w = app().settings().width, h = app().settings().height;
-		Ground ground = ent.named("ground");
-
-		score = new Score(() -> points, 1.5f);
-		score.tf.centerHorizontally(0, w);
-		score.tf.y = (ground.tf.y / 4);
-		ent.store(score);
+		Ground ground = ent.get(groundHandle);
 
-		gameOverText = new ImageWidget(Assets.image("text_game_over"));
-		gameOverText.tf.centerBoth(0, 0, w, h);
-		ent.store(gameOverText);
+		renderer.setScore(Score.digitImages(SCORE_SCALE), SCORE_SCALE, w / 2, ground.tf.y / 4);
+		BufferedImage gameOverImage = Assets.image("text_game_over");
+		renderer.setGameOverImage(gameOverImage, (w - gameOverImage.getWidth()) / 2,
+				(h - gameOverImage.getHeight()) / 2);
 
-		Bird bird = ent.named("bird");
+		Bird bird = ent.get(birdHandle);
 		app().createCollisionHandler();
 		app().collisionHandler().ifPresent(handler -> {
 			handler.registerStart(bird, ground, TOUCHED_GROUND);
-			handler.registerEnd(bird, ent.named("world"), LEFT_WORLD);
+			handler.registerEnd(bird, ent.get(worldHandle), LEFT_WORLD);
 		});
 
 		obstacleController.init();
+		startRecordingOrReplay(bird);
+		timestep.reset();
+		events.clear();
+		input.clear();
 		super.init();
+		publishFrame();
+		if (config().simulationThread) {
+			startSimulation();
+		}
+	}
+
+	private void startSimulation() {
+		leaving = false;
+		simulation = new SimulationThread("Simulation", config().ticksPerSecond, 5, () -> {
+			tick();
+			publishFrame();
+		});
+		simulation.start();
+		loginfo("Simulation runs on its own thread");
+	}
+
+	private void stopSimulation() {
+		if (simulation != null) {
+			simulation.stop();
+			simulation = null;
+		}
+	}
+
+	/*
+	 * The scene change must happen on the application thread after the simulation has stopped.
+	 */
+	private void leave() {
+		if (simulation != null) {
+			leaving = true;
+		} else {
+			BirdyGameApp.setScene(START_SCENE);
+		}
+	}
+
+	/*
+	 * Each game gets its own random seed. If a replay is given, its seed, start position and input
+	 * are used, otherwise the input is recorded.
+	 */
+	private void startRecordingOrReplay(Bird bird) {
+		tick = 0;
+		replay = BirdyGameApp.getReplay().orElse(null);
+		if (replay != null) {
+			recorder = null;
+			BirdyGameApp.rng().reseed(replay.getSeed());
+			bird.tf.setPosition(replay.getBirdX(), replay.getBirdY());
+			bird.tf.setVelocity(0, replay.getBirdVY());
+			bird.setJumpKey(() -> replay.isJumpKeyDown(tick));
+		} else {
+			long seed = BirdyGameApp.nextGameSeed();
+			BirdyGameApp.rng().reseed(seed);
+			recorder = new InputRecorder(seed, bird.tf.x, bird.tf.y, bird.tf.vy);
+			bird.setJumpKey(() -> recorder.record(tick, input.jumpKeyDown()));
+		}
+	}
+
+	private void saveRecording() {
+		String dir = config().recordDir;
+		if (recorder == null || dir == null) {
+			return;
+		}
+		Recording recording = recorder.finish(tick);
+		recorder = null;
+		Path path = Path.of(dir, "birdy-" + recording.getSeed() + RecordingFiles.EXTENSION);
+		try {
+			Files.createDirectories(path.getParent());
+		} catch (IOException x) {
+			loginfo("Could not save recording %s: %s", path, x);
+			return;
+		}
+		RecordingFiles.writeAsync(recording, path).whenComplete((file, error) -> {
+			if (error != null) {
+				loginfo("Could not save recording %s: %s", path, error);
+			} else {
+				loginfo("Saved recording %s", file);
+			}
+		});
 	}
 
 	@Override
 	public void update() {
 		if (Keyboard.keyPressedOnce("s")) {
-			boolean showState = app().settings().getAsBoolean("show-state");
-			app().settings().set("show-state", !showState);
+			changeSetting("show-state", !config().showState);
 		}
-		app().collisionHandler().ifPresent(handler -> {
-			for (Collision collision : handler.collisions()) {
-				dispatch((BirdEvent) collision.getAppEvent());
+		if (Keyboard.keyPressedOnce("t")) {
+			BirdyGameApp.dumpPhaseTimes();
+		}
+		input.poll();
+		if (simulation != null) {
+			Throwable failure = simulation.failure();
+			if (failure != null) {
+				stopSimulation();
+				loginfo("Simulation failed: %s", failure);
+				throw new IllegalStateException("Simulation failed", failure);
 			}
-		});
-		ent.implementing(Lifecycle.class).forEach(Lifecycle::update);
+			if (leaving) {
+				stopSimulation();
+				BirdyGameApp.setScene(START_SCENE);
+			}
+			return;
+		}
+		for (int ticks = timestep.advance(); ticks > 0; --ticks) {
+			tick();
+		}
+		publishFrame();
+	}
+
+	/*
+	 * One simulation tick with fixed length. The recorded input and the replay are based on these
+	 * ticks, not on frames.
+	 */
+	private void tick() {
+		PhaseTimes times = BirdyGameApp.phaseTimes();
+		long start = System.nanoTime();
+		input.beginTick();
+		if (input.dayEvent() != null) {
+			City city = ent.get(cityHandle);
+			city.dispatch(input.dayEvent());
+		}
+		ent.savePreviousStates();
+		obstacleController.obstacles().forEach(Obstacle::savePreviousState);
+		long t = System.nanoTime();
+		app().collisionHandler().ifPresent(collisionDetection);
+		obstacleController.checkCollisions();
+		events.drain(dispatcher);
+		t = times.lap(Phase.COLLISIONS, t);
+		ent.update();
+		t = times.lap(Phase.ENTITIES, t);
+		obstacleController.obstacles().forEach(Obstacle::update);
 		obstacleController.update();
+		t = times.lap(Phase.OBSTACLES, t);
 		super.update();
+		times.lap(Phase.STATE_MACHINE, t);
+		times.lap(Phase.TICK, start);
+		++tick;
+	}
+
+	/**
+	 * @return the obstacles on the screen, ordered from left to right
+	 */
+	public List<Obstacle> obstacles() {
+		return obstacleController.obstacles();
 	}
 
 	@Override
 	public void start() {
-		Ground ground = ent.named("ground");
-		float speed = app().settings().get("world-speed");
+		Ground ground = ent.get(groundHandle);
+		float speed = config().worldSpeed;
 		ground.tf.vx = speed;
-		ent.ofClass(Obstacle.class).forEach(obstacle -> obstacle.tf.vx = speed);
+		obstacleController.obstacles().forEach(obstacle -> obstacle.tf.vx = speed);
 		obstacleController.start();
 	}
 
 	@Override
 	public void stop() {
-		Ground ground = ent.named("ground");
+		Ground ground = ent.get(groundHandle);
 		ground.tf.vx = 0;
-		ent.ofClass(Obstacle.class).forEach(obstacle -> obstacle.tf.vx = 0);
+		obstacleController.obstacles().forEach(obstacle -> obstacle.tf.vx = 0);
 		obstacleController.stop();
 	}
 
-	public void dispatch(BirdEvent event) {
+	private void addCollisionEvents(CollisionHandler handler) {
+		for (Collision collision : handler.collisions()) {
+			BirdEvent event = (BirdEvent) collision.getAppEvent();
+			events.add(tick, event, source(event));
+		}
+	}
+
+	/*
+	 * The bird collides with the ground when touching it and with the world when leaving it.
+	 */
+	private int source(BirdEvent event) {
+		return event == LEFT_WORLD ? worldHandle.id() : groundHandle.id();
+	}
+
+	/*
+	 * Obstacles are no named entities, their ids are negative to tell them from those.
+	 */
+	private static int obstacleSource(Obstacle obstacle) {
+		return -1 - obstacle.getId();
+	}
+
+	/*
+	 * The scene handles its queued events in its own update at the end of the tick, one per update,
+	 * like before the event ring.
+	 */
+	private void dispatch(BirdEvent event) {
 		enqueue(event);
-		Bird bird = ent.named("bird");
+		Bird bird = ent.get(birdHandle);
 		bird.dispatch(event);
 	}
 
+	private void publishFrame() {
+		captureFrame(frames.back());
+		frames.publish();
+	}
+
+	private void captureFrame(PlayFrame f) {
+		Bird bird = ent.get(birdHandle);
+		City city = ent.get(cityHandle);
+		Ground ground = ent.get(groundHandle);
+
+		f.nanos = System.nanoTime();
+		f.state = getState();
+		f.flightState = bird.getFlightState();
+		f.healthState = bird.getHealthState();
+		f.points = points;
+
+		f.birdImage = bird.currentFrame();
+		f.birdPrevX = bird.getPrevX();
+		f.birdPrevY = bird.getPrevY();
+		f.birdX = bird.tf.x;
+		f.birdY = bird.tf.y;
+		f.birdPrevRotation = bird.getPrevRotation();
+		f.birdRotation = bird.tf.rotation;
+		f.birdWidth = bird.tf.width;
+		f.birdHeight = bird.tf.height;
+
+		f.groundStrip = ground.strip();
+		f.groundPrevScrollX = ground.getPrevScrollX();
+		f.groundScrollX = ground.getScrollX();
+		f.groundTileWidth = ground.getTileWidth();
+		f.groundY = (int) ground.tf.y;
+		f.groundWidth = ground.tf.width;
+		f.groundHeight = ground.tf.height;
+
+		f.cityBackground = city.background();
+		f.cityX = city.tf.x;
+		f.cityY = city.tf.y;
+		List<Star> stars = city.getStars();
+		f.setStarCount(stars.size());
+		for (int i = 0; i < stars.size(); ++i) {
+			Star star = stars.get(i);
+			f.starX[i] = star.tf.x;
+			f.starY[i] = star.tf.y;
+			f.starImage[i] = star.currentFrame();
+		}
+
+		List<Obstacle> obstacles = obstacleController.obstacles();
+		f.setObstacleCount(obstacles.size());
+		for (int i = 0; i < obstacles.size(); ++i) {
+			Obstacle obstacle = obstacles.get(i);
+			f.obstaclePrevX[i] = obstacle.getPrevX();
+			f.obstacleX[i] = obstacle.tf.x;
+			f.obstacleY[i] = obstacle.tf.y;
+			f.hangingImage[i] = obstacle.hangingImage;
+			f.standingImage[i] = obstacle.standingImage;
+			f.passage[i].setBounds(obstacle.passage);
+			f.illuminated[i] = obstacle.illuminated;
+		}
+	}
+
 	@Override
 	public void draw(Graphics2D g) {
-		Bird bird = ent.named("bird");
-		City city = ent.named("city");
-		Ground ground = ent.named("ground");
-		city.draw(g);
-		ent.ofClass(Obstacle.class).forEach(obstacle -> obstacle.draw(g));
-		ground.draw(g);
-		score.draw(g);
-		bird.draw(g);
-		if (getState() == GAME_OVER) {
-			gameOverText.draw(g);
-		}
-		if (app().settings().getAsBoolean("show-state")) {
-			String text = String.format("%s: %s,  Bird: %s and %s", getDescription(), getState(), bird.getFlightState(),
-					bird.getHealthState());
-			g.setFont(new Font(Font.DIALOG, Font.PLAIN, 10));
-			g.drawString(text, 20, app().settings().height - 20);
+		PlayFrame f = frames.front();
+		float alpha = simulation != null ? timestep.alphaSince(f.nanos) : timestep.alpha();
+		PhaseTimes times = BirdyGameApp.phaseTimes();
+		renderer.draw(g, f, alpha, times);
+		if (config().showState) {
+			stateText.draw(g, getDescription(), f.state, f.flightState, f.healthState, 20, app().settings().height - 20);
+			times.draw(g, 20, app().settings().height - 35);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package de.amr.games.birdy.scenes;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the simulation ticks of a scene at a fixed rate on its own thread, independent from the
+ * frame rate of the application.
+ * <p>
+ * If a tick fails, the thread ends and keeps the exception or error until the application thread picks
+ * it up with {@link #failure()}.
+ *
+ * @author Armin Reichert
+ */
+public class SimulationThread {
+
+	private final String name;
+	private final long tickNanos;
+	private final int maxCatchUpTicks;
+	private final Runnable tick;
+	private volatile boolean running;
+	private volatile Throwable failure;
+	private Thread thread;
+
+	/**
+	 * @param name            thread name
+	 * @param ticksPerSecond  simulation ticks per second
+	 * @param maxCatchUpTicks maximum number of ticks run without pause after a delay, time beyond is
+	 *                        dropped
+	 * @param tick            the simulation tick
+	 */
+	public SimulationThread(String name, int ticksPerSecond, int maxCatchUpTicks, Runnable tick) {
+		this.name = name;
+		this.tickNanos = 1_000_000_000L / ticksPerSecond;
+		this.maxCatchUpTicks = maxCatchUpTicks;
+		this.tick = tick;
+	}
+
+	public void start() {
+		running = true;
+		failure = null;
+		thread = new Thread(this::run, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the thread and waits until the current tick is complete.
+	 */
+	public void stop() {
+		running = false;
+		if (thread != null && thread != Thread.currentThread()) {
+			try {
+				thread.join();
+			} catch (InterruptedException x) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		thread = null;
+	}
+
+	/**
+	 * @return the exception or error which ended the thread or {@code null}
+	 */
+	public Throwable failure() {
+		return failure;
+	}
+
+	private void run() {
+		long next = System.nanoTime();
+		try {
+			while (running) {
+				tick.run();
+				next += tickNanos;
+				long wait = next - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				} else if (-wait > maxCatchUpTicks * tickNanos) {
+					next = System.nanoTime();
+				}
+			}
+		} catch (Throwable x) {
+			running = false;
+			failure = x;
+		}
+	}
+}
@@ -1,10 +1,12 @@
 package de.amr.games.birdy.scenes;
 
 import static de.amr.easy.game.Application.app;
-import static de.amr.easy.game.assets.Assets.sound;
-import static de.amr.easy.game.assets.Assets.sounds;
+import static de.amr.games.birdy.BirdyGameApp.changeSetting;
+import static de.amr.games.birdy.BirdyGameApp.config;
+import static de.amr.games.birdy.BirdyGameApp.loopSound;
 import static de.amr.games.birdy.BirdyGameApp.sec;
 import static de.amr.games.birdy.BirdyGameApp.setScene;
+import static de.amr.games.birdy.audio.Sound.MUSIC;
 import static de.amr.games.birdy.entities.BirdEvent.LEFT_WORLD;
 import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_GROUND;
 import static de.amr.games.birdy.scenes.StartScene.StartSceneState.COMPLETE;
@@ -12,46 +14,67 @@ import static de.amr.games.birdy.scenes.StartScene.StartSceneState.GAME_OVER;
 import static de.amr.games.birdy.scenes.StartScene.StartSceneState.READY;
 import static de.amr.games.birdy.scenes.StartScene.StartSceneState.STARTING;
 
-import java.awt.Font;
 import java.awt.Graphics2D;
-import java.awt.event.KeyEvent;
+import java.util.function.Consumer;
 
 import de.amr.easy.game.assets.Assets;
-import de.amr.easy.game.assets.SoundClip;
 import de.amr.easy.game.controller.Lifecycle;
-import de.amr.easy.game.entity.EntityMap;
 import de.amr.easy.game.entity.collision.Collision;
+import de.amr.easy.game.entity.collision.CollisionHandler;
 import de.amr.easy.game.input.Keyboard;
 import de.amr.easy.game.ui.widgets.ImageWidget;
 import de.amr.easy.game.ui.widgets.PumpingImageWidget;
 import de.amr.easy.game.view.View;
 import de.amr.games.birdy.BirdyGameApp;
 import de.amr.games.birdy.BirdyGameApp.Scene;
+import de.amr.games.birdy.RandomStreams.Stream;
+import de.amr.games.birdy.entities.Area;
 import de.amr.games.birdy.entities.Bird;
 import de.amr.games.birdy.entities.BirdEvent;
 import de.amr.games.birdy.entities.City;
+import de.amr.games.birdy.entities.EntityRegistry;
+import de.amr.games.birdy.entities.EntityRegistry.Handle;
 import de.amr.games.birdy.entities.Ground;
+import de.amr.games.birdy.fsm.EventRing;
+import de.amr.games.birdy.perf.Phase;
+import de.amr.games.birdy.perf.PhaseTimes;
+import de.amr.games.birdy.perf.TracedStateMachine;
 import de.amr.games.birdy.scenes.StartScene.StartSceneState;
 import de.amr.statemachine.api.TransitionMatchStrategy;
-import de.amr.statemachine.core.StateMachine;
 
 /**
  * Start scene of the game: bird flaps in the air until user presses the JUMP key.
  * 
  * @author Armin Reichert
  */
-public class StartScene extends StateMachine<StartSceneState, BirdEvent> implements Lifecycle, View {
+public class StartScene extends TracedStateMachine<StartSceneState, BirdEvent> implements Lifecycle, View {
 
 	public enum StartSceneState {
 		STARTING, READY, GAME_OVER, COMPLETE
 	}
 
-	private EntityMap ent;
+	private EntityRegistry ent;
+	private final Handle<Area> worldHandle;
+	private final Handle<Bird> birdHandle;
+	private final Handle<City> cityHandle;
+	private final Handle<Ground> groundHandle;
 	private ImageWidget displayedText;
+	private final StateText stateText = new StateText();
+	private final FixedTimestep timestep;
+	private final FrameInput input = new FrameInput();
+	private long tick;
+	private final EventRing<BirdEvent> events = new EventRing<>(BirdEvent.class, 8);
+	private final EventRing.Handler<BirdEvent> dispatcher = this::dispatch;
+	private final Consumer<CollisionHandler> collisionDetection = this::addCollisionEvents;
 
-	public StartScene(EntityMap entities) {
+	public StartScene(EntityRegistry entities) {
 		super(StartSceneState.class, TransitionMatchStrategy.BY_VALUE);
 		ent = entities;
+		worldHandle = ent.handle("world", Area.class);
+		birdHandle = ent.handle("bird", Bird.class);
+		cityHandle = ent.handle("city", City.class);
+		groundHandle = ent.handle("ground", Ground.class);
+		timestep = new FixedTimestep(config().ticksPerSecond, 5);
 		ent.store("title", new ImageWidget(Assets.image("title")));
 		ent.store("text_game_over", new ImageWidget(Assets.image("text_game_over")));
 		ent.store("text_ready", PumpingImageWidget.create().image(Assets.image("text_ready")).build());
@@ -70,14 +93,12 @@ public class StartScene extends StateMachine<StartSceneState, BirdEvent> impleme
 				.state(STARTING)
 					.onEntry(() -> {
 						reset();
-						if (!sound("music/bgmusic.mp3").isRunning()) {
-							sound("music/bgmusic.mp3").loop();
-						}
+						loopSound(MUSIC);
 					})
 				.onTick(() -> keepBirdInAir())
 				
 				.state(READY)
-					.timeoutAfter(() -> sec(app().settings().getAsFloat("ready-time-sec")))
+					.timeoutAfter(() -> sec(config().readyTimeSec))
 					.onEntry(() -> {
 						displayedText = ent.named("readyText");
 					})
@@ -88,14 +109,14 @@ public class StartScene extends StateMachine<StartSceneState, BirdEvent> impleme
 				.state(GAME_OVER)
 					.onEntry(() -> {
 						stop();
-						sounds().forEach(SoundClip::stop);
+						BirdyGameApp.mixer().stopAll();
 						displayedText = ent.named("game_over");
 					})
 	
 			.transitions()
 	
 				.when(STARTING).then(READY)
-					.condition(() -> Keyboard.keyDown(app().settings().get("jump-key")))
+					.condition(() -> input.jumpKeyDown())
 					
 				.when(STARTING).then(GAME_OVER).on(TOUCHED_GROUND)
 				
@@ -108,7 +129,7 @@ public class StartScene extends StateMachine<StartSceneState, BirdEvent> impleme
 					})
 				
 				.when(GAME_OVER).then(STARTING)
-					.condition(() -> Keyboard.keyPressedOnce(KeyEvent.VK_SPACE))
+					.condition(() -> input.spacePressed())
 			
 		.endStateMachine();
 		//@formatter:on
@@ -117,79 +138,125 @@ public class StartScene extends StateMachine<StartSceneState, BirdEvent> impleme
 	private void reset() {
 		int w = app().settings().width, h = app().settings().height;
 		displayedText = ent.named("title");
-		City city = ent.named("city");
+		City city = ent.get(cityHandle);
 		city.setWidth(w);
 		city.init();
-		Ground ground = ent.named("ground");
+		Ground ground = ent.get(groundHandle);
 		ground.setWidth(w);
 		ground.tf.setPosition(0, h - ground.tf.height);
-		ground.tf.setVelocity(app().settings().getAsFloat("world-speed"), 0);
-		Bird bird = ent.named("bird");
+		ground.tf.setVelocity(config().worldSpeed, 0);
+		Bird bird = ent.get(birdHandle);
 		bird.init();
+		bird.setJumpKey(input::jumpKeyDown);
 		bird.tf.setPosition(w / 8, ground.tf.y / 2);
 		bird.tf.setVelocity(0, 0);
 		app().collisionHandler().ifPresent(collisions -> {
 			collisions.clear();
-			collisions.registerEnd(bird, ent.named("world"), LEFT_WORLD);
+			collisions.registerEnd(bird, ent.get(worldHandle), LEFT_WORLD);
 			collisions.registerStart(bird, ground, TOUCHED_GROUND);
 		});
 	}
 
+	@Override
+	public void init() {
+		timestep.reset();
+		tick = 0;
+		events.clear();
+		input.clear();
+		super.init();
+	}
+
 	@Override
 	public void update() {
 		if (Keyboard.keyPressedOnce("s")) {
-			boolean showState = app().settings().getAsBoolean("show-state");
-			app().settings().set("show-state", !showState);
+			changeSetting("show-state", !config().showState);
+		}
+		if (Keyboard.keyPressedOnce("t")) {
+			BirdyGameApp.dumpPhaseTimes();
+		}
+		input.poll();
+		for (int ticks = timestep.advance(); ticks > 0; --ticks) {
+			tick();
+		}
+	}
+
+	private void tick() {
+		PhaseTimes times = BirdyGameApp.phaseTimes();
+		long start = System.nanoTime();
+		input.beginTick();
+		if (input.dayEvent() != null) {
+			City city = ent.get(cityHandle);
+			city.dispatch(input.dayEvent());
 		}
+		ent.savePreviousStates();
+		long t = System.nanoTime();
 		checkCollisions();
-		ent.implementing(Lifecycle.class).forEach(Lifecycle::update);
+		t = times.lap(Phase.COLLISIONS, t);
+		ent.update();
+		t = times.lap(Phase.ENTITIES, t);
 		super.update();
+		times.lap(Phase.STATE_MACHINE, t);
+		times.lap(Phase.TICK, start);
+		++tick;
 	}
 
 	private void checkCollisions() {
-		Bird bird = ent.named("bird");
-		app().collisionHandler().ifPresent(handler -> {
-			for (Collision c : handler.collisions()) {
-				BirdEvent event = (BirdEvent) c.getAppEvent();
-				bird.dispatch(event);
-				enqueue(event);
-			}
-		});
+		app().collisionHandler().ifPresent(collisionDetection);
+		events.drain(dispatcher);
+	}
+
+	private void addCollisionEvents(CollisionHandler handler) {
+		for (Collision c : handler.collisions()) {
+			BirdEvent event = (BirdEvent) c.getAppEvent();
+			events.add(tick, event, event == LEFT_WORLD ? worldHandle.id() : groundHandle.id());
+		}
+	}
+
+	private void dispatch(BirdEvent event) {
+		Bird bird = ent.get(birdHandle);
+		bird.dispatch(event);
+		enqueue(event);
 	}
 
 	@Override
 	public void stop() {
-		Ground ground = ent.named("ground");
+		Ground ground = ent.get(groundHandle);
 		ground.tf.setVelocity(0, 0);
 	}
 
 	@Override
 	public void draw(Graphics2D g) {
 		int w = app().settings().width, h = app().settings().height;
-		Bird bird = ent.named("bird");
-		City city = ent.named("city");
-		Ground ground = ent.named("ground");
+		Bird bird = ent.get(birdHandle);
+		City city = ent.get(cityHandle);
+		Ground ground = ent.get(groundHandle);
 
+		float alpha = timestep.alpha();
+		PhaseTimes times = BirdyGameApp.phaseTimes();
+		long start = System.nanoTime(), t = start;
 		city.draw(g);
-		ground.draw(g);
-		bird.draw(g);
+		t = times.lap(Phase.DRAW_CITY, t);
+		ground.draw(g, alpha);
+		t = times.lap(Phase.DRAW_GROUND, t);
+		bird.draw(g, alpha);
+		times.lap(Phase.DRAW_BIRD, t);
 		if (displayedText != null) {
 			displayedText.tf.centerBoth(0, 0, w, h - ground.tf.height);
 			displayedText.draw(g);
 		}
-		if (app().settings().getAsBoolean("show-state")) {
-			String text = String.format("%s: %s,  Bird: %s and %s", getDescription(), getState(), bird.getFlightState(),
-					bird.getHealthState());
-			g.setFont(new Font(Font.DIALOG, Font.PLAIN, 10));
-			g.drawString(text, 20, app().settings().height - 20);
+		times.lap(Phase.DRAW, start);
+		if (config().showState) {
+			stateText.draw(g, getDescription(), getState(), bird.getFlightState(), bird.getHealthState(), 20,
+					app().settings().height - 20);
+			times.draw(g, 20, app().settings().height - 35);
 		}
 	}
 
 	private void keepBirdInAir() {
-		Bird bird = ent.named("bird");
-		Ground ground = ent.named("ground");
+		Bird bird = ent.get(birdHandle);
+		Ground ground = ent.get(groundHandle);
 		while (bird.tf.y > ground.tf.y / 2) {
-			bird.flap(BirdyGameApp.random(1, 4));
+			bird.flap(BirdyGameApp.random(Stream.EFFECTS, 1, 4));
 		}
 	}
 }
\ No newline at end of file
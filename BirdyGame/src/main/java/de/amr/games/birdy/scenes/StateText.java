@@ -0,0 +1,36 @@
+package de.amr.games.birdy.scenes;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+import de.amr.games.birdy.entities.FlightState;
+import de.amr.games.birdy.entities.HealthState;
+
+/**
+ * Text line showing the state of a scene and of the bird. The text is only built when one of the
+ * states changes, so drawing it in each frame does not allocate.
+ *
+ * @author Armin Reichert
+ */
+class StateText {
+
+	private static final Font FONT = new Font(Font.DIALOG, Font.PLAIN, 10);
+
+	private Enum<?> sceneState;
+	private FlightState flightState;
+	private HealthState healthState;
+	private String text;
+
+	void draw(Graphics2D g, String description, Enum<?> sceneState, FlightState flightState, HealthState healthState,
+			int x, int y) {
+		if (text == null || sceneState != this.sceneState || flightState != this.flightState
+				|| healthState != this.healthState) {
+			this.sceneState = sceneState;
+			this.flightState = flightState;
+			this.healthState = healthState;
+			text = String.format("%s: %s,  Bird: %s and %s", description, sceneState, flightState, healthState);
+		}
+		g.setFont(FONT);
+		g.drawString(text, x, y);
+	}
+}
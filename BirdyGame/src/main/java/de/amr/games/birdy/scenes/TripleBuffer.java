@@ -0,0 +1,65 @@
+package de.amr.games.birdy.scenes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Three preallocated buffers passed from one writer thread to one reader thread without locks.
+ * <p>
+ * The writer fills the back buffer and publishes it, the reader takes the latest published buffer.
+ * Neither waits for the other: the writer always has a buffer the reader does not see and the
+ * reader keeps its buffer until a newer one has been published. Buffers are reused, so a published
+ * buffer must not be modified by the writer until it gets it back as back buffer.
+ *
+ * @param <T> buffer type
+ *
+ * @author Armin Reichert
+ */
+public class TripleBuffer<T> {
+
+	private static final int INDEX_MASK = 3, FRESH = 4;
+
+	private final Object[] buffers = new Object[3];
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0; // writer only
+	private int front = 2; // reader only
+
+	/**
+	 * @param factory creates the buffers
+	 */
+	public TripleBuffer(Supplier<T> factory) {
+		for (int i = 0; i < buffers.length; ++i) {
+			buffers[i] = factory.get();
+		}
+	}
+
+	/**
+	 * Called by the writer.
+	 *
+	 * @return the buffer to fill
+	 */
+	@SuppressWarnings("unchecked")
+	public T back() {
+		return (T) buffers[back];
+	}
+
+	/**
+	 * Called by the writer. Publishes the back buffer and takes the next back buffer.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+	}
+
+	/**
+	 * Called by the reader.
+	 *
+	 * @return the latest published buffer
+	 */
+	@SuppressWarnings("unchecked")
+	public T front() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return (T) buffers[front];
+	}
+}
@@ -0,0 +1,41 @@
+package de.amr.games.birdy.sim;
+
+import java.util.List;
+
+import de.amr.games.birdy.sim.HeadlessGame.SimBird;
+import de.amr.games.birdy.sim.HeadlessGame.SimObstacle;
+
+/**
+ * A simple bot that keeps the bird at the height of the next passage.
+ * 
+ * @author Armin Reichert
+ */
+public class Autopilot implements InputSource, PopulationInput {
+
+	@Override
+	public boolean jumpKeyDown(HeadlessGame game) {
+		SimBird bird = game.getBird();
+		float targetY = game.getGroundY() / 2;
+		List<SimObstacle> obstacles = game.getObstacles();
+		for (int i = 0; i < obstacles.size(); ++i) {
+			SimObstacle obstacle = obstacles.get(i);
+			if (obstacle.x + obstacle.width > bird.collisionX()) {
+				targetY = obstacle.passageY() + obstacle.passageHeight / 2;
+				break;
+			}
+		}
+		return bird.vy > 0 && bird.y + bird.height / 2 > targetY + 10;
+	}
+
+	@Override
+	public boolean jumpKeyDown(PopulationSimulation population, int bird) {
+		float targetY = population.getGroundY() / 2;
+		for (int i = 0; i < population.getObstacleCount(); ++i) {
+			if (population.getObstacleX(i) + population.getObstacleWidth() > population.getCollisionX(bird)) {
+				targetY = population.getPassageY(i) + population.getPassageHeight() / 2;
+				break;
+			}
+		}
+		return population.getVY(bird) > 0 && population.getY(bird) + population.getBirdHeight() / 2 > targetY + 10;
+	}
+}
@@ -0,0 +1,244 @@
+package de.amr.games.birdy.sim;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import de.amr.games.birdy.entities.BirdEvent;
+
+/**
+ * Runs many seeded headless games in parallel and writes the result of each game to a CSV file.
+ * <p>
+ * Each game runs on its own {@link HeadlessGame} instance with its own input source, the games only
+ * share the (read-only) configuration. The result of the i-th game is stored in the i-th slot of
+ * primitive arrays, so the results are written in seed order independent of the number of threads.
+ * <p>
+ * Usage: {@code BatchEvaluator [option=value]...} with the options
+ * <ul>
+ * <li>{@code seeds}: seed range {@code first..last} (inclusive) or single seed, default {@code 1..1000}
+ * <li>{@code seeds-file}: file with one seed per line, overrides {@code seeds}
+ * <li>{@code bot}: {@code autopilot} (default) or {@code idle}
+ * <li>{@code max-ticks}: maximum number of ticks per game, default one hour of play time
+ * <li>{@code threads}: number of worker threads, default number of available processors
+ * <li>{@code out}: CSV file, default standard output
+ * <li>{@code passage-height}, {@code min-pipe-creation-sec}, {@code max-pipe-creation-sec},
+ * {@code world-gravity}, {@code world-speed}: overrides of the game settings
+ * </ul>
+ *
+ * @author Armin Reichert
+ */
+public class BatchEvaluator {
+
+	public static final String CSV_HEADER = "seed,score,ticks,death_cause";
+
+	private final SimulationConfig cfg;
+	private final Supplier<InputSource> bot;
+	private final long maxTicks;
+
+	private long[] seeds;
+	private int[] scores;
+	private long[] ticks;
+	private BirdEvent[] deathCauses;
+	private volatile boolean cancelled;
+
+	/**
+	 * @param cfg      game settings, must not be modified while the evaluation is running
+	 * @param bot      creates the input source for each game
+	 * @param maxTicks maximum number of ticks per game
+	 */
+	public BatchEvaluator(SimulationConfig cfg, Supplier<InputSource> bot, long maxTicks) {
+		this.cfg = cfg;
+		this.bot = bot;
+		this.maxTicks = maxTicks;
+	}
+
+	/**
+	 * Runs a game for each seed.
+	 *
+	 * @param seeds   game seeds
+	 * @param threads number of worker threads
+	 * @throws InterruptedException if the calling thread is interrupted while waiting for the games.
+	 *                              The games not yet started are cancelled and the results are
+	 *                              incomplete.
+	 */
+	public void evaluate(long[] seeds, int threads) throws InterruptedException {
+		this.seeds = seeds;
+		scores = new int[seeds.length];
+		ticks = new long[seeds.length];
+		deathCauses = new BirdEvent[seeds.length];
+		cancelled = false;
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ForkJoinTask<?> games = pool.submit(() -> IntStream.range(0, seeds.length).parallel().forEach(this::play));
+		try {
+			games.get();
+		} catch (InterruptedException x) {
+			cancelled = true;
+			games.cancel(true);
+			throw x;
+		} catch (ExecutionException x) {
+			throw new IllegalStateException("Evaluation failed", x.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void play(int i) {
+		if (cancelled) {
+			return;
+		}
+		HeadlessGame game = new HeadlessGame(cfg, bot.get(), seeds[i]);
+		ticks[i] = game.run(maxTicks);
+		scores[i] = game.getPoints();
+		deathCauses[i] = game.getDeathCause();
+	}
+
+	public int size() {
+		return seeds.length;
+	}
+
+	public long getSeed(int i) {
+		return seeds[i];
+	}
+
+	public int getScore(int i) {
+		return scores[i];
+	}
+
+	public long getTicks(int i) {
+		return ticks[i];
+	}
+
+	/**
+	 * @param i game index
+	 * @return event which ended the game or {@code null} if the game reached the tick limit
+	 */
+	public BirdEvent getDeathCause(int i) {
+		return deathCauses[i];
+	}
+
+	/**
+	 * Writes the results as CSV with header {@value #CSV_HEADER}. Games which reached the tick limit
+	 * have death cause {@code NONE}.
+	 *
+	 * @param out CSV output
+	 */
+	public void writeCSV(Appendable out) throws IOException {
+		out.append(CSV_HEADER).append('\n');
+		for (int i = 0; i < seeds.length; ++i) {
+			out.append(Long.toString(seeds[i])).append(',');
+			out.append(Integer.toString(scores[i])).append(',');
+			out.append(Long.toString(ticks[i])).append(',');
+			out.append(deathCauses[i] != null ? deathCauses[i].name() : "NONE").append('\n');
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Map<String, String> options = parseOptions(args);
+		SimulationConfig cfg = new SimulationConfig();
+		if (options.containsKey("passage-height")) {
+			cfg.passageHeight = Integer.parseInt(options.get("passage-height"));
+		}
+		if (options.containsKey("min-pipe-creation-sec")) {
+			cfg.minPipeCreationSec = Float.parseFloat(options.get("min-pipe-creation-sec"));
+		}
+		if (options.containsKey("max-pipe-creation-sec")) {
+			cfg.maxPipeCreationSec = Float.parseFloat(options.get("max-pipe-creation-sec"));
+		}
+		if (options.containsKey("world-gravity")) {
+			cfg.worldGravity = Float.parseFloat(options.get("world-gravity"));
+		}
+		if (options.containsKey("world-speed")) {
+			cfg.worldSpeed = Float.parseFloat(options.get("world-speed"));
+		}
+		long[] seeds = options.containsKey("seeds-file") ? readSeeds(Path.of(options.get("seeds-file")))
+				: parseSeeds(options.getOrDefault("seeds", "1..1000"));
+		long maxTicks = Long.parseLong(options.getOrDefault("max-ticks", String.valueOf(60 * 60 * 60)));
+		int threads = Integer.parseInt(
+				options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+		BatchEvaluator evaluator = new BatchEvaluator(cfg, bot(options.getOrDefault("bot", "autopilot")), maxTicks);
+		long start = System.nanoTime();
+		evaluator.evaluate(seeds, threads);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		try {
+			if (options.containsKey("out")) {
+				try (BufferedWriter out = Files.newBufferedWriter(Path.of(options.get("out")), StandardCharsets.UTF_8)) {
+					evaluator.writeCSV(out);
+				}
+			} else {
+				evaluator.writeCSV(System.out);
+				System.out.flush();
+			}
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+
+		long totalTicks = 0, totalPoints = 0;
+		for (int i = 0; i < evaluator.size(); ++i) {
+			totalTicks += evaluator.getTicks(i);
+			totalPoints += evaluator.getScore(i);
+		}
+		System.err.printf("%d games, %d ticks in %.3f sec on %d threads: %.0f games/sec, %.0f ticks/sec, average score %.2f%n",
+				seeds.length, totalTicks, seconds, threads, seeds.length / seconds, totalTicks / seconds,
+				(double) totalPoints / seeds.length);
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq == -1) {
+				throw new IllegalArgumentException("Expected option=value but got: " + arg);
+			}
+			options.put(arg.substring(0, eq), arg.substring(eq + 1));
+		}
+		return options;
+	}
+
+	private static Supplier<InputSource> bot(String name) {
+		switch (name) {
+		case "autopilot":
+			return Autopilot::new;
+		case "idle":
+			return () -> InputSource.NONE;
+		default:
+			throw new IllegalArgumentException("Unknown bot: " + name);
+		}
+	}
+
+	private static long[] parseSeeds(String spec) {
+		int range = spec.indexOf("..");
+		if (range == -1) {
+			return new long[] { Long.parseLong(spec) };
+		}
+		long first = Long.parseLong(spec.substring(0, range)), last = Long.parseLong(spec.substring(range + 2));
+		if (last < first || last - first >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid seed range: " + spec);
+		}
+		long[] seeds = new long[(int) (last - first + 1)];
+		for (int i = 0; i < seeds.length; ++i) {
+			seeds[i] = first + i;
+		}
+		return seeds;
+	}
+
+	private static long[] readSeeds(Path path) {
+		try (Stream<String> lines = Files.lines(path)) {
+			return lines.map(String::trim).filter(line -> !line.isEmpty()).mapToLong(Long::parseLong).toArray();
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+}
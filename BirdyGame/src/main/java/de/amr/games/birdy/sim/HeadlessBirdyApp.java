@@ -0,0 +1,97 @@
+package de.amr.games.birdy.sim;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import de.amr.games.birdy.replay.Recording;
+import de.amr.games.birdy.replay.RecordingFiles;
+import de.amr.games.birdy.replay.ReplayInputSource;
+import de.amr.games.birdy.sprites.SpritesheetReader;
+
+/**
+ * Runs games without window, sound or frame clock and reports the simulation throughput.
+ * <p>
+ * Usage: {@code HeadlessBirdyApp [games] [seed] [max-ticks]}, {@code HeadlessBirdyApp replay <file>} or
+ * {@code HeadlessBirdyApp population <birds> [seed] [max-ticks] [image-file]}
+ * 
+ * @author Armin Reichert
+ */
+public class HeadlessBirdyApp {
+
+	public static void main(String[] args) {
+		if (args.length == 2 && "replay".equals(args[0])) {
+			replay(Path.of(args[1]));
+			return;
+		}
+		if (args.length >= 2 && "population".equals(args[0])) {
+			population(Integer.parseInt(args[1]), args.length > 2 ? Long.parseLong(args[2]) : 42,
+					args.length > 3 ? Long.parseLong(args[3]) : 60 * 60 * 60, args.length > 4 ? Path.of(args[4]) : null);
+			return;
+		}
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+		long maxTicks = args.length > 2 ? Long.parseLong(args[2]) : 60 * 60 * 60;
+
+		SimulationConfig cfg = new SimulationConfig();
+		InputSource input = new Autopilot();
+		long totalTicks = 0, totalPoints = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < games; ++i) {
+			HeadlessGame game = new HeadlessGame(cfg, input, seed + i);
+			totalTicks += game.run(maxTicks);
+			totalPoints += game.getPoints();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d games, %d ticks in %.3f sec: %.0f games/sec, %.0f ticks/sec, average score %.2f%n", games,
+				totalTicks, seconds, games / seconds, totalTicks / seconds, (double) totalPoints / games);
+	}
+
+	private static void replay(Path path) {
+		Recording recording = RecordingFiles.read(path);
+		HeadlessGame game = new HeadlessGame(new SimulationConfig(), new ReplayInputSource(recording),
+				recording.getSeed());
+		game.placeBird(recording.getBirdX(), recording.getBirdY(), recording.getBirdVY());
+		game.run(recording.getLength());
+		System.out.printf("Replayed %s: %d of %d ticks, score %d, %s%n", path, game.getTick(), recording.getLength(),
+				game.getPoints(), game.isGameOver() ? "game over by " + game.getDeathCause() : "not over");
+	}
+
+	private static void population(int birds, long seed, long maxTicks, Path imageFile) {
+		SimulationConfig cfg = new SimulationConfig();
+		PopulationSimulation population = new PopulationSimulation(cfg, new Autopilot(), seed, birds);
+		// spread the birds vertically around the start position
+		for (int i = 0; i < birds; ++i) {
+			population.placeBird(i, population.getX(i), population.getY(i) + i % 101 - 50, 0);
+		}
+		long start = System.nanoTime();
+		long ticks = population.run(maxTicks);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long birdTicks = 0, totalPoints = 0;
+		for (int i = 0; i < birds; ++i) {
+			birdTicks += population.getTicks(i);
+			totalPoints += population.getPoints(i);
+		}
+		System.out.printf("%d birds, %d ticks in %.3f sec: %.0f bird ticks/sec, %d birds alive, average score %.2f%n",
+				birds, ticks, seconds, birdTicks / seconds, population.getAliveCount(), (double) totalPoints / birds);
+		if (imageFile != null) {
+			SpritesheetReader.extractSpriteSheet();
+			BufferedImage image = new BufferedImage(cfg.width, cfg.height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setColor(new Color(78, 192, 202));
+			g.fillRect(0, 0, cfg.width, cfg.height);
+			new PopulationView(population, 50).draw(g);
+			g.dispose();
+			try {
+				ImageIO.write(image, "png", imageFile.toFile());
+			} catch (IOException x) {
+				throw new UncheckedIOException(x);
+			}
+		}
+	}
+}
@@ -0,0 +1,485 @@
+package de.amr.games.birdy.sim;
+
+import static de.amr.games.birdy.PlayRules.FLAP_FORCE;
+import static de.amr.games.birdy.PlayRules.PIPE_PENALTY;
+import static de.amr.games.birdy.PlayRules.TURNED_DOWN_ROTATION;
+import static de.amr.games.birdy.entities.BirdEvent.CRASHED;
+import static de.amr.games.birdy.entities.BirdEvent.LEFT_WORLD;
+import static de.amr.games.birdy.entities.BirdEvent.PASSED_OBSTACLE;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_GROUND;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
+import static de.amr.games.birdy.entities.ObstacleController.Phase.BREEDING;
+import static de.amr.games.birdy.entities.ObstacleController.Phase.GIVING_BIRTH;
+import static de.amr.games.birdy.entities.ObstacleController.Phase.STOPPED;
+import static de.amr.games.birdy.scenes.PlayScene.PlaySceneState.GAME_OVER;
+import static de.amr.games.birdy.scenes.PlayScene.PlaySceneState.PLAYING;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.amr.games.birdy.PlayRules;
+import de.amr.games.birdy.RandomStreams;
+import de.amr.games.birdy.RandomStreams.Stream;
+import de.amr.games.birdy.entities.BirdControl;
+import de.amr.games.birdy.entities.BirdEvent;
+import de.amr.games.birdy.entities.FlightState;
+import de.amr.games.birdy.entities.HealthState;
+import de.amr.games.birdy.entities.ObstacleController.Phase;
+import de.amr.games.birdy.fsm.CompiledStateMachine;
+import de.amr.games.birdy.scenes.PlayScene.PlaySceneState;
+
+/**
+ * The rules of the play scene without rendering, sound, keyboard or application loop. The movement,
+ * obstacle and scoring rules are the ones of {@link PlayRules}, like in the game. The bird runs the
+ * state machines of {@link BirdControl}, like the bird of the game.
+ * <p>
+ * Each call of {@link #step()} corresponds to one tick of the play scene: collisions are checked
+ * and dispatched, the bird and the obstacles are updated, the obstacle controller breeds new
+ * obstacles and the scene processes its events. Like the state machines of the game, each machine
+ * processes at most one event per tick.
+ *
+ * @author Armin Reichert
+ */
+public class HeadlessGame {
+
+	/**
+	 * Simulation state of the bird.
+	 */
+	public static class SimBird {
+
+		public float x, y, vx, vy;
+		public double rotation;
+		public int width, height;
+		CompiledStateMachine<FlightState, BirdEvent> flightControl;
+		CompiledStateMachine<HealthState, BirdEvent> healthControl;
+
+		public FlightState getFlightState() {
+			return flightControl.getState();
+		}
+
+		public HealthState getHealthState() {
+			return healthControl.getState();
+		}
+
+		public float collisionX() {
+			return x + margin();
+		}
+
+		public float collisionY() {
+			return y + margin();
+		}
+
+		public int collisionWidth() {
+			return width - 2 * margin();
+		}
+
+		public int collisionHeight() {
+			return height - 2 * margin();
+		}
+
+		private int margin() {
+			return PlayRules.collisionMargin(width, height);
+		}
+	}
+
+	/**
+	 * Simulation state of an obstacle.
+	 */
+	public static class SimObstacle {
+
+		public float x, vx;
+		public int width, hangingHeight, passageHeight, standingHeight;
+		boolean touchingUpperPart, touchingLowerPart, inPassage;
+
+		public int passageY() {
+			return hangingHeight;
+		}
+
+		public int standingY() {
+			return hangingHeight + passageHeight;
+		}
+
+		boolean touching() {
+			return touchingUpperPart || touchingLowerPart || inPassage;
+		}
+	}
+
+	private final SimulationConfig cfg;
+	private final InputSource input;
+	private final RandomStreams rng;
+
+	private final SimBird bird = new SimBird();
+	private final List<SimObstacle> obstacles = new ArrayList<>();
+	private final ArrayDeque<SimObstacle> freeObstacles = new ArrayDeque<>();
+	private final ArrayDeque<BirdEvent> sceneEvents = new ArrayDeque<>();
+
+	private PlaySceneState sceneState;
+	private Phase phase;
+	private long breedingTicks;
+	private float groundY;
+	private boolean birdTouchingGround, birdInWorld;
+	private int points;
+	private long tick;
+	private BirdEvent deathCause;
+
+	public HeadlessGame(SimulationConfig cfg, InputSource input, long seed) {
+		this.cfg = cfg;
+		this.input = input;
+		this.rng = new RandomStreams(seed);
+		Body body = new Body();
+		bird.flightControl = BirdControl.flightControl(body);
+		bird.healthControl = BirdControl.healthControl(body, () -> cfg.sec(cfg.birdInjuredSeconds));
+		init();
+	}
+
+	/**
+	 * Resets the game to the state when the play scene is entered.
+	 */
+	public void init() {
+		rng.reseed(rng.getSeed());
+		groundY = cfg.height - cfg.groundHeight;
+		bird.width = cfg.birdSize;
+		bird.height = cfg.birdSize;
+		bird.x = cfg.width / 8;
+		bird.y = groundY / 2;
+		bird.vx = bird.vy = 0;
+		bird.rotation = 0;
+		bird.healthControl.init();
+		bird.flightControl.init();
+		freeObstacles.addAll(obstacles);
+		obstacles.clear();
+		sceneEvents.clear();
+		birdTouchingGround = false;
+		birdInWorld = false;
+		deathCause = null;
+		tick = 0;
+		phase = STOPPED;
+		sceneState = PLAYING;
+		points = 0;
+		start();
+	}
+
+	/**
+	 * Sets the start position and vertical speed of the bird, e.g. from a recording.
+	 * 
+	 * @param x  x-position
+	 * @param y  y-position
+	 * @param vy vertical speed
+	 */
+	public void placeBird(float x, float y, float vy) {
+		bird.x = x;
+		bird.y = y;
+		bird.vy = vy;
+	}
+
+	/**
+	 * Advances the game by one tick.
+	 */
+	public void step() {
+		checkCollisions();
+		updateBird();
+		updateObstacles();
+		updateObstacleController();
+		updateScene();
+		++tick;
+	}
+
+	/**
+	 * Runs the game until it is over or the given number of ticks has been simulated.
+	 *
+	 * @param maxTicks maximum number of ticks
+	 * @return number of simulated ticks
+	 */
+	public long run(long maxTicks) {
+		while (!isGameOver() && tick < maxTicks) {
+			step();
+		}
+		return tick;
+	}
+
+	public boolean isGameOver() {
+		return sceneState == GAME_OVER;
+	}
+
+	public PlaySceneState getSceneState() {
+		return sceneState;
+	}
+
+	public Phase getObstacleControllerPhase() {
+		return phase;
+	}
+
+	public int getPoints() {
+		return points;
+	}
+
+	/**
+	 * @return the seed of the random streams, the window game started with this seed creates the same
+	 *         obstacles
+	 */
+	public long getSeed() {
+		return rng.getSeed();
+	}
+
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * @return the event which ended the game or {@code null} if the game is still running
+	 */
+	public BirdEvent getDeathCause() {
+		return deathCause;
+	}
+
+	public SimBird getBird() {
+		return bird;
+	}
+
+	public List<SimObstacle> getObstacles() {
+		return obstacles;
+	}
+
+	public float getGroundY() {
+		return groundY;
+	}
+
+	public SimulationConfig getConfig() {
+		return cfg;
+	}
+
+	// Collisions
+
+	private void checkCollisions() {
+		float bx = bird.collisionX(), by = bird.collisionY();
+		int bw = bird.collisionWidth(), bh = bird.collisionHeight();
+
+		boolean touchingGround = intersects(bx, by, bw, bh, 0, groundY, cfg.width, cfg.groundHeight);
+		if (touchingGround && !birdTouchingGround) {
+			dispatch(TOUCHED_GROUND);
+		}
+		birdTouchingGround = touchingGround;
+
+		// the world area is created with y=0 and height 2*h, see BirdyGameApp.init()
+		boolean inWorld = intersects(bx, by, bw, bh, 0, 0, cfg.width, 2 * cfg.height);
+		if (!inWorld && birdInWorld) {
+			dispatch(LEFT_WORLD);
+		}
+		birdInWorld = inWorld;
+
+		// obstacles are ordered by x-position, only those overlapping the bird horizontally and those which
+		// overlapped it before (directly left of them) are checked
+		int first = 0, last = obstacles.size();
+		while (first < last) {
+			int mid = (first + last) >>> 1;
+			if ((int) obstacles.get(mid).x + obstacles.get(mid).width <= bx) {
+				first = mid + 1;
+			} else {
+				last = mid;
+			}
+		}
+		while (first > 0 && obstacles.get(first - 1).touching()) {
+			--first;
+		}
+		for (int i = first; i < obstacles.size(); ++i) {
+			SimObstacle obstacle = obstacles.get(i);
+			int ox = (int) obstacle.x;
+			if (ox >= bx + bw && !obstacle.touching()) {
+				break;
+			}
+			boolean upper = intersects(bx, by, bw, bh, ox, 0, obstacle.width, obstacle.hangingHeight);
+			if (upper && !obstacle.touchingUpperPart) {
+				dispatch(TOUCHED_PIPE);
+			}
+			obstacle.touchingUpperPart = upper;
+			boolean lower = intersects(bx, by, bw, bh, ox, obstacle.standingY(), obstacle.width, obstacle.standingHeight);
+			if (lower && !obstacle.touchingLowerPart) {
+				dispatch(TOUCHED_PIPE);
+			}
+			obstacle.touchingLowerPart = lower;
+			boolean passage = intersects(bx, by, bw, bh, ox, obstacle.passageY(), obstacle.width, obstacle.passageHeight);
+			if (!passage && obstacle.inPassage) {
+				dispatch(PASSED_OBSTACLE);
+			}
+			obstacle.inPassage = passage;
+		}
+	}
+
+	private static boolean intersects(float x1, float y1, float w1, float h1, float x2, float y2, float w2, float h2) {
+		return w1 > 0 && h1 > 0 && w2 > 0 && h2 > 0 && x2 + w2 > x1 && y2 + h2 > y1 && x2 < x1 + w1 && y2 < y1 + h1;
+	}
+
+	private void dispatch(BirdEvent event) {
+		sceneEvents.add(event);
+		dispatchToBird(event);
+	}
+
+	private void dispatchToBird(BirdEvent event) {
+		bird.flightControl.enqueue(event);
+		bird.healthControl.enqueue(event);
+	}
+
+	// Bird
+
+	private void updateBird() {
+		bird.flightControl.update();
+		bird.healthControl.update();
+	}
+
+	/*
+	 * What the state machines of the bird do with the simulated bird.
+	 */
+	private class Body implements BirdControl.Body {
+
+		@Override
+		public boolean jumpKeyDown() {
+			return input.jumpKeyDown(HeadlessGame.this);
+		}
+
+		@Override
+		public void flap() {
+			HeadlessGame.this.flap(FLAP_FORCE);
+		}
+
+		@Override
+		public void fly() {
+			HeadlessGame.this.fly();
+		}
+
+		@Override
+		public void fall(float slowdown) {
+			HeadlessGame.this.fall(slowdown);
+		}
+
+		@Override
+		public void turnDown() {
+			HeadlessGame.this.turnDown();
+		}
+	}
+
+	private void flap(float force) {
+		bird.vy = PlayRules.flapVelocity(bird.vy, cfg.worldGravity, force);
+		fly();
+	}
+
+	private void fly() {
+		if (PlayRules.aboveWorld(bird.y, bird.height)) {
+			bird.vx = bird.vy = 0;
+		}
+		bird.vy = PlayRules.flyVelocity(bird.vy, cfg.worldGravity);
+		bird.rotation = PlayRules.flightRotation(bird.vy);
+		moveBird();
+	}
+
+	private void fall(float slowdown) {
+		bird.vy = PlayRules.fallVelocity(bird.vy, cfg.worldGravity, slowdown);
+		moveBird();
+	}
+
+	private void moveBird() {
+		bird.x += bird.vx;
+		bird.y += bird.vy;
+	}
+
+	private void turnDown() {
+		bird.rotation = TURNED_DOWN_ROTATION;
+		bird.vx = bird.vy = 0;
+	}
+
+	// Obstacles
+
+	private void updateObstacles() {
+		for (int i = 0; i < obstacles.size(); ++i) {
+			SimObstacle obstacle = obstacles.get(i);
+			obstacle.x += obstacle.vx;
+		}
+	}
+
+	private void updateObstacleController() {
+		if (phase == BREEDING) {
+			if (--breedingTicks <= 0) {
+				phase = GIVING_BIRTH;
+				updateObstacleList();
+			}
+		} else if (phase == GIVING_BIRTH) {
+			enterBreeding();
+		}
+	}
+
+	private void enterBreeding() {
+		phase = BREEDING;
+		breedingTicks = rng.nextInt(Stream.BREEDING, (int) cfg.sec(cfg.minPipeCreationSec), (int) cfg.sec(cfg.maxPipeCreationSec));
+	}
+
+	private void updateObstacleList() {
+		for (int i = obstacles.size() - 1; i >= 0; --i) {
+			if (obstacles.get(i).x + obstacles.get(i).width < 0) {
+				freeObstacles.push(obstacles.remove(i));
+			}
+		}
+
+		int passageRadius = PlayRules.passageRadius(cfg.passageHeight);
+		int passageCenterY = rng.nextInt(Stream.OBSTACLES,
+				PlayRules.minPassageCenterY(cfg.minObstacleHeight, passageRadius),
+				PlayRules.maxPassageCenterY((int) groundY, cfg.minObstacleHeight, passageRadius));
+		SimObstacle obstacle = freeObstacles.isEmpty() ? new SimObstacle() : freeObstacles.pop();
+		obstacle.width = cfg.obstacleWidth;
+		obstacle.hangingHeight = PlayRules.hangingHeight(passageCenterY, passageRadius);
+		obstacle.passageHeight = 2 * passageRadius;
+		obstacle.standingHeight = PlayRules.standingHeight(cfg.obstacleHeight, passageCenterY, passageRadius);
+		obstacle.x = cfg.width;
+		obstacle.vx = cfg.worldSpeed;
+		obstacle.touchingUpperPart = obstacle.touchingLowerPart = obstacle.inPassage = false;
+		obstacles.add(obstacle);
+	}
+
+	// Scene
+
+	private void start() {
+		obstacles.forEach(obstacle -> obstacle.vx = cfg.worldSpeed);
+		if (phase == STOPPED) {
+			enterBreeding();
+		}
+	}
+
+	private void stop() {
+		obstacles.forEach(obstacle -> obstacle.vx = 0);
+		phase = STOPPED;
+	}
+
+	private void updateScene() {
+		BirdEvent event = sceneEvents.poll();
+		if (event == null || sceneState != PLAYING) {
+			return;
+		}
+		switch (event) {
+		case TOUCHED_PIPE:
+			if (PlayRules.survivesPipe(points)) {
+				points -= PIPE_PENALTY;
+				bird.x += PlayRules.knockback(cfg.obstacleWidth, bird.width);
+				dispatchToBird(TOUCHED_PIPE);
+			} else {
+				gameOver(event);
+				dispatchToBird(CRASHED);
+			}
+			break;
+		case PASSED_OBSTACLE:
+			points++;
+			break;
+		case TOUCHED_GROUND:
+		case LEFT_WORLD:
+			gameOver(event);
+			dispatchToBird(event);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void gameOver(BirdEvent cause) {
+		sceneState = GAME_OVER;
+		deathCause = cause;
+		stop();
+	}
+}
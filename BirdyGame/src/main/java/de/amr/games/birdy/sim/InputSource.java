@@ -0,0 +1,19 @@
+package de.amr.games.birdy.sim;
+
+/**
+ * Provides the state of the jump key to the headless game.
+ * 
+ * @author Armin Reichert
+ */
+@FunctionalInterface
+public interface InputSource {
+
+	/** Input source that never presses the jump key. */
+	public static final InputSource NONE = game -> false;
+
+	/**
+	 * @param game the game asking for input, may be inspected by bots
+	 * @return if the jump key is down in the current tick
+	 */
+	boolean jumpKeyDown(HeadlessGame game);
+}
@@ -0,0 +1,20 @@
+package de.amr.games.birdy.sim;
+
+/**
+ * Provides the state of the jump key to the birds of a population.
+ * 
+ * @author Armin Reichert
+ */
+@FunctionalInterface
+public interface PopulationInput {
+
+	/** Input that never presses the jump key. */
+	public static final PopulationInput NONE = (population, bird) -> false;
+
+	/**
+	 * @param population the population, may be inspected by bots
+	 * @param bird       index of the bird asking for input
+	 * @return if the jump key of the bird is down in the current tick
+	 */
+	boolean jumpKeyDown(PopulationSimulation population, int bird);
+}
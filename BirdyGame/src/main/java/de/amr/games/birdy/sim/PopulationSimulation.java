@@ -0,0 +1,578 @@
+package de.amr.games.birdy.sim;
+
+import static de.amr.games.birdy.entities.ObstacleController.Phase.BREEDING;
+import static de.amr.games.birdy.entities.ObstacleController.Phase.GIVING_BIRTH;
+import static de.amr.games.birdy.entities.ObstacleController.Phase.STOPPED;
+import static de.amr.games.birdy.PlayRules.FLAP_FORCE;
+import static de.amr.games.birdy.PlayRules.PIPE_PENALTY;
+import static de.amr.games.birdy.PlayRules.TURNED_DOWN_ROTATION;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+import de.amr.games.birdy.PlayRules;
+import de.amr.games.birdy.RandomStreams;
+import de.amr.games.birdy.RandomStreams.Stream;
+import de.amr.games.birdy.entities.BirdControl;
+import de.amr.games.birdy.entities.BirdEvent;
+import de.amr.games.birdy.entities.FlightState;
+import de.amr.games.birdy.entities.HealthState;
+import de.amr.games.birdy.entities.ObstacleController.Phase;
+import de.amr.games.birdy.fsm.CompiledStateMachine;
+
+/**
+ * Simulates a population of birds flying through the same obstacle course.
+ * <p>
+ * Each bird plays its own game by the rules of {@link HeadlessGame} (points, pipe penalty, the flight
+ * and health state machines of {@link BirdControl}, one event per machine and tick) but all birds
+ * share the obstacles. The
+ * obstacles are created from the seed exactly like in a single game and are stopped when the last
+ * bird is game over. A bird of the population therefore reaches the same score in the same number
+ * of ticks as in a {@link HeadlessGame} with the same seed, start position and input.
+ * <p>
+ * The state of the birds is stored in primitive arrays, the scene events of a bird are packed into an
+ * int. Only the state machines of a bird are objects, they run from the tables compiled for the bird
+ * and do not allocate when updated. The touching state of the bird and the obstacles is stored as bit
+ * masks indexed by the obstacle slot, therefore at most {@link #MAX_OBSTACLES} obstacles can be on
+ * the course at the same time.
+ *
+ * @author Armin Reichert
+ */
+public class PopulationSimulation {
+
+	public static final int MAX_OBSTACLES = 32;
+
+	private static final int QUEUE_CAPACITY = 10;
+
+	private static final BirdEvent[] EVENTS = BirdEvent.values();
+
+	private static final byte TOUCHING_GROUND = 1, IN_WORLD = 2, GAME_OVER = 4;
+
+	private final SimulationConfig cfg;
+	private final PopulationInput input;
+	private final RandomStreams rng;
+	private final int size;
+	private final int birdWidth, birdHeight, collisionMargin;
+	private final float groundY;
+
+	// birds
+	private final float[] x, y, vy, rotation;
+	private final byte[] flags, deathCause;
+	private final int[] points, ticks;
+	private final int[] touchingUpperPart, touchingLowerPart, inPassage;
+	private final int[] sceneEvents;
+	private final Body[] bodies;
+	private int alive;
+
+	// obstacles, slot of the i-th obstacle is (firstObstacle + i) % MAX_OBSTACLES
+	private final float[] obstacleX = new float[MAX_OBSTACLES];
+	private final int[] hangingHeight = new int[MAX_OBSTACLES];
+	private final int[] standingHeight = new int[MAX_OBSTACLES];
+	private int firstObstacle, obstacleCount;
+	private int passageHeight;
+	private float obstacleSpeed;
+
+	private Phase phase;
+	private long breedingTicks;
+	private long tick;
+
+	/**
+	 * @param cfg   game settings
+	 * @param input input of the birds
+	 * @param seed  seed of the obstacle course
+	 * @param size  number of birds
+	 */
+	public PopulationSimulation(SimulationConfig cfg, PopulationInput input, long seed, int size) {
+		this.cfg = cfg;
+		this.input = input;
+		this.rng = new RandomStreams(seed);
+		this.size = size;
+		birdWidth = cfg.birdSize;
+		birdHeight = cfg.birdSize;
+		collisionMargin = PlayRules.collisionMargin(birdWidth, birdHeight);
+		groundY = cfg.height - cfg.groundHeight;
+		x = new float[size];
+		y = new float[size];
+		vy = new float[size];
+		rotation = new float[size];
+		flags = new byte[size];
+		deathCause = new byte[size];
+		points = new int[size];
+		ticks = new int[size];
+		touchingUpperPart = new int[size];
+		touchingLowerPart = new int[size];
+		inPassage = new int[size];
+		sceneEvents = new int[size];
+		bodies = new Body[size];
+		LongSupplier injuredTicks = () -> cfg.sec(cfg.birdInjuredSeconds);
+		for (int i = 0; i < size; ++i) {
+			bodies[i] = new Body(i, injuredTicks);
+		}
+		init();
+	}
+
+	/**
+	 * Resets all birds and the obstacle course.
+	 */
+	public void init() {
+		rng.reseed(rng.getSeed());
+		Arrays.fill(x, cfg.width / 8);
+		Arrays.fill(y, groundY / 2);
+		Arrays.fill(vy, 0);
+		Arrays.fill(rotation, 0);
+		Arrays.fill(flags, (byte) 0);
+		Arrays.fill(deathCause, (byte) 0);
+		Arrays.fill(points, 0);
+		Arrays.fill(ticks, 0);
+		Arrays.fill(touchingUpperPart, 0);
+		Arrays.fill(touchingLowerPart, 0);
+		Arrays.fill(inPassage, 0);
+		Arrays.fill(sceneEvents, 0);
+		for (Body body : bodies) {
+			body.healthControl.init();
+			body.flightControl.init();
+		}
+		alive = size;
+		firstObstacle = obstacleCount = 0;
+		passageHeight = 2 * PlayRules.passageRadius(cfg.passageHeight);
+		tick = 0;
+		phase = STOPPED;
+		start();
+	}
+
+	/**
+	 * Sets the start position and vertical speed of a bird.
+	 *
+	 * @param bird bird index
+	 * @param x    x-position
+	 * @param y    y-position
+	 * @param vy   vertical speed
+	 */
+	public void placeBird(int bird, float x, float y, float vy) {
+		this.x[bird] = x;
+		this.y[bird] = y;
+		this.vy[bird] = vy;
+	}
+
+	/**
+	 * Advances all birds which are not game over and the obstacle course by one tick.
+	 */
+	public void step() {
+		for (int i = 0; i < size; ++i) {
+			if ((flags[i] & GAME_OVER) == 0) {
+				checkCollisions(i);
+			}
+		}
+		for (int i = 0; i < size; ++i) {
+			if ((flags[i] & GAME_OVER) == 0) {
+				updateBird(i);
+			}
+		}
+		updateObstacles();
+		updateObstacleController();
+		for (int i = 0; i < size; ++i) {
+			if ((flags[i] & GAME_OVER) == 0) {
+				updateScene(i);
+			}
+		}
+		++tick;
+	}
+
+	/**
+	 * Runs until all birds are game over or the given number of ticks has been simulated.
+	 *
+	 * @param maxTicks maximum number of ticks
+	 * @return number of simulated ticks
+	 */
+	public long run(long maxTicks) {
+		while (alive > 0 && tick < maxTicks) {
+			step();
+		}
+		return tick;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getAliveCount() {
+		return alive;
+	}
+
+	public long getTick() {
+		return tick;
+	}
+
+	public long getSeed() {
+		return rng.getSeed();
+	}
+
+	public SimulationConfig getConfig() {
+		return cfg;
+	}
+
+	public float getGroundY() {
+		return groundY;
+	}
+
+	public Phase getObstacleControllerPhase() {
+		return phase;
+	}
+
+	public boolean isGameOver(int bird) {
+		return (flags[bird] & GAME_OVER) != 0;
+	}
+
+	public int getPoints(int bird) {
+		return points[bird];
+	}
+
+	/**
+	 * @param bird bird index
+	 * @return number of ticks the bird played, the current tick if it is still playing
+	 */
+	public long getTicks(int bird) {
+		return isGameOver(bird) ? ticks[bird] : tick;
+	}
+
+	/**
+	 * @param bird bird index
+	 * @return the event which ended the game of the bird or {@code null} if it is still playing
+	 */
+	public BirdEvent getDeathCause(int bird) {
+		return deathCause[bird] == 0 ? null : EVENTS[deathCause[bird] - 1];
+	}
+
+	public float getX(int bird) {
+		return x[bird];
+	}
+
+	public float getY(int bird) {
+		return y[bird];
+	}
+
+	public float getVY(int bird) {
+		return vy[bird];
+	}
+
+	public float getRotation(int bird) {
+		return rotation[bird];
+	}
+
+	public FlightState getFlightState(int bird) {
+		return bodies[bird].flightControl.getState();
+	}
+
+	public HealthState getHealthState(int bird) {
+		return bodies[bird].healthControl.getState();
+	}
+
+	public int getBirdWidth() {
+		return birdWidth;
+	}
+
+	public int getBirdHeight() {
+		return birdHeight;
+	}
+
+	public float getCollisionX(int bird) {
+		return x[bird] + collisionMargin;
+	}
+
+	public float getCollisionY(int bird) {
+		return y[bird] + collisionMargin;
+	}
+
+	public int getCollisionWidth() {
+		return birdWidth - 2 * collisionMargin;
+	}
+
+	public int getCollisionHeight() {
+		return birdHeight - 2 * collisionMargin;
+	}
+
+	/**
+	 * @return number of obstacles on the course, ordered by x-position
+	 */
+	public int getObstacleCount() {
+		return obstacleCount;
+	}
+
+	public float getObstacleX(int obstacle) {
+		return obstacleX[slot(obstacle)];
+	}
+
+	public int getObstacleWidth() {
+		return cfg.obstacleWidth;
+	}
+
+	public int getPassageY(int obstacle) {
+		return hangingHeight[slot(obstacle)];
+	}
+
+	public int getPassageHeight() {
+		return passageHeight;
+	}
+
+	public int getStandingY(int obstacle) {
+		return hangingHeight[slot(obstacle)] + passageHeight;
+	}
+
+	public int getStandingHeight(int obstacle) {
+		return standingHeight[slot(obstacle)];
+	}
+
+	private int slot(int obstacle) {
+		return (firstObstacle + obstacle) & (MAX_OBSTACLES - 1);
+	}
+
+	// Scene event queues, each event is stored as ordinal + 1 in 3 bits
+
+	private static int enqueue(int queue, BirdEvent event) {
+		int length = queue == 0 ? 0 : (31 - Integer.numberOfLeadingZeros(queue)) / 3 + 1;
+		if (length == QUEUE_CAPACITY) {
+			throw new IllegalStateException("Event queue overflow");
+		}
+		return queue | (event.ordinal() + 1) << 3 * length;
+	}
+
+	private static BirdEvent peek(int queue) {
+		return queue == 0 ? null : EVENTS[(queue & 7) - 1];
+	}
+
+	private void dispatch(int bird, BirdEvent event) {
+		sceneEvents[bird] = enqueue(sceneEvents[bird], event);
+		dispatchToBird(bird, event);
+	}
+
+	private void dispatchToBird(int bird, BirdEvent event) {
+		bodies[bird].flightControl.enqueue(event);
+		bodies[bird].healthControl.enqueue(event);
+	}
+
+	// Collisions
+
+	private void checkCollisions(int i) {
+		float bx = getCollisionX(i), by = getCollisionY(i);
+		int bw = getCollisionWidth(), bh = getCollisionHeight();
+
+		boolean touchingGround = intersects(bx, by, bw, bh, 0, groundY, cfg.width, cfg.groundHeight);
+		if (touchingGround && (flags[i] & TOUCHING_GROUND) == 0) {
+			dispatch(i, BirdEvent.TOUCHED_GROUND);
+		}
+		// the world area is created with y=0 and height 2*h, see BirdyGameApp.init()
+		boolean inWorld = intersects(bx, by, bw, bh, 0, 0, cfg.width, 2 * cfg.height);
+		if (!inWorld && (flags[i] & IN_WORLD) != 0) {
+			dispatch(i, BirdEvent.LEFT_WORLD);
+		}
+		flags[i] = (byte) ((flags[i] & GAME_OVER) | (touchingGround ? TOUCHING_GROUND : 0) | (inWorld ? IN_WORLD : 0));
+
+		int upperMask = touchingUpperPart[i], lowerMask = touchingLowerPart[i], passageMask = inPassage[i];
+		int width = cfg.obstacleWidth;
+		for (int k = 0; k < obstacleCount; ++k) {
+			int slot = slot(k), bit = 1 << slot;
+			boolean touching = ((upperMask | lowerMask | passageMask) & bit) != 0;
+			int ox = (int) obstacleX[slot];
+			if (ox >= bx + bw && !touching) {
+				break;
+			}
+			if (ox + width <= bx && !touching) {
+				continue;
+			}
+			int passageY = hangingHeight[slot], standingY = passageY + passageHeight;
+			if (intersects(bx, by, bw, bh, ox, 0, width, hangingHeight[slot])) {
+				if ((upperMask & bit) == 0) {
+					dispatch(i, BirdEvent.TOUCHED_PIPE);
+				}
+				upperMask |= bit;
+			} else {
+				upperMask &= ~bit;
+			}
+			if (intersects(bx, by, bw, bh, ox, standingY, width, standingHeight[slot])) {
+				if ((lowerMask & bit) == 0) {
+					dispatch(i, BirdEvent.TOUCHED_PIPE);
+				}
+				lowerMask |= bit;
+			} else {
+				lowerMask &= ~bit;
+			}
+			if (intersects(bx, by, bw, bh, ox, passageY, width, passageHeight)) {
+				passageMask |= bit;
+			} else {
+				if ((passageMask & bit) != 0) {
+					dispatch(i, BirdEvent.PASSED_OBSTACLE);
+				}
+				passageMask &= ~bit;
+			}
+		}
+		touchingUpperPart[i] = upperMask;
+		touchingLowerPart[i] = lowerMask;
+		inPassage[i] = passageMask;
+	}
+
+	private static boolean intersects(float x1, float y1, float w1, float h1, float x2, float y2, float w2, float h2) {
+		return w1 > 0 && h1 > 0 && w2 > 0 && h2 > 0 && x2 + w2 > x1 && y2 + h2 > y1 && x2 < x1 + w1 && y2 < y1 + h1;
+	}
+
+	// Birds
+
+	private void updateBird(int i) {
+		bodies[i].flightControl.update();
+		bodies[i].healthControl.update();
+	}
+
+	/*
+	 * The state machines of a bird and what they do with the arrays of the bird, with the same rules as
+	 * Bird.flap(), Bird.fly() and Bird.fall().
+	 */
+	private class Body implements BirdControl.Body {
+
+		private final int i;
+		private final CompiledStateMachine<FlightState, BirdEvent> flightControl;
+		private final CompiledStateMachine<HealthState, BirdEvent> healthControl;
+
+		Body(int i, LongSupplier injuredTicks) {
+			this.i = i;
+			flightControl = BirdControl.flightControl(this);
+			healthControl = BirdControl.healthControl(this, injuredTicks);
+		}
+
+		@Override
+		public boolean jumpKeyDown() {
+			return input.jumpKeyDown(PopulationSimulation.this, i);
+		}
+
+		@Override
+		public void flap() {
+			vy[i] = PlayRules.flapVelocity(vy[i], cfg.worldGravity, FLAP_FORCE);
+			fly();
+		}
+
+		@Override
+		public void fly() {
+			float v = vy[i];
+			if (PlayRules.aboveWorld(y[i], birdHeight)) {
+				v = 0;
+			}
+			v = PlayRules.flyVelocity(v, cfg.worldGravity);
+			rotation[i] = (float) PlayRules.flightRotation(v);
+			vy[i] = v;
+			y[i] += v;
+		}
+
+		@Override
+		public void fall(float slowdown) {
+			vy[i] = PlayRules.fallVelocity(vy[i], cfg.worldGravity, slowdown);
+			y[i] += vy[i];
+		}
+
+		@Override
+		public void turnDown() {
+			rotation[i] = (float) TURNED_DOWN_ROTATION;
+			vy[i] = 0;
+		}
+	}
+
+	// Obstacles
+
+	private void updateObstacles() {
+		for (int k = 0; k < obstacleCount; ++k) {
+			obstacleX[slot(k)] += obstacleSpeed;
+		}
+	}
+
+	private void updateObstacleController() {
+		if (phase == BREEDING) {
+			if (--breedingTicks <= 0) {
+				phase = GIVING_BIRTH;
+				updateObstacleList();
+			}
+		} else if (phase == GIVING_BIRTH) {
+			enterBreeding();
+		}
+	}
+
+	private void enterBreeding() {
+		phase = BREEDING;
+		breedingTicks = rng.nextInt(Stream.BREEDING, (int) cfg.sec(cfg.minPipeCreationSec),
+				(int) cfg.sec(cfg.maxPipeCreationSec));
+	}
+
+	private void updateObstacleList() {
+		// all obstacles move with the same speed, so the obstacles which left the course are the first ones
+		while (obstacleCount > 0 && obstacleX[firstObstacle] + cfg.obstacleWidth < 0) {
+			firstObstacle = (firstObstacle + 1) & (MAX_OBSTACLES - 1);
+			--obstacleCount;
+		}
+		if (obstacleCount == MAX_OBSTACLES) {
+			throw new IllegalStateException("Too many obstacles on the course");
+		}
+
+		int passageRadius = PlayRules.passageRadius(cfg.passageHeight);
+		int passageCenterY = rng.nextInt(Stream.OBSTACLES,
+				PlayRules.minPassageCenterY(cfg.minObstacleHeight, passageRadius),
+				PlayRules.maxPassageCenterY((int) groundY, cfg.minObstacleHeight, passageRadius));
+		int slot = slot(obstacleCount++), keep = ~(1 << slot);
+		obstacleX[slot] = cfg.width;
+		hangingHeight[slot] = PlayRules.hangingHeight(passageCenterY, passageRadius);
+		standingHeight[slot] = PlayRules.standingHeight(cfg.obstacleHeight, passageCenterY, passageRadius);
+		for (int i = 0; i < size; ++i) {
+			touchingUpperPart[i] &= keep;
+			touchingLowerPart[i] &= keep;
+			inPassage[i] &= keep;
+		}
+	}
+
+	// Scene
+
+	private void start() {
+		obstacleSpeed = cfg.worldSpeed;
+		if (phase == STOPPED) {
+			enterBreeding();
+		}
+	}
+
+	private void stop() {
+		obstacleSpeed = 0;
+		phase = STOPPED;
+	}
+
+	private void updateScene(int i) {
+		BirdEvent event = peek(sceneEvents[i]);
+		if (event == null) {
+			return;
+		}
+		sceneEvents[i] >>>= 3;
+		switch (event) {
+		case TOUCHED_PIPE:
+			if (PlayRules.survivesPipe(points[i])) {
+				points[i] -= PIPE_PENALTY;
+				x[i] += PlayRules.knockback(cfg.obstacleWidth, birdWidth);
+				dispatchToBird(i, BirdEvent.TOUCHED_PIPE);
+			} else {
+				gameOver(i, event);
+				dispatchToBird(i, BirdEvent.CRASHED);
+			}
+			break;
+		case PASSED_OBSTACLE:
+			points[i]++;
+			break;
+		case TOUCHED_GROUND:
+		case LEFT_WORLD:
+			gameOver(i, event);
+			dispatchToBird(i, event);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void gameOver(int i, BirdEvent cause) {
+		flags[i] |= GAME_OVER;
+		deathCause[i] = (byte) (cause.ordinal() + 1);
+		ticks[i] = (int) (tick + 1);
+		if (--alive == 0) {
+			stop();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package de.amr.games.birdy.sim;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import de.amr.easy.game.assets.Assets;
+import de.amr.games.birdy.sprites.ScaledImageCache;
+
+/**
+ * Draws the obstacles and the birds of a population using the sprites of the game. The sprite
+ * sheet must have been extracted before.
+ * <p>
+ * Birds which are game over are not drawn. Like in the game, the feather color shows the health
+ * state and the wings are animated while the bird flies upwards.
+ *
+ * @author Armin Reichert
+ */
+public class PopulationView {
+
+	private static final int[] FRAME_SEQUENCE = { 0, 1, 2, 1 };
+
+	private final PopulationSimulation population;
+	private final BufferedImage[][] birdImages = new BufferedImage[3][3];
+	private final BufferedImage pipeDown, pipeUp;
+	private final ScaledImageCache pipeImages = new ScaledImageCache(64);
+	private final int ticksPerFrame;
+
+	/**
+	 * @param population the population
+	 * @param flapMillis duration of a frame of the wing animation
+	 */
+	public PopulationView(PopulationSimulation population, int flapMillis) {
+		this.population = population;
+		// feather colors by health state: yellow (sane), red (injured), blue (dead)
+		String[] birdNames = { "bird0", "bird2", "bird1" };
+		for (int health = 0; health < birdNames.length; ++health) {
+			for (int frame = 0; frame < 3; ++frame) {
+				birdImages[health][frame] = Assets.image(birdNames[health] + "_" + frame);
+			}
+		}
+		pipeDown = Assets.image("pipe_down");
+		pipeUp = Assets.image("pipe_up");
+		ticksPerFrame = Math.max(1, (int) population.getConfig().sec(flapMillis / 1000f));
+	}
+
+	public void draw(Graphics2D g) {
+		int width = population.getObstacleWidth();
+		for (int k = 0; k < population.getObstacleCount(); ++k) {
+			int x = (int) population.getObstacleX(k);
+			int hangingHeight = population.getPassageY(k), standingHeight = population.getStandingHeight(k);
+			if (hangingHeight > 0) {
+				g.drawImage(pipeImages.get(pipeDown, width, hangingHeight), x, 0, null);
+			}
+			if (standingHeight > 0) {
+				g.drawImage(pipeImages.get(pipeUp, width, standingHeight), x, population.getStandingY(k), null);
+			}
+		}
+		AffineTransform saved = g.getTransform();
+		int frame = FRAME_SEQUENCE[(int) (population.getTick() / ticksPerFrame % FRAME_SEQUENCE.length)];
+		for (int i = 0; i < population.size(); ++i) {
+			if (population.isGameOver(i)) {
+				continue;
+			}
+			BufferedImage image = birdImages[population.getHealthState(i).ordinal()][population.getVY(i) < 0 ? frame : 0];
+			g.translate(population.getX(i) + population.getBirdWidth() / 2,
+					population.getY(i) + population.getBirdHeight() / 2);
+			g.rotate(population.getRotation(i));
+			g.drawImage(image, -image.getWidth() / 2, -image.getHeight() / 2, null);
+			g.setTransform(saved);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package de.amr.games.birdy.sim;
+
+/**
+ * Settings used by the headless game. The defaults are the values configured in
+ * {@link de.amr.games.birdy.BirdyGameApp}.
+ * 
+ * @author Armin Reichert
+ */
+public class SimulationConfig {
+
+	public int ticksPerSecond = 60;
+	public int width = 640;
+	public int height = 480;
+	public int birdSize = 48;
+	public int groundHeight = 112;
+	public float worldGravity = 0.4f;
+	public float worldSpeed = -2.5f;
+	public float birdInjuredSeconds = 1f;
+	public float minPipeCreationSec = 1f;
+	public float maxPipeCreationSec = 5f;
+	public int obstacleHeight = 480 - 112;
+	public int obstacleWidth = 52;
+	public int minObstacleHeight = 100;
+	public int passageHeight = 100;
+
+	/**
+	 * @param amount seconds
+	 * @return number of ticks for the given seconds
+	 */
+	public long sec(float amount) {
+		return Math.round(amount * ticksPerSecond);
+	}
+}
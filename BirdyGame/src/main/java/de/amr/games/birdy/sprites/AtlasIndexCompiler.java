@@ -0,0 +1,147 @@
+package de.amr.games.birdy.sprites;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the text index of the sprite sheet ({@code atlas.txt}) into the binary index read by
+ * {@link SpriteAtlas}. Runs at build time, see {@code pom.xml}. If the human-readable index
+ * ({@code spritesByName.txt}) is given too, the build fails if it does not match the text index.
+ * <p>
+ * The text index contains for each sprite its name, its size and its normalized position and size
+ * in the atlas image. The binary index (big endian) consists of
+ * <ul>
+ * <li>a header of {@value #HEADER_SIZE} bytes: magic number, version, number of sprites, offset of
+ * the names block
+ * <li>one record of {@value #RECORD_SIZE} bytes per sprite, ordered by sprite name: offset and length
+ * of the name in the names block, x, y, width and height in pixels
+ * <li>the names block containing the UTF-8 encoded sprite names
+ * </ul>
+ *
+ * @author Armin Reichert
+ */
+public class AtlasIndexCompiler {
+
+	public static final int MAGIC = 0x4241544C; // "BATL"
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = 16;
+
+	/** Size of the atlas image to which the coordinates in the text index are normalized. */
+	public static final int ATLAS_SIZE = 1024;
+
+	private static final Pattern SPRITE_BY_NAME = Pattern
+			.compile("\"(\\S+)\",\\s*location:\\((\\d+),(\\d+)\\),\\s*size:\\((\\d+),(\\d+)\\)");
+
+	/**
+	 * Usage: {@code AtlasIndexCompiler <atlas.txt> [<spritesByName.txt>] <atlas.idx>}
+	 */
+	public static void main(String[] args) throws IOException {
+		Path source = Path.of(args[0]), target = Path.of(args[args.length - 1]);
+		String atlasText = Files.readString(source, StandardCharsets.UTF_8);
+		if (args.length > 2) {
+			check(atlasText, Files.readString(Path.of(args[1]), StandardCharsets.UTF_8));
+		}
+		byte[] index = compile(atlasText);
+		Files.createDirectories(target.toAbsolutePath().getParent());
+		Files.write(target, index);
+		System.out.printf("Compiled %s into %s (%d bytes)%n", source, target, index.length);
+	}
+
+	private static class Entry {
+
+		final byte[] name;
+		final int x, y, width, height;
+
+		Entry(String name, int x, int y, int width, int height) {
+			this.name = name.getBytes(StandardCharsets.UTF_8);
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	/**
+	 * @param atlasText content of the text index
+	 * @return binary index
+	 */
+	public static byte[] compile(String atlasText) {
+		String[] map = atlasText.trim().split("\\s+");
+		List<Entry> entries = new ArrayList<>();
+		for (int i = 0; i < map.length;) {
+			String spriteName = map[i++];
+			i += 2; // skip next 2 tokens
+			int x = Math.round(Float.parseFloat(map[i++]) * ATLAS_SIZE);
+			int y = Math.round(Float.parseFloat(map[i++]) * ATLAS_SIZE);
+			int width = Math.round(Float.parseFloat(map[i++]) * ATLAS_SIZE);
+			int height = Math.round(Float.parseFloat(map[i++]) * ATLAS_SIZE);
+			entries.add(new Entry(spriteName, x, y, width, height));
+		}
+		entries.sort(Comparator.comparing(entry -> entry.name, Arrays::compareUnsigned));
+
+		int namesSize = entries.stream().mapToInt(entry -> entry.name.length).sum();
+		int namesOffset = HEADER_SIZE + entries.size() * RECORD_SIZE;
+		ByteBuffer index = ByteBuffer.allocate(namesOffset + namesSize);
+		index.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(entries.size()).putInt(namesOffset);
+		int nameOffset = 0;
+		for (Entry entry : entries) {
+			index.putInt(nameOffset).putShort(u16(entry.name.length)).putShort(u16(entry.x)).putShort(u16(entry.y))
+					.putShort(u16(entry.width)).putShort(u16(entry.height)).putShort((short) 0);
+			nameOffset += entry.name.length;
+		}
+		entries.forEach(entry -> index.put(entry.name));
+		return index.array();
+	}
+
+	/**
+	 * Checks that the human-readable index lists the same sprites at the same locations and with the
+	 * same (declared) sizes as the text index.
+	 * 
+	 * @param atlasText         content of the text index
+	 * @param spritesByNameText content of the human-readable index
+	 * @throws IllegalStateException if the indices do not match
+	 */
+	public static void check(String atlasText, String spritesByNameText) {
+		List<String> expected = new ArrayList<>();
+		String[] map = atlasText.trim().split("\\s+");
+		for (int i = 0; i < map.length;) {
+			String spriteName = map[i++];
+			String width = map[i++], height = map[i++];
+			int x = Math.round(Float.parseFloat(map[i++]) * ATLAS_SIZE);
+			int y = Math.round(Float.parseFloat(map[i++]) * ATLAS_SIZE);
+			i += 2; // skip region size
+			expected.add(spriteName + " " + x + " " + y + " " + width + " " + height);
+		}
+		List<String> actual = new ArrayList<>();
+		Matcher m = SPRITE_BY_NAME.matcher(spritesByNameText);
+		while (m.find()) {
+			actual.add(m.group(1) + " " + m.group(2) + " " + m.group(3) + " " + m.group(4) + " " + m.group(5));
+		}
+		expected.sort(null);
+		actual.sort(null);
+		if (!expected.equals(actual)) {
+			List<String> missing = new ArrayList<>(expected), unexpected = new ArrayList<>(actual);
+			missing.removeAll(actual);
+			unexpected.removeAll(expected);
+			throw new IllegalStateException(
+					"Sprite indices do not match, missing: " + missing + ", unexpected: " + unexpected);
+		}
+	}
+
+	private static short u16(int value) {
+		if (value < 0 || value > 0xFFFF) {
+			throw new IllegalArgumentException("Value does not fit into index record: " + value);
+		}
+		return (short) value;
+	}
+}
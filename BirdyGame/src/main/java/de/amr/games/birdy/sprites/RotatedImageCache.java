@@ -0,0 +1,117 @@
+package de.amr.games.birdy.sprites;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Cache of rotated versions of images for the angles of a fixed range, divided into steps.
+ * <p>
+ * Drawing an image with a rotated graphics transform allocates memory inside the graphics pipeline
+ * on each call. Drawing a rotated version from this cache is a plain image copy. The images are
+ * rotated around their center into a square image whose center is the center of the source, they
+ * are created when first requested and stay in the cache. Looking up an image does not allocate.
+ *
+ * @author Armin Reichert
+ */
+public class RotatedImageCache {
+
+	private final double minAngle;
+	private final double stepAngle;
+	private final int steps;
+	private final Map<BufferedImage, BufferedImage[]> images = new IdentityHashMap<>();
+
+	/**
+	 * @param minAngle smallest angle (radians)
+	 * @param maxAngle largest angle (radians)
+	 * @param steps    number of angles from the smallest to the largest angle, both included
+	 */
+	public RotatedImageCache(double minAngle, double maxAngle, int steps) {
+		if (steps < 2 || maxAngle <= minAngle) {
+			throw new IllegalArgumentException("Invalid angle range");
+		}
+		this.minAngle = minAngle;
+		this.stepAngle = (maxAngle - minAngle) / (steps - 1);
+		this.steps = steps;
+	}
+
+	/**
+	 * @param angle an angle (radians)
+	 * @return the step of the nearest cached angle
+	 */
+	public int step(double angle) {
+		int step = (int) Math.round((angle - minAngle) / stepAngle);
+		return Math.max(0, Math.min(step, steps - 1));
+	}
+
+	/**
+	 * @param step step of an angle
+	 * @return the angle of this step (radians)
+	 */
+	public double angle(int step) {
+		return minAngle + step * stepAngle;
+	}
+
+	/**
+	 * @param source source image
+	 * @param step   step of the rotation angle
+	 * @return the source image rotated by the angle of the step around its center
+	 */
+	public synchronized BufferedImage get(BufferedImage source, int step) {
+		BufferedImage[] rotations = images.get(source);
+		if (rotations == null) {
+			rotations = new BufferedImage[steps];
+			images.put(source, rotations);
+		}
+		if (rotations[step] == null) {
+			rotations[step] = rotate(source, angle(step));
+		}
+		return rotations[step];
+	}
+
+	/**
+	 * Creates the rotated images of the source for all angles such that looking them up later never
+	 * rotates an image.
+	 * 
+	 * @param source source image
+	 */
+	public void prewarm(BufferedImage source) {
+		for (int step = 0; step < steps; ++step) {
+			get(source, step);
+		}
+	}
+
+	public synchronized int size() {
+		int n = 0;
+		for (BufferedImage[] rotations : images.values()) {
+			for (BufferedImage image : rotations) {
+				if (image != null) {
+					++n;
+				}
+			}
+		}
+		return n;
+	}
+
+	public synchronized void clear() {
+		images.clear();
+	}
+
+	private static BufferedImage rotate(BufferedImage source, double angle) {
+		int w = source.getWidth(), h = source.getHeight();
+		int size = (int) Math.ceil(Math.hypot(w, h)) + 2;
+		BufferedImage rotated = ScaledImageCache.createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+		Graphics2D g = rotated.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.translate(size / 2.0, size / 2.0);
+		g.rotate(angle);
+		g.translate(-w / 2.0, -h / 2.0);
+		g.drawImage(source, 0, 0, null);
+		g.dispose();
+		return rotated;
+	}
+}
@@ -0,0 +1,109 @@
+package de.amr.games.birdy.sprites;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of scaled versions of images.
+ * <p>
+ * The scaled images are compatible with the screen so they can be accelerated by the graphics
+ * pipeline. Unlike {@link java.awt.Image#getScaledInstance(int, int, int)} the scaling is done
+ * immediately and not when the image is drawn first. If the cache is full, the least recently used
+ * image is evicted.
+ *
+ * @author Armin Reichert
+ */
+public class ScaledImageCache {
+
+	private static class Key {
+
+		private final BufferedImage source;
+		private final int width, height;
+
+		public Key(BufferedImage source, int width, int height) {
+			this.source = source;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(source) + width) + height;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return source == other.source && width == other.width && height == other.height;
+		}
+	}
+
+	private final Map<Key, BufferedImage> images;
+
+	/**
+	 * @param capacity maximum number of cached images
+	 */
+	public ScaledImageCache(int capacity) {
+		images = new LinkedHashMap<>(2 * capacity, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * @param source source image
+	 * @param width  width of scaled image
+	 * @param height height of scaled image
+	 * @return scaled image from the cache, created if not yet cached
+	 */
+	public synchronized BufferedImage get(BufferedImage source, int width, int height) {
+		return images.computeIfAbsent(new Key(source, width, height), key -> scale(source, width, height));
+	}
+
+	public synchronized int size() {
+		return images.size();
+	}
+
+	public synchronized void clear() {
+		images.clear();
+	}
+
+	private static BufferedImage scale(BufferedImage source, int width, int height) {
+		BufferedImage scaled = createCompatibleImage(width, height, source.getTransparency());
+		Graphics2D g = scaled.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.drawImage(source, 0, 0, width, height, null);
+		g.dispose();
+		return scaled;
+	}
+
+	/**
+	 * @param width        image width
+	 * @param height       image height
+	 * @param transparency transparency as defined in {@link Transparency}
+	 * @return image compatible with the default screen or an ARGB image if there is no screen
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height,
+					transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+				.createCompatibleImage(width, height, transparency);
+	}
+}
@@ -0,0 +1,214 @@
+package de.amr.games.birdy.sprites;
+
+import static de.amr.games.birdy.sprites.AtlasIndexCompiler.HEADER_SIZE;
+import static de.amr.games.birdy.sprites.AtlasIndexCompiler.MAGIC;
+import static de.amr.games.birdy.sprites.AtlasIndexCompiler.RECORD_SIZE;
+import static de.amr.games.birdy.sprites.AtlasIndexCompiler.VERSION;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.amr.easy.game.assets.Assets;
+
+/**
+ * The sprites of the sprite sheet, looked up by name in the binary index created by
+ * {@link AtlasIndexCompiler} at build time.
+ * <p>
+ * The index is memory-mapped if it is a file, otherwise (inside a jar) it is read into a direct
+ * buffer. Opening the atlas reads nothing else: the atlas image is loaded when the first sprite is
+ * requested and each sprite image is created when it is requested the first time. If there is no
+ * binary index (e.g. when running from an IDE without the Maven build), the text index is compiled
+ * in memory. Sprite images can be requested from multiple threads.
+ *
+ * @author Armin Reichert
+ */
+public class SpriteAtlas {
+
+	public static final String INDEX_PATH = "spritesheet/atlas.idx";
+	public static final String TEXT_INDEX_PATH = "spritesheet/atlas.txt";
+	public static final String IMAGE_PATH = "spritesheet/atlas.png";
+
+	/**
+	 * @param compile if sprites are copied into compatible images, otherwise they are views into the
+	 *                atlas image
+	 * @return the sprite atlas of the game
+	 */
+	public static SpriteAtlas open(boolean compile) {
+		URL url = SpriteAtlas.class.getResource("/" + INDEX_PATH);
+		try {
+			if (url == null) {
+				return new SpriteAtlas(ByteBuffer.wrap(AtlasIndexCompiler.compile(Assets.readTextFile(TEXT_INDEX_PATH))),
+						compile);
+			}
+			if ("file".equals(url.getProtocol())) {
+				try (FileChannel channel = FileChannel.open(Path.of(url.toURI()))) {
+					return new SpriteAtlas(channel.map(MapMode.READ_ONLY, 0, channel.size()), compile);
+				}
+			}
+			try (InputStream in = url.openStream()) {
+				byte[] bytes = in.readAllBytes();
+				return new SpriteAtlas(ByteBuffer.allocateDirect(bytes.length).put(bytes).flip(), compile);
+			}
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		} catch (URISyntaxException x) {
+			throw new IllegalStateException(x);
+		}
+	}
+
+	private final ByteBuffer index;
+	private final int size;
+	private final int namesOffset;
+	private final boolean compile;
+	private final AtomicReferenceArray<BufferedImage> images;
+	private BufferedImage atlas;
+
+	public SpriteAtlas(ByteBuffer index, boolean compile) {
+		if (index.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a sprite atlas index");
+		}
+		if (index.getShort(4) != VERSION) {
+			throw new IllegalArgumentException("Unsupported sprite atlas index version " + index.getShort(4));
+		}
+		this.index = index;
+		this.compile = compile;
+		size = index.getInt(8);
+		namesOffset = index.getInt(12);
+		images = new AtomicReferenceArray<>(size);
+	}
+
+	/**
+	 * @return if sprites are copied into compatible images, otherwise they are views into the atlas
+	 *         image
+	 */
+	public boolean isCompiling() {
+		return compile;
+	}
+
+	/**
+	 * @return number of sprites
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i sprite number, sprites are ordered by name
+	 * @return sprite name
+	 */
+	public String name(int i) {
+		byte[] name = new byte[nameLength(i)];
+		index.get(namesOffset + nameOffset(i), name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	public int x(int i) {
+		return field(i, 6);
+	}
+
+	public int y(int i) {
+		return field(i, 8);
+	}
+
+	public int width(int i) {
+		return field(i, 10);
+	}
+
+	public int height(int i) {
+		return field(i, 12);
+	}
+
+	/**
+	 * @param name sprite name
+	 * @return sprite number or {@code -1} if there is no sprite with this name
+	 */
+	public int find(String name) {
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		int low = 0, high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compareName(mid, key);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param name sprite name
+	 * @return sprite image, created on first request
+	 * @throws IllegalArgumentException if there is no sprite with this name
+	 */
+	public BufferedImage image(String name) {
+		int i = find(name);
+		if (i == -1) {
+			throw new IllegalArgumentException("No sprite with name " + name);
+		}
+		return image(i);
+	}
+
+	/**
+	 * @param i sprite number
+	 * @return sprite image, created on first request
+	 */
+	public BufferedImage image(int i) {
+		BufferedImage image = images.get(i);
+		if (image == null) {
+			BufferedImage view = atlas().getSubimage(x(i), y(i), width(i), height(i));
+			image = compile ? SpritesheetReader.compile(view) : view;
+			if (!images.compareAndSet(i, null, image)) {
+				image = images.get(i);
+			}
+		}
+		return image;
+	}
+
+	private synchronized BufferedImage atlas() {
+		if (atlas == null) {
+			atlas = Assets.image(IMAGE_PATH);
+		}
+		return atlas;
+	}
+
+	private int record(int i) {
+		return HEADER_SIZE + i * RECORD_SIZE;
+	}
+
+	private int nameOffset(int i) {
+		return index.getInt(record(i));
+	}
+
+	private int nameLength(int i) {
+		return field(i, 4);
+	}
+
+	private int field(int i, int offset) {
+		return Short.toUnsignedInt(index.getShort(record(i) + offset));
+	}
+
+	private int compareName(int i, byte[] key) {
+		int start = namesOffset + nameOffset(i), length = nameLength(i);
+		for (int k = 0; k < Math.min(length, key.length); ++k) {
+			int cmp = Byte.compareUnsigned(index.get(start + k), key[k]);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return length - key.length;
+	}
+}
@@ -18,8 +18,7 @@ public class SpriteBrowserApp extends Application {
 
 	@Override
 	public void init() {
-		SpritesheetReader.extractSpriteSheet();
-		setController(new SpriteBrowserScene(settings().width, settings().height));
+		setController(new SpriteBrowserScene(SpriteAtlas.open(true), settings().width, settings().height));
 		clock().setTargetFrameRate(10);
 	}
 }
@@ -5,11 +5,7 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 
-import de.amr.easy.game.assets.Assets;
 import de.amr.easy.game.controller.Lifecycle;
 import de.amr.easy.game.input.Keyboard;
 import de.amr.easy.game.view.View;
@@ -18,16 +14,12 @@ public class SpriteBrowserScene implements Lifecycle, View {
 
 	private final int height;
 	private final Font font = new Font("Courier New", Font.PLAIN, 16);
-	private final List<String> spriteNames;
+	private final SpriteAtlas atlas;
 	private int index;
 
-	public SpriteBrowserScene(int width, int height) {
+	public SpriteBrowserScene(SpriteAtlas atlas, int width, int height) {
+		this.atlas = atlas;
 		this.height = height;
-		spriteNames = new ArrayList<>();
-		for (String name : Assets.imageNames()) {
-			spriteNames.add(name);
-		}
-		Collections.sort(spriteNames);
 	}
 
 	@Override
@@ -37,19 +29,19 @@ public class SpriteBrowserScene implements Lifecycle, View {
 	@Override
 	public void update() {
 		if (Keyboard.keyPressedOnce(KeyEvent.VK_RIGHT)) {
-			index = index + 1 == spriteNames.size() ? 0 : index + 1;
+			index = index + 1 == atlas.size() ? 0 : index + 1;
 		} else if (Keyboard.keyPressedOnce(KeyEvent.VK_LEFT)) {
-			index = index == 0 ? spriteNames.size() - 1 : index - 1;
+			index = index == 0 ? atlas.size() - 1 : index - 1;
 		}
 	}
 
 	@Override
 	public void draw(Graphics2D g) {
-		if (spriteNames.isEmpty()) {
+		if (atlas.size() == 0) {
 			return;
 		}
-		String name = spriteNames.get(index);
-		BufferedImage image = Assets.image(name);
+		String name = atlas.name(index);
+		BufferedImage image = atlas.image(index);
 		String text = name + " (" + image.getWidth() + "x" + image.getHeight() + ")";
 		text += " (Keys: LEFT=Previous, RIGHT=Next, X=Exit)";
 		g.setColor(Color.WHITE);
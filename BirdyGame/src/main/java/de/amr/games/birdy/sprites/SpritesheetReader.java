@@ -1,23 +1,144 @@
 package de.amr.games.birdy.sprites;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import de.amr.easy.game.assets.Assets;
 
+/**
+ * Extracts the sprites from the sprite sheet and stores them as image assets. The framework sprites
+ * take their images from the assets, so all sprites are extracted. To create sprite images on
+ * demand, use {@link SpriteAtlas} directly.
+ * <p>
+ * By default, each sprite is copied into its own image compatible with the screen, using the
+ * transparency actually needed by the sprite. Such images do not keep the atlas raster alive and can
+ * be accelerated by the graphics pipeline. Alternatively, the sprites can be stored as views into the
+ * atlas image.
+ * 
+ * @author Armin Reichert
+ */
 public class SpritesheetReader {
 
-	public static void extractSpriteSheet() {
-		BufferedImage atlas = Assets.image("spritesheet/atlas.png");
-		String[] map = Assets.readTextFile("spritesheet/atlas.txt").split("\\s+");
-		int scale = 1024;
-		for (int i = 0; i < map.length;) {
-			String spriteName = map[i++];
-			i += 2; // skip next 2 tokens
-			int x = Math.round(Float.parseFloat(map[i++]) * scale);
-			int y = Math.round(Float.parseFloat(map[i++]) * scale);
-			int width = Math.round(Float.parseFloat(map[i++]) * scale);
-			int height = Math.round(Float.parseFloat(map[i++]) * scale);
-			Assets.storeImage(spriteName, atlas.getSubimage(x, y, width, height));
+	/**
+	 * A sprite image and its load statistics.
+	 */
+	public static class SpriteInfo {
+
+		public final String name;
+		public final BufferedImage image;
+		public final int width, height, transparency;
+		/** Size of the pixel data of the sprite, 0 for views into the atlas */
+		public final long bytes;
+		public final long nanos;
+
+		public SpriteInfo(String name, BufferedImage image, long bytes, long nanos) {
+			this.name = name;
+			this.image = image;
+			this.width = image.getWidth();
+			this.height = image.getHeight();
+			this.transparency = image.getTransparency();
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-20s %4dx%-4d %-11s %7d bytes %8.3f ms", name, width, height,
+					transparencyName(transparency), bytes, nanos / 1e6);
+		}
+	}
+
+	public static List<SpriteInfo> extractSpriteSheet() {
+		return extractSpriteSheet(true);
+	}
+
+	/**
+	 * @param compile if the sprites are copied into compatible images, otherwise views into the atlas
+	 *                image are stored
+	 * @return load statistics of the sprites
+	 */
+	public static List<SpriteInfo> extractSpriteSheet(boolean compile) {
+		List<SpriteInfo> sprites = loadSprites(SpriteAtlas.open(compile), Runnable::run).join();
+		storeSprites(sprites);
+		return sprites;
+	}
+
+	/**
+	 * Creates the images of all sprites of the atlas, each sprite is a separate task.
+	 * 
+	 * @param atlas    sprite atlas
+	 * @param executor executes the tasks
+	 * @return the sprites in the order of the atlas, completed when all sprites have been created
+	 */
+	public static CompletableFuture<List<SpriteInfo>> loadSprites(SpriteAtlas atlas, Executor executor) {
+		List<CompletableFuture<SpriteInfo>> sprites = IntStream.range(0, atlas.size())
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+					long start = System.nanoTime();
+					BufferedImage image = atlas.image(i);
+					return new SpriteInfo(atlas.name(i), image, atlas.isCompiling() ? bytes(image) : 0,
+							System.nanoTime() - start);
+				}, executor)).collect(Collectors.toList());
+		return CompletableFuture.allOf(sprites.toArray(CompletableFuture[]::new))
+				.thenApply(done -> sprites.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Stores the sprite images as image assets.
+	 * 
+	 * @param sprites sprites
+	 */
+	public static void storeSprites(List<SpriteInfo> sprites) {
+		sprites.forEach(sprite -> Assets.storeImage(sprite.name, sprite.image));
+	}
+
+	/**
+	 * @param source source image
+	 * @return copy of the image in an image compatible with the screen
+	 */
+	public static BufferedImage compile(BufferedImage source) {
+		int width = source.getWidth(), height = source.getHeight();
+		BufferedImage copy = ScaledImageCache.createCompatibleImage(width, height,
+				transparency(source.getRGB(0, 0, width, height, null, 0, width)));
+		Graphics2D g = copy.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(source, 0, 0, null);
+		g.dispose();
+		return copy;
+	}
+
+	private static int transparency(int[] argb) {
+		int transparency = Transparency.OPAQUE;
+		for (int pixel : argb) {
+			int alpha = pixel >>> 24;
+			if (alpha != 0xff) {
+				if (alpha != 0) {
+					return Transparency.TRANSLUCENT;
+				}
+				transparency = Transparency.BITMASK;
+			}
+		}
+		return transparency;
+	}
+
+	private static long bytes(BufferedImage image) {
+		return (long) image.getWidth() * image.getHeight() * image.getColorModel().getPixelSize() / 8;
+	}
+
+	private static String transparencyName(int transparency) {
+		switch (transparency) {
+		case Transparency.OPAQUE:
+			return "opaque";
+		case Transparency.BITMASK:
+			return "bitmask";
+		default:
+			return "translucent";
 		}
 	}
 }
@@ -0,0 +1,139 @@
+package de.amr.games.birdy.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import de.amr.games.birdy.fsm.CompiledStateMachine;
+
+/**
+ * Tests the flight and health control of the bird defined by {@link BirdControl}, as run by the bird
+ * of the game and the headless simulations.
+ *
+ * @author Armin Reichert
+ */
+public class BirdControlTest {
+
+	private static final long INJURED_TICKS = 3;
+
+	/** Records what the machines do with the bird. */
+	private class TestBody implements BirdControl.Body {
+
+		@Override
+		public boolean jumpKeyDown() {
+			return jumpKeyDown;
+		}
+
+		@Override
+		public void flap() {
+			actions.add("flap");
+		}
+
+		@Override
+		public void fly() {
+			actions.add("fly");
+		}
+
+		@Override
+		public void fall(float slowdown) {
+			actions.add("fall");
+		}
+
+		@Override
+		public void turnDown() {
+			actions.add("turnDown");
+		}
+
+		@Override
+		public void showHealth(HealthState state) {
+			actions.add("show " + state);
+		}
+
+		@Override
+		public void down() {
+			actions.add("down");
+		}
+	}
+
+	private final List<String> actions = new ArrayList<>();
+	private boolean jumpKeyDown;
+	private final CompiledStateMachine<FlightState, BirdEvent> flightControl;
+	private final CompiledStateMachine<HealthState, BirdEvent> healthControl;
+
+	public BirdControlTest() {
+		TestBody body = new TestBody();
+		flightControl = BirdControl.flightControl(body);
+		healthControl = BirdControl.healthControl(body, () -> INJURED_TICKS);
+		healthControl.init();
+		flightControl.init();
+		actions.clear();
+	}
+
+	@Test
+	public void flyingBirdFlapsWhileJumpKeyIsDown() {
+		flightControl.update();
+		jumpKeyDown = true;
+		flightControl.update();
+		assertEquals(List.of("fly", "flap"), actions);
+	}
+
+	@Test
+	public void flyingBirdFliesOnTickWithPassedObstacle() {
+		flightControl.enqueue(BirdEvent.PASSED_OBSTACLE);
+		flightControl.update();
+		assertEquals(FlightState.FLYING, flightControl.getState());
+		assertEquals(List.of("fly"), actions);
+	}
+
+	@Test
+	public void touchedPipeLetsBirdCrashDown() {
+		flightControl.enqueue(BirdEvent.TOUCHED_PIPE);
+		flightControl.update();
+		assertEquals(FlightState.CRASHING, flightControl.getState());
+		flightControl.update();
+		flightControl.enqueue(BirdEvent.TOUCHED_GROUND);
+		flightControl.update();
+		assertEquals(FlightState.DOWN, flightControl.getState());
+		assertEquals(List.of("turnDown", "fall", "down", "turnDown"), actions);
+	}
+
+	@Test
+	public void touchedGroundWhileFlyingKillsBird() {
+		flightControl.enqueue(BirdEvent.TOUCHED_GROUND);
+		healthControl.enqueue(BirdEvent.TOUCHED_GROUND);
+		flightControl.update();
+		healthControl.update();
+		assertEquals(FlightState.DOWN, flightControl.getState());
+		assertEquals(HealthState.DEAD, healthControl.getState());
+	}
+
+	@Test
+	public void injuredBirdGetsSaneAfterTimeout() {
+		healthControl.enqueue(BirdEvent.TOUCHED_PIPE);
+		healthControl.update();
+		assertEquals(HealthState.INJURED, healthControl.getState());
+		// the timer counts down to 0 on ticks with dropped events too, the timeout fires on the next tick
+		healthControl.enqueue(BirdEvent.PASSED_OBSTACLE);
+		for (long tick = 0; tick < INJURED_TICKS; ++tick) {
+			healthControl.update();
+			assertEquals(HealthState.INJURED, healthControl.getState());
+		}
+		healthControl.update();
+		assertEquals(HealthState.SANE, healthControl.getState());
+		assertEquals(List.of("show INJURED", "show SANE"), actions);
+	}
+
+	@Test
+	public void touchedPipeRestartsInjury() {
+		healthControl.enqueue(BirdEvent.TOUCHED_PIPE);
+		healthControl.update();
+		healthControl.update();
+		healthControl.update();
+		healthControl.enqueue(BirdEvent.TOUCHED_PIPE);
+		healthControl.update();
+		assertEquals(INJURED_TICKS, healthControl.getRemainingTicks());
+	}
+}
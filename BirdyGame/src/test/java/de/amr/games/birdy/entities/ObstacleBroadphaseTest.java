@@ -0,0 +1,145 @@
+package de.amr.games.birdy.entities;
+
+import static de.amr.games.birdy.entities.BirdEvent.PASSED_OBSTACLE;
+import static de.amr.games.birdy.entities.BirdEvent.TOUCHED_PIPE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the collision events of the {@link ObstacleBroadphase}, in particular of the obstacles left of
+ * the bird which overlapped it before.
+ *
+ * @author Armin Reichert
+ */
+public class ObstacleBroadphaseTest {
+
+	/*
+	 * Obstacles of 20x200 pixels with a passage from y=70 to y=130, the bird is a 10x10 box at x=100.
+	 */
+	private static final int WIDTH = 20, HEIGHT = 200, RADIUS = 30, CENTER_Y = 100;
+	private static final int BIRD_X = 100, BIRD_SIZE = 10;
+	private static final int IN_UPPER_PART = 50, IN_PASSAGE = 90;
+
+	private final ObstacleBroadphase broadphase = new ObstacleBroadphase();
+	private final List<Obstacle> obstacles = new ArrayList<>();
+	private final List<String> events = new ArrayList<>();
+
+	private Obstacle obstacle(float x) {
+		Obstacle obstacle = new Obstacle(WIDTH, HEIGHT, RADIUS, CENTER_Y);
+		obstacle.tf.x = x;
+		obstacles.add(obstacle);
+		return obstacle;
+	}
+
+	private void move(float dx) {
+		for (Obstacle obstacle : obstacles) {
+			obstacle.tf.x += dx;
+		}
+	}
+
+	private List<String> detect(float birdY) {
+		events.clear();
+		broadphase.detectCollisions(BIRD_X, birdY, BIRD_SIZE, BIRD_SIZE, obstacles,
+				(event, obstacle) -> events.add(event + " " + obstacles.indexOf(obstacle)));
+		return events;
+	}
+
+	@Test
+	public void passageLeftOfBirdIsPassed() {
+		obstacle(60);
+		obstacle(95);
+		obstacle(200);
+		assertEquals(List.of(), detect(IN_PASSAGE));
+		// the obstacle no longer overlaps the bird but was in the passage before
+		move(-30);
+		assertEquals(List.of("PASSED_OBSTACLE 1"), detect(IN_PASSAGE));
+		assertEquals(List.of(), detect(IN_PASSAGE));
+	}
+
+	@Test
+	public void allObstaclesOverlappedBeforeArePassed() {
+		obstacle(10);
+		obstacle(85);
+		obstacle(106);
+		assertEquals(List.of(), detect(IN_PASSAGE));
+		move(-50);
+		assertEquals(List.of("PASSED_OBSTACLE 1", "PASSED_OBSTACLE 2"), detect(IN_PASSAGE));
+	}
+
+	@Test
+	public void pipeIsTouchedOnceUntilLeft() {
+		obstacle(95);
+		assertEquals(List.of("TOUCHED_PIPE 0"), detect(IN_UPPER_PART));
+		assertEquals(List.of(), detect(IN_UPPER_PART));
+		assertEquals(List.of(), detect(IN_PASSAGE));
+		assertEquals(List.of("TOUCHED_PIPE 0", "PASSED_OBSTACLE 0"), detect(IN_UPPER_PART));
+	}
+
+	@Test
+	public void touchedPipeLeftOfBirdIsReleased() {
+		obstacle(95);
+		detect(IN_UPPER_PART);
+		move(-30);
+		assertEquals(List.of(), detect(IN_UPPER_PART));
+		// touched again after moving back over the bird
+		move(30);
+		assertEquals(List.of("TOUCHED_PIPE 0"), detect(IN_UPPER_PART));
+	}
+
+	/*
+	 * Compares the events with those of checking all obstacles, while the bird moves up and down and the
+	 * obstacles move left with varying speed, sometimes beyond the bird in one tick.
+	 */
+	@Test
+	public void sameEventsAsCheckingAllObstacles() {
+		Random rnd = new Random(42);
+		List<String> expected = new ArrayList<>();
+		List<boolean[]> state = new ArrayList<>();
+		int checked = 0;
+		float birdY = IN_PASSAGE;
+		for (int tick = 0; tick < 20_000; ++tick) {
+			if (obstacles.isEmpty() || obstacles.get(obstacles.size() - 1).tf.x < 250) {
+				obstacle(300 + rnd.nextInt(40));
+				state.add(new boolean[3]);
+			}
+			move(-1 - rnd.nextInt(rnd.nextInt(10) == 0 ? 40 : 4));
+			birdY = Math.max(0, Math.min(HEIGHT - BIRD_SIZE, birdY + rnd.nextInt(21) - 10));
+
+			expected.clear();
+			for (int i = 0; i < obstacles.size(); ++i) {
+				Obstacle o = obstacles.get(i);
+				int x = (int) o.tf.x;
+				boolean[] touching = state.get(i);
+				boolean upper = overlaps(birdY, x, o.hanging);
+				boolean lower = overlaps(birdY, x, o.standing);
+				boolean passage = overlaps(birdY, x, o.passage);
+				if (upper && !touching[0]) {
+					expected.add(TOUCHED_PIPE + " " + i);
+				}
+				if (lower && !touching[1]) {
+					expected.add(TOUCHED_PIPE + " " + i);
+				}
+				if (!passage && touching[2]) {
+					expected.add(PASSED_OBSTACLE + " " + i);
+				}
+				touching[0] = upper;
+				touching[1] = lower;
+				touching[2] = passage;
+			}
+			assertEquals(expected, detect(birdY), "tick " + tick);
+			checked += expected.size();
+		}
+		assertTrue(checked > 100);
+	}
+
+	private static boolean overlaps(float birdY, int x, Rectangle part) {
+		return new Rectangle(x, part.y, part.width, part.height).intersects(BIRD_X, birdY, BIRD_SIZE, BIRD_SIZE);
+	}
+}
@@ -0,0 +1,227 @@
+package de.amr.games.birdy.fsm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the transitions of a {@link TransitionTable} run by a {@link CompiledStateMachine}.
+ *
+ * @author Armin Reichert
+ */
+public class CompiledStateMachineTest {
+
+	private enum State {
+		IDLE, RUNNING, PAUSED
+	}
+
+	private enum Event {
+		START, PAUSE, STOP, PING
+	}
+
+	private static final State IDLE = State.IDLE, RUNNING = State.RUNNING, PAUSED = State.PAUSED;
+	private static final Event START = Event.START, PAUSE = Event.PAUSE, STOP = Event.STOP, PING = Event.PING;
+
+	private final List<String> log = new ArrayList<>();
+	private boolean allowed = true;
+
+	private CompiledStateMachine<State, Event> machine(long pauseTicks) {
+		//@formatter:off
+		TransitionTable<State, Event> table = TransitionTable.define(State.class, Event.class)
+
+			.state(IDLE)
+				.onEntry(() -> log.add("enter IDLE"))
+				.onExit(() -> log.add("exit IDLE"))
+
+			.state(RUNNING)
+				.onEntry(() -> log.add("enter RUNNING"))
+				.onExit(() -> log.add("exit RUNNING"))
+				.onTick(() -> log.add("tick RUNNING"))
+
+			.state(PAUSED)
+				.timeoutAfter(pauseTicks)
+				.onEntry(() -> log.add("enter PAUSED"))
+				.onTick(() -> log.add("tick PAUSED"))
+
+			.when(IDLE).then(RUNNING).on(START).condition(() -> allowed).act(e -> log.add("act " + e))
+			.when(IDLE).then(PAUSED).on(START)
+
+			.stay(RUNNING).on(PING).act(() -> log.add("ping"))
+			.when(RUNNING).then(PAUSED).on(PAUSE)
+			.when(RUNNING).then(IDLE).on(STOP)
+
+			.when(PAUSED).then(PAUSED).on(PAUSE)
+			.when(PAUSED).then(RUNNING).onTimeout()
+
+		.build();
+		//@formatter:on
+		return new CompiledStateMachine<>(table, IDLE, "[Test]");
+	}
+
+	@Test
+	public void initEntersInitialState() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		assertNull(fsm.getState());
+		fsm.init();
+		assertEquals(IDLE, fsm.getState());
+		assertEquals(List.of("enter IDLE"), log);
+	}
+
+	@Test
+	public void transitionExitsActsAndEnters() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		log.clear();
+		fsm.enqueue(START);
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+		assertEquals(List.of("exit IDLE", "act START", "enter RUNNING"), log);
+	}
+
+	@Test
+	public void firstTransitionWithFulfilledGuardIsTaken() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		allowed = false;
+		fsm.enqueue(START);
+		fsm.update();
+		assertEquals(PAUSED, fsm.getState());
+	}
+
+	@Test
+	public void internalTransitionStaysInState() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		fsm.enqueue(START);
+		fsm.update();
+		log.clear();
+		fsm.enqueue(PING);
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+		assertEquals(List.of("ping"), log);
+	}
+
+	@Test
+	public void eventWithoutTransitionIsDroppedAndTickActionRuns() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		fsm.enqueue(START);
+		fsm.update();
+		log.clear();
+		fsm.enqueue(START);
+		fsm.update();
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+		assertEquals(List.of("tick RUNNING", "tick RUNNING"), log);
+	}
+
+	@Test
+	public void oneEventPerUpdateInOrder() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		fsm.enqueue(START);
+		fsm.enqueue(STOP);
+		fsm.enqueue(START);
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+		fsm.update();
+		assertEquals(IDLE, fsm.getState());
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+	}
+
+	@Test
+	public void queueGrows() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		fsm.enqueue(PING);
+		fsm.update();
+		// the queue starts with 8 entries, the events wrap around before it grows
+		for (int i = 0; i < 10; ++i) {
+			fsm.enqueue(i % 2 == 0 ? START : STOP);
+		}
+		for (int i = 0; i < 10; ++i) {
+			fsm.update();
+			assertEquals(i % 2 == 0 ? RUNNING : IDLE, fsm.getState(), "update " + i);
+		}
+	}
+
+	@Test
+	public void timeoutFiresWhenTimerIsZero() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		allowed = false;
+		fsm.enqueue(START);
+		fsm.update();
+		assertEquals(PAUSED, fsm.getState());
+		assertEquals(3, fsm.getRemainingTicks());
+		for (int i = 0; i < 3; ++i) {
+			fsm.update();
+			assertEquals(PAUSED, fsm.getState());
+		}
+		assertEquals(0, fsm.getRemainingTicks());
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+		assertEquals(-1, fsm.getRemainingTicks());
+	}
+
+	@Test
+	public void timerCountsDownOnTicksWithDroppedEvents() {
+		CompiledStateMachine<State, Event> fsm = machine(2);
+		fsm.init();
+		allowed = false;
+		fsm.enqueue(START);
+		fsm.update();
+		fsm.enqueue(PING);
+		fsm.enqueue(STOP);
+		fsm.update();
+		fsm.update();
+		assertEquals(0, fsm.getRemainingTicks());
+		fsm.update();
+		assertEquals(RUNNING, fsm.getState());
+	}
+
+	@Test
+	public void reenteringStateRestartsTimer() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		allowed = false;
+		fsm.enqueue(START);
+		fsm.update();
+		fsm.update();
+		fsm.update();
+		assertEquals(1, fsm.getRemainingTicks());
+		log.clear();
+		fsm.enqueue(PAUSE);
+		fsm.update();
+		assertEquals(List.of("enter PAUSED"), log);
+		assertEquals(3, fsm.getRemainingTicks());
+	}
+
+	@Test
+	public void initClearsQueue() {
+		CompiledStateMachine<State, Event> fsm = machine(3);
+		fsm.init();
+		fsm.enqueue(START);
+		fsm.init();
+		fsm.update();
+		assertEquals(IDLE, fsm.getState());
+	}
+
+	@Test
+	public void incompleteDefinitionsAreRejected() {
+		assertThrows(IllegalStateException.class,
+				() -> TransitionTable.define(State.class, Event.class).when(IDLE).on(START).build());
+		assertThrows(IllegalStateException.class,
+				() -> TransitionTable.define(State.class, Event.class).when(IDLE).then(RUNNING).on(START).onTimeout().build());
+		assertThrows(IllegalStateException.class,
+				() -> TransitionTable.define(State.class, Event.class).when(IDLE).then(RUNNING).onEntry(() -> {
+				}));
+		assertThrows(IllegalStateException.class, () -> TransitionTable.define(State.class, Event.class).then(IDLE));
+	}
+}
@@ -0,0 +1,93 @@
+package de.amr.games.birdy.fsm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the order of the events passing an {@link EventRing}, also when the ring wraps around and
+ * grows.
+ *
+ * @author Armin Reichert
+ */
+public class EventRingTest {
+
+	private enum Event {
+		A, B, C, D, E
+	}
+
+	private final EventRing<Event> ring = new EventRing<>(Event.class, 4);
+	private final List<Event> drained = new ArrayList<>();
+
+	private List<Event> drain() {
+		drained.clear();
+		ring.drain(drained::add);
+		return drained;
+	}
+
+	@Test
+	public void drainsInOrderOfAdding() {
+		ring.add(0, Event.C, 1);
+		ring.add(0, Event.A, 2);
+		ring.add(0, Event.B, 3);
+		assertEquals(3, ring.size());
+		assertEquals(List.of(Event.C, Event.A, Event.B), drain());
+		assertEquals(0, ring.size());
+		assertEquals(List.of(), drain());
+	}
+
+	@Test
+	public void wrapsAround() {
+		for (int tick = 0; tick < 10; ++tick) {
+			ring.add(tick, Event.A, 0);
+			ring.add(tick, Event.B, 0);
+			ring.add(tick, Event.C, 0);
+			assertEquals(List.of(Event.A, Event.B, Event.C), drain(), "tick " + tick);
+		}
+	}
+
+	@Test
+	public void growsWhileWrappedAround() {
+		ring.add(0, Event.E, 0);
+		ring.add(0, Event.E, 0);
+		ring.add(0, Event.E, 0);
+		drain();
+		// head is at index 3 of 4, the events wrap around before the ring grows
+		Event[] events = Event.values();
+		for (int i = 0; i < 9; ++i) {
+			ring.add(1, events[i % events.length], i);
+		}
+		assertEquals(9, ring.size());
+		assertEquals(List.of(Event.A, Event.B, Event.C, Event.D, Event.E, Event.A, Event.B, Event.C, Event.D), drain());
+	}
+
+	@Test
+	public void drainsEventsAddedByHandler() {
+		ring.add(0, Event.A, 0);
+		ring.add(0, Event.B, 0);
+		drained.clear();
+		ring.drain(event -> {
+			drained.add(event);
+			if (event == Event.A) {
+				ring.add(0, Event.C, 0);
+			} else if (event == Event.C) {
+				ring.add(0, Event.D, 0);
+			}
+		});
+		assertEquals(List.of(Event.A, Event.B, Event.C, Event.D), drained);
+		assertEquals(0, ring.size());
+	}
+
+	@Test
+	public void clearRemovesPendingEvents() {
+		ring.add(0, Event.A, 0);
+		ring.add(0, Event.B, 0);
+		ring.clear();
+		assertEquals(0, ring.size());
+		ring.add(1, Event.C, 0);
+		assertEquals(List.of(Event.C), drain());
+	}
+}
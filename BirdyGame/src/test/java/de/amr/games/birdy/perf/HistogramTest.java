@@ -0,0 +1,96 @@
+package de.amr.games.birdy.perf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the buckets and percentiles of {@link Histogram}.
+ *
+ * @author Armin Reichert
+ */
+public class HistogramTest {
+
+	private static final int LAST_BUCKET = Histogram.bucket(Long.MAX_VALUE);
+
+	@Test
+	public void smallValuesHaveBucketsOfTheirOwn() {
+		for (int value = 0; value < 16; ++value) {
+			assertEquals(value, Histogram.bucket(value));
+			assertEquals(value, Histogram.lowerBound(value));
+			assertEquals(value, Histogram.upperBound(value));
+		}
+	}
+
+	@Test
+	public void powersOfTwoAreDividedIntoEightBuckets() {
+		assertEquals(16, Histogram.bucket(16));
+		assertEquals(16, Histogram.bucket(17));
+		assertEquals(17, Histogram.bucket(18));
+		assertEquals(23, Histogram.bucket(31));
+		assertEquals(24, Histogram.bucket(32));
+		assertEquals(24, Histogram.bucket(35));
+		assertEquals(25, Histogram.bucket(36));
+	}
+
+	@Test
+	public void bucketsAreAdjacent() {
+		for (int bucket = 0; bucket < LAST_BUCKET; ++bucket) {
+			assertEquals(Histogram.upperBound(bucket) + 1, Histogram.lowerBound(bucket + 1), "bucket " + bucket);
+		}
+		assertEquals(Long.MAX_VALUE, Histogram.upperBound(LAST_BUCKET));
+	}
+
+	@Test
+	public void boundsAreInTheirBucket() {
+		for (int bucket = 0; bucket <= LAST_BUCKET; ++bucket) {
+			assertEquals(bucket, Histogram.bucket(Histogram.lowerBound(bucket)), "lower bound of bucket " + bucket);
+			assertEquals(bucket, Histogram.bucket(Histogram.upperBound(bucket)), "upper bound of bucket " + bucket);
+		}
+	}
+
+	@Test
+	public void relativeErrorIsAtMostOneEighth() {
+		for (int bucket = 0; bucket <= LAST_BUCKET; ++bucket) {
+			long lower = Histogram.lowerBound(bucket), upper = Histogram.upperBound(bucket);
+			assertTrue(upper - lower <= lower / 8, "bucket " + bucket);
+		}
+	}
+
+	@Test
+	public void negativeValuesAreRecordedAsZero() {
+		Histogram h = new Histogram();
+		h.record(-5);
+		assertEquals(1, h.count());
+		assertEquals(0, h.max());
+		assertEquals(0, h.percentile(1));
+	}
+
+	@Test
+	public void percentileIsUpperBoundOfBucketAtMostMaximum() {
+		Histogram h = new Histogram();
+		assertEquals(0, h.percentile(0.5));
+		for (int value = 1; value <= 100; ++value) {
+			h.record(value);
+		}
+		assertEquals(100, h.count());
+		assertEquals(100, h.max());
+		// the 50th value is in the bucket 48..51
+		assertEquals(51, h.percentile(0.5));
+		assertEquals(1, h.percentile(0));
+		assertEquals(100, h.percentile(1));
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		Histogram h = new Histogram();
+		h.record(10);
+		Histogram copy = h.copy();
+		h.reset();
+		h.record(1000);
+		assertEquals(1, copy.count());
+		assertEquals(10, copy.max());
+		assertEquals(1000, h.max());
+	}
+}
@@ -0,0 +1,62 @@
+package de.amr.games.birdy.perf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link PhaseTimes#reset()} clears the histogram of a phase by the next lap of the phase.
+ *
+ * @author Armin Reichert
+ */
+public class PhaseTimesTest {
+
+	private final PhaseTimes times = new PhaseTimes();
+
+	@Test
+	public void lapRecordsTimeSinceStart() {
+		long start = System.nanoTime();
+		long now = times.lap(Phase.TICK, start);
+		assertTrue(now >= start);
+		Histogram h = times.histogram(Phase.TICK);
+		assertEquals(1, h.count());
+		assertEquals(now - start, h.max());
+		assertEquals(0, times.histogram(Phase.DRAW).count());
+	}
+
+	@Test
+	public void phaseIsNotTimedAfterReset() {
+		times.lap(Phase.TICK, System.nanoTime());
+		Histogram before = times.histogram(Phase.TICK);
+		times.reset();
+		assertEquals(0, times.histogram(Phase.TICK).count());
+		// the histogram itself is left to the thread timing the phase
+		assertEquals(1, before.count());
+	}
+
+	@Test
+	public void nextLapClearsHistogram() {
+		long start = System.nanoTime();
+		times.lap(Phase.TICK, start - 1_000_000_000);
+		times.lap(Phase.DRAW, start);
+		times.reset();
+		times.lap(Phase.TICK, start);
+		Histogram h = times.histogram(Phase.TICK);
+		assertEquals(1, h.count());
+		assertTrue(h.max() < 1_000_000_000);
+		assertEquals(0, times.histogram(Phase.DRAW).count());
+	}
+
+	@Test
+	public void resetOnOtherThread() throws InterruptedException {
+		times.lap(Phase.TICK, System.nanoTime());
+		times.lap(Phase.TICK, System.nanoTime());
+		Thread other = new Thread(times::reset);
+		other.start();
+		other.join();
+		assertEquals(0, times.histogram(Phase.TICK).count());
+		times.lap(Phase.TICK, System.nanoTime());
+		assertEquals(1, times.histogram(Phase.TICK).count());
+	}
+}
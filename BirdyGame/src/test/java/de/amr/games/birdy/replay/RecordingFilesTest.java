@@ -0,0 +1,107 @@
+package de.amr.games.birdy.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests encoding and decoding of recordings by {@link RecordingFiles}, in particular the
+ * variable-length toggle distances.
+ *
+ * @author Armin Reichert
+ */
+public class RecordingFilesTest {
+
+	/* magic, version, seed, bird position and speed, length, toggle count */
+	private static final int HEADER_SIZE = 4 + 1 + 8 + 3 * 4 + 4 + 4;
+
+	private static Recording recording(int... toggleTicks) {
+		return new Recording(42, 30.5f, 200.25f, -1.5f, 5000, toggleTicks);
+	}
+
+	private static void assertSameRecording(Recording expected, Recording actual) {
+		assertEquals(expected.getSeed(), actual.getSeed());
+		assertEquals(expected.getBirdX(), actual.getBirdX());
+		assertEquals(expected.getBirdY(), actual.getBirdY());
+		assertEquals(expected.getBirdVY(), actual.getBirdVY());
+		assertEquals(expected.getLength(), actual.getLength());
+		assertEquals(expected.getToggleCount(), actual.getToggleCount());
+		for (int i = 0; i < expected.getToggleCount(); ++i) {
+			assertEquals(expected.getToggleTick(i), actual.getToggleTick(i), "toggle " + i);
+		}
+	}
+
+	@Test
+	public void roundTripOfAllVarIntLengths() {
+		// distances of 0, 1 to 5 bytes
+		int[] distances = { 0, 1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152, 268_435_455, 268_435_456 };
+		int[] ticks = new int[distances.length + 1];
+		int tick = 0;
+		for (int i = 0; i < distances.length; ++i) {
+			tick += distances[i];
+			ticks[i] = tick;
+		}
+		ticks[distances.length] = Integer.MAX_VALUE;
+		Recording recording = recording(ticks);
+		assertSameRecording(recording, RecordingFiles.decode(RecordingFiles.encode(recording)));
+	}
+
+	@Test
+	public void distancesUseSevenBitsPerByte() {
+		assertEquals(HEADER_SIZE, RecordingFiles.encode(recording()).remaining());
+		assertEquals(HEADER_SIZE + 1, RecordingFiles.encode(recording(127)).remaining());
+		assertEquals(HEADER_SIZE + 2, RecordingFiles.encode(recording(128)).remaining());
+		assertEquals(HEADER_SIZE + 2, RecordingFiles.encode(recording(16_383)).remaining());
+		assertEquals(HEADER_SIZE + 3, RecordingFiles.encode(recording(16_384)).remaining());
+		// the distance to the previous toggle is encoded
+		assertEquals(HEADER_SIZE + 3, RecordingFiles.encode(recording(100, 16_483)).remaining());
+		assertEquals(HEADER_SIZE + 5, RecordingFiles.encode(recording(Integer.MAX_VALUE)).remaining());
+	}
+
+	@Test
+	public void malformedVarIntIsRejected() {
+		ByteBuffer buffer = RecordingFiles.encode(recording(1));
+		ByteBuffer malformed = ByteBuffer.allocate(HEADER_SIZE + 5);
+		malformed.put(buffer.limit(HEADER_SIZE));
+		for (int i = 0; i < 5; ++i) {
+			malformed.put((byte) 0xFF);
+		}
+		assertThrows(IllegalArgumentException.class, () -> RecordingFiles.decode(malformed.flip()));
+	}
+
+	@Test
+	public void otherDataIsRejected() {
+		ByteBuffer buffer = RecordingFiles.encode(recording(1));
+		buffer.put(0, (byte) 0);
+		assertThrows(IllegalArgumentException.class, () -> RecordingFiles.decode(buffer));
+	}
+
+	@Test
+	public void jumpKeyIsDownBetweenToggles() {
+		Recording recording = recording(3, 5);
+		assertFalse(recording.isJumpKeyDown(2));
+		assertTrue(recording.isJumpKeyDown(3));
+		assertTrue(recording.isJumpKeyDown(4));
+		assertFalse(recording.isJumpKeyDown(5));
+		assertFalse(recording.isJumpKeyDown(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void fileRoundTrip() throws Exception {
+		Path path = Files.createTempFile("recording", RecordingFiles.EXTENSION);
+		try {
+			Recording recording = recording(0, 10, 300, 70_000);
+			assertEquals(path, RecordingFiles.writeAsync(recording, path).get());
+			assertSameRecording(recording, RecordingFiles.read(path));
+		} finally {
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package de.amr.games.birdy.scenes;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import de.amr.games.birdy.entities.Bird;
+import de.amr.games.birdy.perf.PhaseTimes;
+import de.amr.games.birdy.sim.Autopilot;
+import de.amr.games.birdy.sim.HeadlessGame;
+import de.amr.games.birdy.sim.HeadlessGame.SimBird;
+import de.amr.games.birdy.sim.HeadlessGame.SimObstacle;
+import de.amr.games.birdy.sim.SimulationConfig;
+import de.amr.games.birdy.sprites.ScaledImageCache;
+
+/**
+ * Checks that the simulation ticks and the drawing of the play scene frames stay within an
+ * allocation budget. Runs headless, see the surefire configuration in {@code pom.xml}.
+ * <p>
+ * Each frame runs the ticks of a {@link HeadlessGame} played by the {@link Autopilot}, captures a
+ * {@link PlayFrame} into a {@link TripleBuffer} and draws it with the {@link PlayFrameRenderer} of the
+ * play scene into an offscreen image. The frames run no tick, one tick or two ticks, like frames of
+ * the fixed timestep. The images are created here, so no display, no application and no assets are
+ * needed. After a warmup, the bytes allocated by each frame are measured with
+ * {@link ThreadMXBean#getCurrentThreadAllocatedBytes()}, including the frames in which a game ends.
+ * Only starting the next game is not measured. The test fails if the average or the maximum number
+ * of bytes per frame exceeds its budget.
+ * <p>
+ * Measured are the ticks of the headless game, including the compiled state machines of the bird,
+ * the frame capture and the frame renderer. The update of the play scene itself needs the
+ * application and its assets and is not measured: the entity registry, the obstacle controller, the
+ * collision handler, the state machines of the scenes, the city and the stars.
+ * <p>
+ * Drawing an image allocates small objects inside Java2D which the JIT compiler removes by escape
+ * analysis. Therefore the frames are only measured after the warmup, and a deoptimization of the
+ * compiled code can still allocate a few hundred bytes in a single frame. The budgets (1 byte per
+ * frame on average, 1024 bytes in one frame) allow for that, while an allocation in each frame
+ * exceeds the average budget.
+ *
+ * @author Armin Reichert
+ */
+public class FrameAllocationTest {
+
+	/** Ticks per frame, repeated. */
+	private static final int[] TICKS = { 1, 1, 0, 2, 1, 1, 2, 0 };
+
+	private static final int STAR_COUNT = 8;
+
+	private static final int WARMUP_FRAMES = 20_000, FRAMES = 20_000;
+
+	/** Budgets in bytes per frame. */
+	private static final long AVERAGE_BUDGET = 1, MAX_BUDGET = 1024;
+
+	private final SimulationConfig cfg = new SimulationConfig();
+	private final HeadlessGame game;
+	private final TripleBuffer<PlayFrame> frames = new TripleBuffer<>(PlayFrame::new);
+	private final PlayFrameRenderer renderer = new PlayFrameRenderer();
+	private final PhaseTimes times = new PhaseTimes();
+	private final BufferedImage[] birdImages = new BufferedImage[3];
+	private final BufferedImage[] hangingImages, standingImages;
+	private final BufferedImage cityBackground, starImage, groundStrip;
+	private final int groundTileWidth = 24;
+	private float birdPrevX, birdPrevY, groundPrevScrollX, groundScrollX;
+	private double birdPrevRotation;
+
+	public FrameAllocationTest() {
+		game = new HeadlessGame(cfg, new Autopilot(), 42);
+		for (int i = 0; i < birdImages.length; ++i) {
+			birdImages[i] = image(cfg.birdSize, cfg.birdSize, Transparency.TRANSLUCENT, Color.YELLOW);
+		}
+		Bird.prewarmRotatedFrames(birdImages);
+		// the pipe images of all heights share the raster of one image, like the scaled pipe images they
+		// exist before the game starts
+		BufferedImage pipeDown = image(cfg.obstacleWidth, cfg.obstacleHeight, Transparency.TRANSLUCENT, Color.GREEN);
+		BufferedImage pipeUp = image(cfg.obstacleWidth, cfg.obstacleHeight, Transparency.TRANSLUCENT, Color.GREEN);
+		hangingImages = new BufferedImage[cfg.obstacleHeight + 1];
+		standingImages = new BufferedImage[cfg.obstacleHeight + 1];
+		for (int height = 1; height <= cfg.obstacleHeight; ++height) {
+			hangingImages[height] = pipeDown.getSubimage(0, cfg.obstacleHeight - height, cfg.obstacleWidth, height);
+			standingImages[height] = pipeUp.getSubimage(0, 0, cfg.obstacleWidth, height);
+		}
+		cityBackground = image(cfg.width, cfg.height, Transparency.OPAQUE, Color.BLUE);
+		starImage = image(8, 8, Transparency.TRANSLUCENT, Color.WHITE);
+		groundStrip = image(cfg.width + groundTileWidth, cfg.groundHeight, Transparency.OPAQUE, Color.ORANGE);
+		BufferedImage digit = image(24, 36, Transparency.TRANSLUCENT, Color.WHITE);
+		BufferedImage[] digits = new BufferedImage[10];
+		for (int d = 0; d <= 9; ++d) {
+			digits[d] = digit;
+		}
+		renderer.setScore(digits, 1.5f, cfg.width / 2, game.getGroundY() / 4);
+		BufferedImage gameOver = image(192, 42, Transparency.TRANSLUCENT, Color.ORANGE);
+		renderer.setGameOverImage(gameOver, (cfg.width - gameOver.getWidth()) / 2,
+				(cfg.height - gameOver.getHeight()) / 2);
+	}
+
+	private static BufferedImage image(int width, int height, int transparency, Color color) {
+		BufferedImage image = ScaledImageCache.createCompatibleImage(width, height, transparency);
+		Graphics2D g = image.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return image;
+	}
+
+	@Test
+	public void framesStayWithinAllocationBudget() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		BufferedImage canvas = ScaledImageCache.createCompatibleImage(cfg.width, cfg.height, Transparency.OPAQUE);
+		Graphics2D g = canvas.createGraphics();
+		long totalBytes = 0, maxBytes = 0;
+		int measured = 0, maxFrame = -1;
+		for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; ++frame) {
+			long before = threads.getCurrentThreadAllocatedBytes();
+			for (int ticks = TICKS[frame % TICKS.length]; ticks > 0; --ticks) {
+				tick();
+			}
+			captureFrame(this.frames.back());
+			this.frames.publish();
+			renderer.draw(g, this.frames.front(), (frame % 4) / 4f, times);
+			long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+			if (frame >= WARMUP_FRAMES) {
+				totalBytes += bytes;
+				if (bytes > maxBytes) {
+					maxBytes = bytes;
+					maxFrame = frame - WARMUP_FRAMES;
+				}
+				++measured;
+			}
+			if (game.isGameOver()) {
+				startGame();
+			}
+		}
+		g.dispose();
+		double bytesPerFrame = (double) totalBytes / measured;
+		assertTrue(bytesPerFrame <= AVERAGE_BUDGET, String.format(
+				"Average allocation of %.1f bytes per frame exceeds budget of %d bytes", bytesPerFrame, AVERAGE_BUDGET));
+		assertTrue(maxBytes <= MAX_BUDGET, String.format("Allocation of %d bytes in frame %d exceeds budget of %d bytes",
+				maxBytes, maxFrame, MAX_BUDGET));
+	}
+
+	private void startGame() {
+		game.init();
+		groundPrevScrollX = groundScrollX = 0;
+	}
+
+	/*
+	 * The previous state is saved before each tick, like the play scene does.
+	 */
+	private void tick() {
+		SimBird bird = game.getBird();
+		birdPrevX = bird.x;
+		birdPrevY = bird.y;
+		birdPrevRotation = bird.rotation;
+		groundPrevScrollX = groundScrollX;
+		game.step();
+		if (!game.isGameOver()) {
+			groundScrollX = (groundScrollX - cfg.worldSpeed) % groundTileWidth;
+		}
+	}
+
+	private void captureFrame(PlayFrame f) {
+		SimBird bird = game.getBird();
+
+		f.nanos = System.nanoTime();
+		f.state = game.getSceneState();
+		f.flightState = bird.getFlightState();
+		f.healthState = bird.getHealthState();
+		f.points = game.getPoints();
+
+		f.birdImage = birdImages[(int) (game.getTick() / 6 % birdImages.length)];
+		f.birdPrevX = birdPrevX;
+		f.birdPrevY = birdPrevY;
+		f.birdX = bird.x;
+		f.birdY = bird.y;
+		f.birdPrevRotation = birdPrevRotation;
+		f.birdRotation = bird.rotation;
+		f.birdWidth = bird.width;
+		f.birdHeight = bird.height;
+
+		f.groundStrip = groundStrip;
+		f.groundPrevScrollX = groundPrevScrollX;
+		f.groundScrollX = groundScrollX;
+		f.groundTileWidth = groundTileWidth;
+		f.groundY = (int) game.getGroundY();
+		f.groundWidth = cfg.width;
+		f.groundHeight = cfg.groundHeight;
+
+		f.cityBackground = cityBackground;
+		f.cityX = 0;
+		f.cityY = 0;
+		f.setStarCount(STAR_COUNT);
+		for (int i = 0; i < STAR_COUNT; ++i) {
+			f.starX[i] = (i * 79 + game.getTick() / 30) % cfg.width;
+			f.starY[i] = i * 23 % (cfg.height / 2);
+			f.starImage[i] = starImage;
+		}
+
+		List<SimObstacle> obstacles = game.getObstacles();
+		f.setObstacleCount(obstacles.size());
+		for (int i = 0; i < obstacles.size(); ++i) {
+			SimObstacle obstacle = obstacles.get(i);
+			f.obstaclePrevX[i] = obstacle.x - obstacle.vx;
+			f.obstacleX[i] = obstacle.x;
+			f.obstacleY[i] = 0;
+			f.hangingImage[i] = hangingImages[obstacle.hangingHeight];
+			f.standingImage[i] = standingImages[obstacle.standingHeight];
+			f.passage[i].setBounds(0, obstacle.passageY(), obstacle.width, obstacle.passageHeight);
+			// every other passage is illuminated such that the passage light is drawn too
+			f.illuminated[i] = (obstacle.hangingHeight & 1) == 0;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package de.amr.games.birdy.scenes;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a failing tick ends the {@link SimulationThread} and is kept for the application thread.
+ *
+ * @author Armin Reichert
+ */
+public class SimulationThreadTest {
+
+	/*
+	 * Runs two ticks, then the failing one.
+	 */
+	private static Throwable failureOf(Runnable failingTick) throws InterruptedException {
+		CountDownLatch ticks = new CountDownLatch(3);
+		SimulationThread simulation = new SimulationThread("Test", 1000, 5, () -> {
+			ticks.countDown();
+			if (ticks.getCount() == 0) {
+				failingTick.run();
+			}
+		});
+		simulation.start();
+		assertTrue(ticks.await(5, TimeUnit.SECONDS));
+		// the failure is stored after the last tick
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (simulation.failure() == null && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		simulation.stop();
+		return simulation.failure();
+	}
+
+	@Test
+	public void keepsException() throws InterruptedException {
+		RuntimeException x = new IllegalArgumentException("tick failed");
+		assertSame(x, failureOf(() -> {
+			throw x;
+		}));
+	}
+
+	@Test
+	public void keepsError() throws InterruptedException {
+		Error error = new StackOverflowError();
+		assertSame(error, failureOf(() -> {
+			throw error;
+		}));
+	}
+
+	@Test
+	public void noFailureAfterStop() throws InterruptedException {
+		CountDownLatch ticks = new CountDownLatch(3);
+		SimulationThread simulation = new SimulationThread("Test", 1000, 5, ticks::countDown);
+		simulation.start();
+		assertTrue(ticks.await(5, TimeUnit.SECONDS));
+		simulation.stop();
+		assertNull(simulation.failure());
+	}
+}
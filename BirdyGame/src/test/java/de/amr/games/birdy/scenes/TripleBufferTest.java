@@ -0,0 +1,86 @@
+package de.amr.games.birdy.scenes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the buffer exchange of {@link TripleBuffer}.
+ *
+ * @author Armin Reichert
+ */
+public class TripleBufferTest {
+
+	/** Buffer of the tests, both values are written with the same number. */
+	private static class Frame {
+		long first, second;
+	}
+
+	private final TripleBuffer<Frame> buffers = new TripleBuffer<>(Frame::new);
+
+	private void write(long n) {
+		Frame f = buffers.back();
+		f.first = n;
+		f.second = n;
+		buffers.publish();
+	}
+
+	@Test
+	public void readerGetsPublishedBuffer() {
+		write(1);
+		assertEquals(1, buffers.front().first);
+	}
+
+	@Test
+	public void readerKeepsBufferUntilNextPublish() {
+		write(1);
+		Frame front = buffers.front();
+		assertSame(front, buffers.front());
+		write(2);
+		assertNotSame(front, buffers.front());
+		assertEquals(2, buffers.front().first);
+	}
+
+	@Test
+	public void readerGetsLatestOfSeveralPublishedBuffers() {
+		write(1);
+		write(2);
+		write(3);
+		assertEquals(3, buffers.front().first);
+	}
+
+	@Test
+	public void writerNeverGetsBufferOfReader() {
+		Frame front = buffers.front();
+		for (int n = 1; n <= 10; ++n) {
+			write(n);
+			// the reader takes a buffer after every other publish only
+			if (n % 2 == 0) {
+				front = buffers.front();
+			}
+			assertNotSame(front, buffers.back());
+		}
+	}
+
+	@Test
+	public void readerSeesCompleteBuffersInOrder() throws InterruptedException {
+		long count = 1_000_000;
+		Thread writer = new Thread(() -> {
+			for (long n = 1; n <= count; ++n) {
+				write(n);
+			}
+		});
+		writer.start();
+		long last = 0;
+		while (last < count) {
+			Frame f = buffers.front();
+			assertEquals(f.first, f.second);
+			assertTrue(f.first >= last);
+			last = f.first;
+		}
+		writer.join();
+	}
+}
@@ -0,0 +1,62 @@
+package de.amr.games.birdy.sim;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import de.amr.games.birdy.replay.Recording;
+import de.amr.games.birdy.replay.RecordingInputSource;
+import de.amr.games.birdy.replay.ReplayInputSource;
+
+/**
+ * Replays recorded input through a {@link HeadlessGame} and a {@link PopulationSimulation} of one
+ * bird and compares them tick by tick. Both run the state machines of the bird of the game.
+ *
+ * @author Armin Reichert
+ */
+public class HeadlessRulesTest {
+
+	private final SimulationConfig cfg = new SimulationConfig();
+
+	private Recording record(long seed) {
+		RecordingInputSource input = new RecordingInputSource(new Autopilot());
+		HeadlessGame game = new HeadlessGame(cfg, input, seed);
+		game.run(100_000);
+		return input.finish(game);
+	}
+
+	private void replay(Recording recording) {
+		HeadlessGame game = new HeadlessGame(cfg, new ReplayInputSource(recording), recording.getSeed());
+		game.placeBird(recording.getBirdX(), recording.getBirdY(), recording.getBirdVY());
+		PopulationSimulation population = new PopulationSimulation(cfg,
+				(p, bird) -> recording.isJumpKeyDown(p.getTick()), recording.getSeed(), 1);
+		population.placeBird(0, recording.getBirdX(), recording.getBirdY(), recording.getBirdVY());
+		HeadlessGame.SimBird bird = game.getBird();
+		while (!game.isGameOver()) {
+			game.step();
+			population.step();
+			String at = "seed " + recording.getSeed() + ", tick " + game.getTick();
+			assertEquals(bird.getFlightState(), population.getFlightState(0), at);
+			assertEquals(bird.getHealthState(), population.getHealthState(0), at);
+			assertEquals(bird.x, population.getX(0), at);
+			assertEquals(bird.y, population.getY(0), at);
+			assertEquals(bird.vy, population.getVY(0), at);
+			assertEquals(game.getPoints(), population.getPoints(0), at);
+			assertEquals(game.isGameOver(), population.isGameOver(0), at);
+		}
+		assertEquals(recording.getLength(), game.getTick());
+		assertEquals(game.getDeathCause(), population.getDeathCause(0));
+	}
+
+	@Test
+	public void populationOfOneBirdReplaysHeadlessGame() {
+		int toggles = 0;
+		for (long seed = 1; seed <= 20; ++seed) {
+			Recording recording = record(seed);
+			toggles += recording.getToggleCount();
+			replay(recording);
+		}
+		assertTrue(toggles > 0);
+	}
+}